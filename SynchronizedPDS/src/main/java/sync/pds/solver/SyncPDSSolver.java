@@ -14,9 +14,15 @@ package sync.pds.solver;
 import java.util.AbstractMap;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,6 +31,8 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
+import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
 
 import sync.pds.solver.nodes.CallPopNode;
@@ -59,23 +67,20 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
 
     private static final Logger logger = LoggerFactory.getLogger(SyncPDSSolver.class);
     private static final boolean FieldSensitive = true;
-    private static final boolean ContextSensitive = true;
-    protected final WeightedPushdownSystem<Stmt, INode<Fact>, W> callingPDS = new WeightedPushdownSystem<Stmt, INode<Fact>, W>() {
-        public String toString() {
-            return "Call " + SyncPDSSolver.this.toString();
-        };
-    };
-    protected final WeightedPushdownSystem<Field, INode<Node<Stmt, Fact>>, W> fieldPDS = new WeightedPushdownSystem<Field, INode<Node<Stmt, Fact>>, W>() {
-        public String toString() {
-            return "Field " + SyncPDSSolver.this.toString();
-        };
-    };
-    private final Set<Node<Stmt, Fact>> reachedStates = Sets.newHashSet();
-    private final Set<Node<Stmt, Fact>> callingContextReachable = Sets.newHashSet();
-    private final Set<Node<Stmt, Fact>> fieldContextReachable = Sets.newHashSet();
-    private final Set<SyncPDSUpdateListener<Stmt, Fact>> updateListeners = Sets.newHashSet();
-    private final Multimap<Node<Stmt, Fact>, SyncStatePDSUpdateListener<Stmt, Fact>> reachedStateUpdateListeners = HashMultimap
-            .create();
+    // Approximate retained bytes per element on a 64-bit JVM, including the entries of the indexing hash-maps
+    private static final long RULE_BYTES = 120;
+    private static final long TRANSITION_BYTES = 200;
+    private static final long STATE_LISTENER_BYTES = 100;
+    private static final long REACHED_NODE_BYTES = 150;
+    protected final WeightedPushdownSystem<Stmt, INode<Fact>, W> callingPDS;
+    protected final WeightedPushdownSystem<Field, INode<Node<Stmt, Fact>>, W> fieldPDS;
+    private final ForkJoinPool pool;
+    private final AtomicReference<RuntimeException> listenerFailure = new AtomicReference<>();
+    private final Set<Node<Stmt, Fact>> reachedStates;
+    private final Set<Node<Stmt, Fact>> callingContextReachable;
+    private final Set<Node<Stmt, Fact>> fieldContextReachable;
+    private final Set<SyncPDSUpdateListener<Stmt, Fact>> updateListeners;
+    private final SetMultimap<Node<Stmt, Fact>, SyncStatePDSUpdateListener<Stmt, Fact>> reachedStateUpdateListeners;
     protected final WeightedPAutomaton<Field, INode<Node<Stmt, Fact>>, W> fieldAutomaton;
     protected final WeightedPAutomaton<Stmt, INode<Fact>, W> callAutomaton;
 
@@ -91,7 +96,51 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
             final boolean useCallSummaries, NestedWeightedPAutomatons<Stmt, INode<Fact>, W> callSummaries,
             final boolean useFieldSummaries,
             NestedWeightedPAutomatons<Field, INode<Node<Stmt, Fact>>, W> fieldSummaries) {
-        fieldAutomaton = new WeightedPAutomaton<Field, INode<Node<Stmt, Fact>>, W>(initialFieldNode) {
+        this(initialCallNode, initialFieldNode, useCallSummaries, callSummaries, useFieldSummaries, fieldSummaries,
+                null);
+    }
+
+    /**
+     * Creates a thread-safe solver when a pool is supplied. Rules, transitions and reachable nodes are then stored in
+     * concurrent data-structures, and the listener callbacks of both automata are forked onto the pool. The
+     * implementation of {@link #computeSuccessor(Node)} must be thread-safe in this case, and the weight domain
+     * must combine weights idempotently. {@link #solve(Node, Weight)} returns once the pool is quiescent. Nested
+     * summaries are shared between automata and are not thread-safe, hence a pool cannot be combined with them.
+     * 
+     * @param pool
+     *            The pool to execute listener callbacks on, or null for a single-threaded solver.
+     * @throws IllegalArgumentException
+     *             if a pool is supplied together with call or field summaries
+     */
+    public SyncPDSSolver(INode<Fact> initialCallNode, INode<Node<Stmt, Fact>> initialFieldNode,
+            final boolean useCallSummaries, NestedWeightedPAutomatons<Stmt, INode<Fact>, W> callSummaries,
+            final boolean useFieldSummaries,
+            NestedWeightedPAutomatons<Field, INode<Node<Stmt, Fact>>, W> fieldSummaries, ForkJoinPool pool) {
+        if (pool != null && (useCallSummaries || useFieldSummaries))
+            throw new IllegalArgumentException("A concurrent solver cannot use nested summaries");
+        this.pool = pool;
+        boolean concurrent = pool != null;
+        callingPDS = new WeightedPushdownSystem<Stmt, INode<Fact>, W>(concurrent) {
+            public String toString() {
+                return "Call " + SyncPDSSolver.this.toString();
+            };
+        };
+        fieldPDS = new WeightedPushdownSystem<Field, INode<Node<Stmt, Fact>>, W>(concurrent) {
+            public String toString() {
+                return "Field " + SyncPDSSolver.this.toString();
+            };
+        };
+        reachedStates = newSet(concurrent);
+        callingContextReachable = newSet(concurrent);
+        fieldContextReachable = newSet(concurrent);
+        updateListeners = newSet(concurrent);
+        SetMultimap<Node<Stmt, Fact>, SyncStatePDSUpdateListener<Stmt, Fact>> stateListeners = HashMultimap.create();
+        reachedStateUpdateListeners = concurrent ? Multimaps.synchronizedSetMultimap(stateListeners) : stateListeners;
+        if (concurrent) {
+            generatedCallState = new ConcurrentHashMap<>();
+            generatedFieldState = new ConcurrentHashMap<>();
+        }
+        fieldAutomaton = new WeightedPAutomaton<Field, INode<Node<Stmt, Fact>>, W>(initialFieldNode, concurrent) {
             @Override
             public INode<Node<Stmt, Fact>> createState(INode<Node<Stmt, Fact>> d, Field loc) {
                 if (loc.equals(emptyField()))
@@ -137,7 +186,7 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
             }
         };
 
-        callAutomaton = new WeightedPAutomaton<Stmt, INode<Fact>, W>(initialCallNode) {
+        callAutomaton = new WeightedPAutomaton<Stmt, INode<Fact>, W>(initialCallNode, concurrent) {
             @Override
             public INode<Fact> createState(INode<Fact> d, Stmt loc) {
                 return generateCallState(d, loc);
@@ -174,8 +223,17 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
             public boolean isGeneratedState(INode<Fact> d) {
                 return d instanceof GeneratedState;
             }
+
+            @Override
+            public int getStackBound() {
+                return callStackBound();
+            }
         };
 
+        if (concurrent) {
+            callAutomaton.setListenerExecutor(new ListenerExecutor());
+            fieldAutomaton.setListenerExecutor(new ListenerExecutor());
+        }
         callAutomaton.registerListener(new CallAutomatonListener());
         fieldAutomaton.registerListener(new FieldUpdateListener());
         if (callAutomaton.nested())
@@ -191,6 +249,80 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
 
     }
 
+    private static <T> Set<T> newSet(boolean concurrent) {
+        return concurrent ? Sets.<T> newConcurrentHashSet() : Sets.<T> newHashSet();
+    }
+
+    /**
+     * Forks listener callbacks onto the pool of a concurrent solver. The first exception thrown by a callback is
+     * rethrown on the thread that awaits the solver.
+     */
+    private class ListenerExecutor implements Executor {
+        @Override
+        public void execute(final Runnable command) {
+            pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        command.run();
+                    } catch (RuntimeException e) {
+                        listenerFailure.compareAndSet(null, e);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Waits until all forked listener callbacks of a concurrent solver have been executed. Returns immediately for
+     * single-threaded solvers.
+     */
+    public void awaitQuiescence() {
+        if (pool == null)
+            return;
+        pool.awaitQuiescence(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        RuntimeException failure = listenerFailure.getAndSet(null);
+        if (failure != null)
+            throw failure;
+    }
+
+    /**
+     * Estimates the heap footprint of this solver from the number of rules, transitions, state listeners and
+     * reached nodes. The estimate is cheap to compute and intended for soft memory limits, not for exact
+     * accounting. Nested (summary) automata are not included, as they may be shared among solvers.
+     * 
+     * @return The estimated number of bytes retained by this solver
+     */
+    public long estimateFootprintInBytes() {
+        long rules = callingPDS.getNumberOfRules() + fieldPDS.getNumberOfRules();
+        long transitions = callAutomaton.getNumberOfTransitions() + fieldAutomaton.getNumberOfTransitions();
+        long listeners = callAutomaton.getNumberOfStateListeners() + fieldAutomaton.getNumberOfStateListeners();
+        long nodes = reachedStates.size() + callingContextReachable.size() + fieldContextReachable.size();
+        return rules * RULE_BYTES + transitions * TRANSITION_BYTES + listeners * STATE_LISTENER_BYTES
+                + nodes * REACHED_NODE_BYTES;
+    }
+
+    /**
+     * When the call PDS is context-insensitive, calls and returns are modelled as normal rules. Data-flows then
+     * return to all return sites of a callee.
+     * 
+     * @return true if calls are matched with returns (default)
+     */
+    protected boolean contextSensitive() {
+        return true;
+    }
+
+    /**
+     * The number of call sites kept on the call stack. Older calling contexts are merged into the initial state
+     * of the call automaton, such that returns beyond the bound are treated as unbalanced returns. Only respected
+     * when the solver is {@link #contextSensitive()}.
+     * 
+     * @return the maximal number of call sites on the call stack, -1 for an unbounded call stack (default)
+     */
+    protected int callStackBound() {
+        return -1;
+    }
+
     private class FieldSummaryListener implements NestedAutomatonListener<Field, INode<Node<Stmt, Fact>>, W> {
         @Override
         public void nestedAutomaton(final WeightedPAutomaton<Field, INode<Node<Stmt, Fact>>, W> parent,
@@ -444,6 +576,7 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
         Transition<Stmt, INode<Fact>> callTrans = createInitialCallTransition(curr);
         callAutomaton.addWeightForTransition(callTrans, weight);
         processNode(curr);
+        awaitQuiescence();
     }
 
     public void solve(Node<Stmt, Fact> curr) {
@@ -478,13 +611,16 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
     }
 
     private boolean addReachableState(Node<Stmt, Fact> curr) {
-        if (reachedStates.contains(curr))
+        if (!reachedStates.add(curr))
             return false;
-        reachedStates.add(curr);
         for (SyncPDSUpdateListener<Stmt, Fact> l : Lists.newLinkedList(updateListeners)) {
             l.onReachableNodeAdded(curr);
         }
-        for (SyncStatePDSUpdateListener<Stmt, Fact> l : Lists.newLinkedList(reachedStateUpdateListeners.get(curr))) {
+        List<SyncStatePDSUpdateListener<Stmt, Fact>> stateListeners;
+        synchronized (reachedStateUpdateListeners) {
+            stateListeners = Lists.newLinkedList(reachedStateUpdateListeners.get(curr));
+        }
+        for (SyncStatePDSUpdateListener<Stmt, Fact> l : stateListeners) {
             l.reachable();
         }
         return true;
@@ -507,7 +643,7 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
             Set<Fact> potentialCallCandidate = Sets.newHashSet();
 
             @Override
-            public void fieldWitness(Transition<Field, INode<Node<Stmt, Fact>>> t) {
+            public synchronized void fieldWitness(Transition<Field, INode<Node<Stmt, Fact>>> t) {
                 if (t.getTarget() instanceof GeneratedState)
                     return;
                 if (!t.getLabel().equals(emptyField()))
@@ -521,7 +657,7 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
             }
 
             @Override
-            public void callWitness(Transition<Stmt, INode<Fact>> t) {
+            public synchronized void callWitness(Transition<Stmt, INode<Fact>> t) {
                 if (t.getTarget() instanceof GeneratedState)
                     return;
                 Fact targetFact = t.getTarget().fact();
@@ -537,39 +673,128 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
     }
 
     public void synchedReachable(final Node<Stmt, Fact> sourceNode, final WitnessListener<Stmt, Fact, Field> listener) {
-        registerListener(new SyncPDSUpdateListener<Stmt, Fact>() {
+        registerListener(new SyncStatePDSUpdateListener<Stmt, Fact>(sourceNode) {
             @Override
-            public void onReachableNodeAdded(Node<Stmt, Fact> reachableNode) {
-                if (!reachableNode.equals(sourceNode))
-                    return;
-                fieldAutomaton.registerListener(new WPAUpdateListener<Field, INode<Node<Stmt, Fact>>, W>() {
-                    @Override
-                    public void onWeightAdded(Transition<Field, INode<Node<Stmt, Fact>>> t, W w,
-                            WeightedPAutomaton<Field, INode<Node<Stmt, Fact>>, W> aut) {
-                        if (t.getStart() instanceof GeneratedState)
-                            return;
-                        if (!t.getStart().fact().equals(sourceNode))
-                            return;
-                        listener.fieldWitness(t);
-                    }
-                });
-                callAutomaton.registerListener(new WPAUpdateListener<Stmt, INode<Fact>, W>() {
-                    @Override
-                    public void onWeightAdded(Transition<Stmt, INode<Fact>> t, W w,
-                            WeightedPAutomaton<Stmt, INode<Fact>, W> aut) {
-                        if (t.getStart() instanceof GeneratedState)
-                            return;
-                        if (!t.getStart().fact().equals(sourceNode.fact()))
-                            return;
-                        if (!t.getLabel().equals(sourceNode.stmt()))
-                            return;
-                        listener.callWitness(t);
-                    }
-                });
+            public void reachable() {
+                fieldAutomaton.registerListener(new FieldWitnessListener(sourceNode, listener));
+                callAutomaton.registerListener(new CallWitnessListener(sourceNode, listener));
             }
         });
     }
 
+    private class FieldWitnessListener extends WPAStateListener<Field, INode<Node<Stmt, Fact>>, W> {
+        private final WitnessListener<Stmt, Fact, Field> listener;
+
+        public FieldWitnessListener(Node<Stmt, Fact> sourceNode, WitnessListener<Stmt, Fact, Field> listener) {
+            super(asFieldFact(sourceNode));
+            this.listener = listener;
+        }
+
+        @Override
+        public void onOutTransitionAdded(Transition<Field, INode<Node<Stmt, Fact>>> t, W w,
+                WeightedPAutomaton<Field, INode<Node<Stmt, Fact>>, W> weightedPAutomaton) {
+            listener.fieldWitness(t);
+        }
+
+        @Override
+        public void onInTransitionAdded(Transition<Field, INode<Node<Stmt, Fact>>> t, W w,
+                WeightedPAutomaton<Field, INode<Node<Stmt, Fact>>, W> weightedPAutomaton) {
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = super.hashCode();
+            result = prime * result + getOuterType().hashCode();
+            result = prime * result + ((listener == null) ? 0 : listener.hashCode());
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!super.equals(obj))
+                return false;
+            if (getClass() != obj.getClass())
+                return false;
+            FieldWitnessListener other = (FieldWitnessListener) obj;
+            if (!getOuterType().equals(other.getOuterType()))
+                return false;
+            if (listener == null) {
+                if (other.listener != null)
+                    return false;
+            } else if (!listener.equals(other.listener))
+                return false;
+            return true;
+        }
+
+        private SyncPDSSolver getOuterType() {
+            return SyncPDSSolver.this;
+        }
+    }
+
+    private class CallWitnessListener extends WPAStateListener<Stmt, INode<Fact>, W> {
+        private final Stmt stmt;
+        private final WitnessListener<Stmt, Fact, Field> listener;
+
+        public CallWitnessListener(Node<Stmt, Fact> sourceNode, WitnessListener<Stmt, Fact, Field> listener) {
+            super(wrap(sourceNode.fact()));
+            this.stmt = sourceNode.stmt();
+            this.listener = listener;
+        }
+
+        @Override
+        public void onOutTransitionAdded(Transition<Stmt, INode<Fact>> t, W w,
+                WeightedPAutomaton<Stmt, INode<Fact>, W> weightedPAutomaton) {
+            if (t.getLabel().equals(stmt))
+                listener.callWitness(t);
+        }
+
+        @Override
+        public void onInTransitionAdded(Transition<Stmt, INode<Fact>> t, W w,
+                WeightedPAutomaton<Stmt, INode<Fact>, W> weightedPAutomaton) {
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = super.hashCode();
+            result = prime * result + getOuterType().hashCode();
+            result = prime * result + ((stmt == null) ? 0 : stmt.hashCode());
+            result = prime * result + ((listener == null) ? 0 : listener.hashCode());
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!super.equals(obj))
+                return false;
+            if (getClass() != obj.getClass())
+                return false;
+            CallWitnessListener other = (CallWitnessListener) obj;
+            if (!getOuterType().equals(other.getOuterType()))
+                return false;
+            if (stmt == null) {
+                if (other.stmt != null)
+                    return false;
+            } else if (!stmt.equals(other.stmt))
+                return false;
+            if (listener == null) {
+                if (other.listener != null)
+                    return false;
+            } else if (!listener.equals(other.listener))
+                return false;
+            return true;
+        }
+
+        private SyncPDSSolver getOuterType() {
+            return SyncPDSSolver.this;
+        }
+    }
+
     public void addNormalFieldFlow(final Node<Stmt, Fact> curr, final Node<Stmt, Fact> succ) {
         if (succ instanceof ExclusionNode) {
             ExclusionNode<Stmt, Fact, Field> exNode = (ExclusionNode) succ;
@@ -603,7 +828,7 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
             CallPopNode<Fact, Stmt> callPopNode = (CallPopNode) popNode;
             Stmt returnSite = callPopNode.getReturnSite();
             addNormalFieldFlow(curr, new Node<Stmt, Fact>(returnSite, (Fact) location));
-            if (ContextSensitive) {
+            if (contextSensitive()) {
                 addCallRule(new PopRule<Stmt, INode<Fact>, W>(wrap(curr.fact()), curr.stmt(), wrap((Fact) location),
                         getCallWeights().pop(curr, returnSite)));
             } else {
@@ -628,7 +853,7 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
 
         } else if (system.equals(PDSSystem.CALLS)) {
             addNormalFieldFlow(curr, succ);
-            if (ContextSensitive) {
+            if (contextSensitive()) {
                 addCallRule(new PushRule<Stmt, INode<Fact>, W>(wrap(curr.fact()), curr.stmt(), wrap(succ.fact()),
                         succ.stmt(), (Stmt) location, getCallWeights().push(curr, succ, (Stmt) location)));
             } else {
@@ -690,6 +915,10 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
         }
     }
 
+    public void unregisterListener(SyncPDSUpdateListener<Stmt, Fact> listener) {
+        updateListeners.remove(listener);
+    }
+
     public void registerListener(SyncStatePDSUpdateListener<Stmt, Fact> listener) {
         if (!reachedStateUpdateListeners.put(listener.getNode(), listener)) {
             return;
@@ -707,20 +936,28 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
 
     public INode<Fact> generateCallState(final INode<Fact> d, final Stmt loc) {
         Entry<INode<Fact>, Stmt> e = new AbstractMap.SimpleEntry<>(d, loc);
-        if (!generatedCallState.containsKey(e)) {
-            generatedCallState.put(e, new GeneratedState<Fact, Stmt>(d, loc));
+        INode<Fact> state = generatedCallState.get(e);
+        if (state == null) {
+            state = new GeneratedState<Fact, Stmt>(d, loc);
+            INode<Fact> previous = generatedCallState.putIfAbsent(e, state);
+            if (previous != null)
+                state = previous;
         }
-        return generatedCallState.get(e);
+        return state;
     }
 
     Map<Entry<INode<Node<Stmt, Fact>>, Field>, INode<Node<Stmt, Fact>>> generatedFieldState = Maps.newHashMap();
 
     public INode<Node<Stmt, Fact>> generateFieldState(final INode<Node<Stmt, Fact>> d, final Field loc) {
         Entry<INode<Node<Stmt, Fact>>, Field> e = new AbstractMap.SimpleEntry<>(d, loc);
-        if (!generatedFieldState.containsKey(e)) {
-            generatedFieldState.put(e, new GeneratedState<Node<Stmt, Fact>, Field>(d, loc));
+        INode<Node<Stmt, Fact>> state = generatedFieldState.get(e);
+        if (state == null) {
+            state = new GeneratedState<Node<Stmt, Fact>, Field>(d, loc);
+            INode<Node<Stmt, Fact>> previous = generatedFieldState.putIfAbsent(e, state);
+            if (previous != null)
+                state = previous;
         }
-        return generatedFieldState.get(e);
+        return state;
     }
 
     public void addGeneratedFieldState(GeneratedState<Node<Stmt, Fact>, Field> state) {
@@ -744,6 +981,10 @@ public abstract class SyncPDSSolver<Stmt extends Location, Fact, Field extends L
         return Sets.newHashSet(reachedStates);
     }
 
+    public int getNumberOfReachedStates() {
+        return reachedStates.size();
+    }
+
     public void debugOutput() {
         logger.debug(this.getClass().toString());
         logger.debug("All reachable states");
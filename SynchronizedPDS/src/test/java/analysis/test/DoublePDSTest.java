@@ -11,15 +11,18 @@
  *******************************************************************************/
 package analysis.test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.Test;
 
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
 
 import sync.pds.solver.OneWeightFunctions;
 import sync.pds.solver.SyncPDSSolver;
@@ -75,58 +78,68 @@ public class DoublePDSTest {
 
     private FieldRef epsilonField = new FieldRef("eps_f");
     private Statement epsilonCallSite = new Statement(-1);
+    private boolean contextSensitive = true;
+
+    private SyncPDSSolver<Statement, Variable, FieldRef, NoWeight> solver = createSolver(false, null);
+
+    private SyncPDSSolver<Statement, Variable, FieldRef, NoWeight> createSolver(boolean summaries, ForkJoinPool pool) {
+        return new SyncPDSSolver<Statement, Variable, FieldRef, NoWeight>(new SingleNode<Variable>(new Variable("u")),
+                new SingleNode<Node<Statement, Variable>>(node(1, "u")), summaries,
+                new SummaryNestedWeightedPAutomatons<Statement, INode<Variable>, NoWeight>(), summaries,
+                new SummaryNestedWeightedPAutomatons<FieldRef, INode<Node<Statement, Variable>>, NoWeight>(), pool) {
+
+            @Override
+            public void computeSuccessor(Node<Statement, Variable> node) {
+                Collection<State> states = successorMap.get(node);
+                for (State s : states) {
+                    propagate(node, s);
+                }
+            }
 
-    private SyncPDSSolver<Statement, Variable, FieldRef, NoWeight> solver = new SyncPDSSolver<Statement, Variable, FieldRef, NoWeight>(
-            new SingleNode<Variable>(new Variable("u")), new SingleNode<Node<Statement, Variable>>(node(1, "u")), false,
-            new SummaryNestedWeightedPAutomatons<Statement, INode<Variable>, NoWeight>(), false,
-            new SummaryNestedWeightedPAutomatons<FieldRef, INode<Node<Statement, Variable>>, NoWeight>()) {
-
-        @Override
-        public void computeSuccessor(Node<Statement, Variable> node) {
-            Collection<State> states = successorMap.get(node);
-            for (State s : states) {
-                propagate(node, s);
+            @Override
+            public FieldRef epsilonField() {
+                return epsilonField;
             }
-        }
 
-        @Override
-        public FieldRef epsilonField() {
-            return epsilonField;
-        }
+            @Override
+            public Statement epsilonStmt() {
+                return epsilonCallSite;
+            }
 
-        @Override
-        public Statement epsilonStmt() {
-            return epsilonCallSite;
-        }
+            @Override
+            public FieldRef emptyField() {
+                return new FieldRef("EMPTY_F");
+            }
 
-        @Override
-        public FieldRef emptyField() {
-            return new FieldRef("EMPTY_F");
-        }
+            @Override
+            public FieldRef fieldWildCard() {
+                return new FieldWildCard();
+            }
 
-        @Override
-        public FieldRef fieldWildCard() {
-            return new FieldWildCard();
-        }
+            @Override
+            public FieldRef exclusionFieldWildCard(FieldRef exclusion) {
+                return new ExclusionWildcardField(exclusion);
+            }
 
-        @Override
-        public FieldRef exclusionFieldWildCard(FieldRef exclusion) {
-            return new ExclusionWildcardField(exclusion);
-        }
+            @Override
+            protected WeightFunctions<Statement, Variable, FieldRef, NoWeight> getFieldWeights() {
+                return new OneWeightFunctions<Statement, Variable, FieldRef, NoWeight>(NoWeight.NO_WEIGHT_ZERO,
+                        NoWeight.NO_WEIGHT_ONE);
+            }
 
-        @Override
-        protected WeightFunctions<Statement, Variable, FieldRef, NoWeight> getFieldWeights() {
-            return new OneWeightFunctions<Statement, Variable, FieldRef, NoWeight>(NoWeight.NO_WEIGHT_ZERO,
-                    NoWeight.NO_WEIGHT_ONE);
-        }
+            @Override
+            protected WeightFunctions<Statement, Variable, Statement, NoWeight> getCallWeights() {
+                return new OneWeightFunctions<Statement, Variable, Statement, NoWeight>(NoWeight.NO_WEIGHT_ZERO,
+                        NoWeight.NO_WEIGHT_ONE);
+            }
 
-        @Override
-        protected WeightFunctions<Statement, Variable, Statement, NoWeight> getCallWeights() {
-            return new OneWeightFunctions<Statement, Variable, Statement, NoWeight>(NoWeight.NO_WEIGHT_ZERO,
-                    NoWeight.NO_WEIGHT_ONE);
-        }
+            @Override
+            protected boolean contextSensitive() {
+                return contextSensitive;
+            }
 
-    };
+        };
+    }
 
     @Test
     public void test1() {
@@ -596,6 +609,64 @@ public class DoublePDSTest {
         assertTrue(solver.getReachedStates().contains(node(3, "w")));
     }
 
+    @Test
+    public void contextInsensitiveReturnsToAllCallers() {
+        contextSensitive = false;
+        addCallFlow(node(1, "u"), node(3, "p"), returnSite(5));
+        addNormal(node(3, "p"), node(4, "q"));
+        addReturnFlow(node(4, "q"), var("w"), returnSite(5));
+        addReturnFlow(node(4, "q"), var("t"), returnSite(10));
+        solver.solve(node(1, "u"));
+        System.out.println(solver.getReachedStates());
+        assertTrue(solver.getReachedStates().contains(node(5, "w")));
+        assertTrue(solver.getReachedStates().contains(node(10, "t")));
+    }
+
+    @Test
+    public void contextSensitiveReturnsToCallSite() {
+        addCallFlow(node(1, "u"), node(3, "p"), returnSite(5));
+        addNormal(node(3, "p"), node(4, "q"));
+        addReturnFlow(node(4, "q"), var("w"), returnSite(5));
+        addReturnFlow(node(4, "q"), var("t"), returnSite(10));
+        solver.solve(node(1, "u"));
+        System.out.println(solver.getReachedStates());
+        assertTrue(solver.getReachedStates().contains(node(5, "w")));
+        assertFalse(solver.getReachedStates().contains(node(10, "t")));
+    }
+
+    @Test
+    public void concurrentSolverReachesSameStates() {
+        addFieldPush(node(1, "u"), f("h"), node(2, "v"));
+        addCallFlow(node(2, "v"), node(3, "p"), returnSite(5));
+        addFieldPush(node(3, "p"), f("g"), node(4, "q"));
+        addReturnFlow(node(4, "q"), var("w"), returnSite(5));
+        addFieldPop(node(5, "w"), f("g"), node(6, "x"));
+        addFieldPop(node(6, "x"), f("h"), node(7, "y"));
+        addCallFlow(node(7, "y"), node(3, "p"), returnSite(8));
+        addReturnFlow(node(4, "q"), var("z"), returnSite(8));
+        addNormal(node(1, "u"), node(9, "t"));
+        addFieldPush(node(9, "t"), f("g"), node(4, "q"));
+        solver.solve(node(1, "u"));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        SyncPDSSolver<Statement, Variable, FieldRef, NoWeight> concurrentSolver = createSolver(false, pool);
+        concurrentSolver.solve(node(1, "u"));
+        pool.shutdown();
+        System.out.println(concurrentSolver.getReachedStates());
+        assertTrue(solver.getReachedStates().contains(node(7, "y")));
+        assertEquals(Sets.newHashSet(solver.getReachedStates()), Sets.newHashSet(concurrentSolver.getReachedStates()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void concurrentSolverRejectsSummaries() {
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            createSolver(true, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     private Variable var(String v) {
         return new Variable(v);
     }
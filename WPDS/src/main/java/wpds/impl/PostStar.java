@@ -290,7 +290,9 @@ public abstract class PostStar<N extends Location, D extends State, W extends We
                 final N gammaPrime = rule.getL2();
                 final D irState = fa.createState(p, gammaPrime);
                 final N transitionLabel = (rule.getCallSite() instanceof Wildcard ? t.getLabel() : rule.getCallSite());
-                final Transition<N, D> transition = new Transition<N, D>(irState, transitionLabel, t.getTarget());
+                // Beyond the stack bound, the older stack is merged into the (unbalanced) initial state
+                final D stackBelow = fa.exceedsStackBound(t.getTarget()) ? fa.getInitialState() : t.getTarget();
+                final Transition<N, D> transition = new Transition<N, D>(irState, transitionLabel, stackBelow);
 
                 update(transition, (W) weight.extendWith(rule.getWeight()));
 
@@ -17,6 +17,14 @@ import wpds.interfaces.State;
 
 public class PushdownSystem<N extends Location, D extends State> extends WeightedPushdownSystem<N, D, NoWeight> {
 
+    public PushdownSystem() {
+        super();
+    }
+
+    public PushdownSystem(boolean concurrent) {
+        super(concurrent);
+    }
+
     @Override
     public boolean addRule(Rule<N, D, NoWeight> rule) {
         if (!(rule instanceof UNormalRule) && !(rule instanceof UPopRule) && !(rule instanceof UPushRule))
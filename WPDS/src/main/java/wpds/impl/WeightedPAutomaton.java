@@ -13,6 +13,7 @@ package wpds.impl;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -24,13 +25,14 @@ import org.apache.logging.log4j.LogManager;
 
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 
 import pathexpression.Edge;
@@ -49,45 +51,125 @@ import wpds.interfaces.WPAUpdateListener;
 
 public abstract class WeightedPAutomaton<N extends Location, D extends State, W extends Weight>
         implements LabeledGraph<D, N> {
-    private Map<Transition<N, D>, W> transitionToWeights = new HashMap<>();
+    private final boolean concurrent;
+    private final Map<Transition<N, D>, W> transitionToWeights;
     // Set Q is implicit
     // Weighted Pushdown Systems and their Application to Interprocedural
     // Dataflow Analysis
-    protected Set<Transition<N, D>> transitions = Sets.newHashSet();
+    protected Set<Transition<N, D>> transitions;
     // set F in paper [Reps2003]
-    protected Set<D> finalState = Sets.newHashSet();
+    protected Set<D> finalState;
     // set P in paper [Reps2003]
     protected final D initialState;
-    protected Set<D> states = Sets.newHashSet();
-    private final Multimap<D, Transition<N, D>> transitionsOutOf = HashMultimap.create();
-    private final Multimap<D, Transition<N, D>> transitionsInto = HashMultimap.create();
-    private Set<WPAUpdateListener<N, D, W>> listeners = Sets.newHashSet();
-    private Multimap<D, WPAStateListener<N, D, W>> stateListeners = HashMultimap.create();
-    private Map<D, ForwardDFSVisitor<N, D, W>> stateToDFS = Maps.newHashMap();
-    private Map<D, ForwardDFSVisitor<N, D, W>> stateToEpsilonDFS = Maps.newHashMap();
-    private Set<WeightedPAutomaton<N, D, W>> nestedAutomatons = Sets.newHashSet();
-    private Set<NestedAutomatonListener<N, D, W>> nestedAutomataListeners = Sets.newHashSet();
-    private Map<D, ReachabilityListener<N, D>> stateToEpsilonReachabilityListener = Maps.newHashMap();
-    private Map<D, ReachabilityListener<N, D>> stateToReachabilityListener = Maps.newHashMap();
-    private Set<ReturnSiteWithWeights> connectedPushes = Sets.newHashSet();
-    private Set<ConnectPushListener<N, D, W>> conntectedPushListeners = Sets.newHashSet();
-    private Set<UnbalancedPopListener<N, D, W>> unbalancedPopListeners = Sets.newHashSet();
-    private Map<UnbalancedPopEntry, W> unbalancedPops = Maps.newHashMap();
-    private Map<Transition<N, D>, W> transitionsToFinalWeights = Maps.newHashMap();
+    protected Set<D> states;
+    private final Map<D, Set<Transition<N, D>>> transitionsOutOf;
+    private final Map<D, Set<Transition<N, D>>> transitionsInto;
+    private final Set<WPAUpdateListener<N, D, W>> listeners;
+    private final Map<D, Set<WPAStateListener<N, D, W>>> stateListeners;
+    private final Map<D, ForwardDFSVisitor<N, D, W>> stateToDFS;
+    private final Map<D, ForwardDFSVisitor<N, D, W>> stateToEpsilonDFS;
+    private final Set<WeightedPAutomaton<N, D, W>> nestedAutomatons;
+    private final Set<NestedAutomatonListener<N, D, W>> nestedAutomataListeners;
+    private final Map<D, ReachabilityListener<N, D>> stateToEpsilonReachabilityListener;
+    private final Map<D, ReachabilityListener<N, D>> stateToReachabilityListener;
+    private final Set<ReturnSiteWithWeights> connectedPushes;
+    private final Set<ConnectPushListener<N, D, W>> conntectedPushListeners;
+    private final Set<UnbalancedPopListener<N, D, W>> unbalancedPopListeners;
+    private final Map<UnbalancedPopEntry, W> unbalancedPops;
+    private final Map<Transition<N, D>, W> transitionsToFinalWeights;
     private ForwardDFSVisitor<N, D, W> dfsVisitor;
     private ForwardDFSVisitor<N, D, W> dfsEpsVisitor;
     public int failedAdditions;
     public int failedDirectAdditions;
     private WeightedPAutomaton<N, D, W> initialAutomaton;
     private PathExpressionComputer<D, N> pathExpressionComputer;
-    protected Set<D> unbalancedStates = Sets.newHashSet();
+    protected Set<D> unbalancedStates;
     private int lastStates = 0;
+    private final AtomicInteger numberOfStateListeners = new AtomicInteger();
+    private final Map<D, Integer> stackHeights;
+    private Executor listenerExecutor;
 
     public WeightedPAutomaton(D initialState) {
+        this(initialState, false);
+    }
+
+    /**
+     * @param concurrent
+     *            If set, transitions and listeners may be added by several threads at the same time. All internal
+     *            sets and maps are then concurrent data-structures and insertion is lock-free. Weights are combined
+     *            atomically, which requires the combine operation of the weight domain to be idempotent.
+     */
+    public WeightedPAutomaton(D initialState, boolean concurrent) {
         this.initialState = initialState;
+        this.concurrent = concurrent;
+        this.transitionToWeights = concurrent ? new ConcurrentHashMap<Transition<N, D>, W>()
+                : new HashMap<Transition<N, D>, W>();
+        this.transitions = newSet();
+        this.finalState = newSet();
+        this.states = newSet();
+        this.transitionsOutOf = newMap();
+        this.transitionsInto = newMap();
+        this.listeners = newSet();
+        this.stateListeners = newMap();
+        this.stackHeights = newMap();
+        this.stateToDFS = newMap();
+        this.stateToEpsilonDFS = newMap();
+        this.stateToEpsilonReachabilityListener = newMap();
+        this.stateToReachabilityListener = newMap();
+        this.transitionsToFinalWeights = newMap();
+        this.nestedAutomatons = newSet();
+        this.nestedAutomataListeners = newSet();
+        this.connectedPushes = newSet();
+        this.conntectedPushListeners = newSet();
+        this.unbalancedPopListeners = newSet();
+        this.unbalancedPops = newMap();
+        this.unbalancedStates = newSet();
         this.unbalancedStates.add(initialState);
     }
 
+    private <T> Set<T> newSet() {
+        return concurrent ? Sets.<T> newConcurrentHashSet() : Sets.<T> newHashSet();
+    }
+
+    private <K, V> Map<K, V> newMap() {
+        return concurrent ? new ConcurrentHashMap<K, V>() : Maps.<K, V> newHashMap();
+    }
+
+    private <V> boolean putIndexed(Map<D, Set<V>> index, D key, V value) {
+        Set<V> values = index.get(key);
+        if (values == null) {
+            values = newSet();
+            Set<V> previous = index.putIfAbsent(key, values);
+            if (previous != null)
+                values = previous;
+        }
+        return values.add(value);
+    }
+
+    private <V> Set<V> getIndexed(Map<D, Set<V>> index, D key) {
+        Set<V> values = index.get(key);
+        return values == null ? Collections.<V> emptySet() : values;
+    }
+
+    public boolean isConcurrent() {
+        return concurrent;
+    }
+
+    /**
+     * Listener callbacks triggered by new transitions are submitted to the given executor, e.g., a
+     * {@link java.util.concurrent.ForkJoinPool}, instead of being executed on the thread that added the
+     * transition. Listeners may then observe the weights of a transition out of order, which is sound as long
+     * as combining weights is idempotent. Only supported for concurrent automata.
+     */
+    public void setListenerExecutor(Executor listenerExecutor) {
+        if (!concurrent)
+            throw new IllegalStateException("Listener callbacks can only be forked for concurrent automata");
+        this.listenerExecutor = listenerExecutor;
+        for (WeightedPAutomaton<N, D, W> nested : Lists.newArrayList(nestedAutomatons)) {
+            nested.setListenerExecutor(listenerExecutor);
+        }
+    }
+
     public abstract D createState(D d, N loc);
 
     public abstract boolean isGeneratedState(D d);
@@ -145,7 +227,7 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
         String s = "digraph {\n";
         TreeSet<String> trans = new TreeSet<String>();
         for (D source : states) {
-            Collection<Transition<N, D>> collection = transitionsOutOf.get(source);
+            Collection<Transition<N, D>> collection = getIndexed(transitionsOutOf, source);
 
             for (D target : states) {
                 List<String> labels = Lists.newLinkedList();
@@ -258,24 +340,16 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
             failedAdditions++;
             return false;
         }
-        transitionsOutOf.get(trans.getStart()).add(trans);
-        transitionsInto.get(trans.getTarget()).add(trans);
+        putIndexed(transitionsOutOf, trans.getStart(), trans);
+        putIndexed(transitionsInto, trans.getTarget(), trans);
         states.add(trans.getTarget());
         states.add(trans.getStart());
         boolean added = transitions.add(trans);
-        W oldWeight = transitionToWeights.get(trans);
-        W newWeight = (W) (oldWeight == null ? weight : oldWeight.combineWith(weight));
-        if (!newWeight.equals(oldWeight)) {
-            transitionToWeights.put(trans, newWeight);
-            for (WPAUpdateListener<N, D, W> l : Lists.newArrayList(listeners)) {
-                l.onWeightAdded(trans, newWeight, this);
-            }
-            for (WPAStateListener<N, D, W> l : Lists.newArrayList(stateListeners.get(trans.getStart()))) {
-                l.onOutTransitionAdded(trans, newWeight, this);
-            }
-            for (WPAStateListener<N, D, W> l : Lists.newArrayList(stateListeners.get(trans.getTarget()))) {
-                l.onInTransitionAdded(trans, newWeight, this);
-            }
+        if (added)
+            updateStackHeights(trans);
+        W newWeight = combineWeight(transitionToWeights, trans, weight);
+        if (newWeight != null) {
+            notifyListeners(trans, newWeight);
             return true;
         }
         if (!added)
@@ -283,6 +357,60 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
         return added;
     }
 
+    /**
+     * Combines the weight stored for the key with the given weight. The update is atomic for concurrent
+     * automata.
+     * 
+     * @return The new weight of the key, or null if the weight did not change.
+     */
+    private <K> W combineWeight(Map<K, W> weights, K key, W weight) {
+        while (true) {
+            W oldWeight = weights.get(key);
+            W newWeight = (W) (oldWeight == null ? weight : oldWeight.combineWith(weight));
+            if (newWeight.equals(oldWeight))
+                return null;
+            if (oldWeight == null ? weights.putIfAbsent(key, newWeight) == null
+                    : weights.replace(key, oldWeight, newWeight))
+                return newWeight;
+        }
+    }
+
+    private void notifyListeners(final Transition<N, D> trans, final W weight) {
+        if (listenerExecutor == null) {
+            dispatch(trans, weight);
+            return;
+        }
+        listenerExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                dispatch(trans, weight);
+            }
+        });
+    }
+
+    private void dispatch(Transition<N, D> trans, W weight) {
+        for (WPAUpdateListener<N, D, W> l : Lists.newArrayList(listeners)) {
+            l.onWeightAdded(trans, weight, this);
+        }
+        for (WPAStateListener<N, D, W> l : Lists.newArrayList(getIndexed(stateListeners, trans.getStart()))) {
+            l.onOutTransitionAdded(trans, weight, this);
+        }
+        for (WPAStateListener<N, D, W> l : Lists.newArrayList(getIndexed(stateListeners, trans.getTarget()))) {
+            l.onInTransitionAdded(trans, weight, this);
+        }
+    }
+
+    public int getNumberOfTransitions() {
+        return transitions.size();
+    }
+
+    /**
+     * @return The number of state listeners registered at this automaton (excluding nested automata).
+     */
+    public int getNumberOfStateListeners() {
+        return numberOfStateListeners.get();
+    }
+
     public W getWeightFor(Transition<N, D> trans) {
         return transitionToWeights.get(trans);
     }
@@ -298,6 +426,17 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
         }
     }
 
+    /**
+     * Removes a listener registered with {@link #registerListener(WPAUpdateListener)}, from the nested automata as
+     * well.
+     */
+    public void unregisterListener(WPAUpdateListener<N, D, W> listener) {
+        listeners.remove(listener);
+        for (WeightedPAutomaton<N, D, W> nested : Lists.newArrayList(nestedAutomatons)) {
+            nested.unregisterListener(listener);
+        }
+    }
+
     private static int count = 0;
 
     private void increaseListenerCount(WPAStateListener<N, D, W> l) {
@@ -311,16 +450,12 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
     }
 
     public void registerListener(WPAStateListener<N, D, W> l) {
-        if (!stateListeners.put(l.getState(), l)) {
+        if (!putIndexed(stateListeners, l.getState(), l)) {
             return;
         }
+        numberOfStateListeners.incrementAndGet();
         increaseListenerCount(l);
-        for (Transition<N, D> t : Lists.newArrayList(transitionsOutOf.get(l.getState()))) {
-            l.onOutTransitionAdded(t, transitionToWeights.get(t), this);
-        }
-        for (Transition<N, D> t : Lists.newArrayList(transitionsInto.get(l.getState()))) {
-            l.onInTransitionAdded(t, transitionToWeights.get(t), this);
-        }
+        replay(l);
 
         for (WeightedPAutomaton<N, D, W> nested : Lists.newArrayList(nestedAutomatons)) {
             nested.registerListener(l);
@@ -328,17 +463,52 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
 
     }
 
+    /**
+     * Removes a listener registered with {@link #registerListener(WPAStateListener)}, from the nested automata as
+     * well.
+     */
+    public void unregisterListener(WPAStateListener<N, D, W> l) {
+        if (getIndexed(stateListeners, l.getState()).remove(l))
+            numberOfStateListeners.decrementAndGet();
+        for (WeightedPAutomaton<N, D, W> nested : Lists.newArrayList(nestedAutomatons)) {
+            nested.unregisterListener(l);
+        }
+    }
+
+    private void replay(WPAStateListener<N, D, W> l) {
+        // A transition of a concurrent automaton may be indexed before its weight is set. The thread adding the
+        // weight notifies the listener then.
+        for (Transition<N, D> t : Lists.newArrayList(getIndexed(transitionsOutOf, l.getState()))) {
+            W w = transitionToWeights.get(t);
+            if (w != null)
+                l.onOutTransitionAdded(t, w, this);
+        }
+        for (Transition<N, D> t : Lists.newArrayList(getIndexed(transitionsInto, l.getState()))) {
+            W w = transitionToWeights.get(t);
+            if (w != null)
+                l.onInTransitionAdded(t, w, this);
+        }
+    }
+
     public void addFinalState(D state) {
         this.finalState.add(state);
     }
 
     public void registerDFSListener(D state, ReachabilityListener<N, D> l) {
         stateToReachabilityListener.put(state, l);
-        if (dfsVisitor == null) {
-            dfsVisitor = new ForwardDFSVisitor<N, D, W>(this);
-            this.registerListener(dfsVisitor);
+        ForwardDFSVisitor<N, D, W> visitor;
+        boolean created = false;
+        // Only the lazy creation is guarded, listeners are notified without holding the monitor
+        synchronized (this) {
+            if (dfsVisitor == null) {
+                dfsVisitor = new ForwardDFSVisitor<N, D, W>(this);
+                created = true;
+            }
+            visitor = dfsVisitor;
         }
-        dfsVisitor.registerListener(state, l);
+        if (created)
+            this.registerListener(visitor);
+        visitor.registerListener(state, l);
     }
 
     protected Map<D, ForwardDFSVisitor<N, D, W>> getStateToDFS() {
@@ -347,14 +517,21 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
 
     public void registerDFSEpsilonListener(D state, ReachabilityListener<N, D> l) {
         stateToEpsilonReachabilityListener.put(state, l);
-        if (dfsEpsVisitor == null) {
-            dfsEpsVisitor = new ForwardDFSEpsilonVisitor<N, D, W>(this);
-            this.registerListener(dfsEpsVisitor);
+        ForwardDFSVisitor<N, D, W> visitor;
+        boolean created = false;
+        synchronized (this) {
+            if (dfsEpsVisitor == null) {
+                dfsEpsVisitor = new ForwardDFSEpsilonVisitor<N, D, W>(this);
+                created = true;
+            }
+            visitor = dfsEpsVisitor;
         }
+        if (created)
+            this.registerListener(visitor);
         for (WeightedPAutomaton<N, D, W> nested : Lists.newLinkedList(nestedAutomatons)) {
             nested.registerDFSEpsilonListener(state, l);
         }
-        dfsEpsVisitor.registerListener(state, l);
+        visitor.registerListener(state, l);
     }
 
     protected Map<D, ForwardDFSVisitor<N, D, W>> getStateToEpsilonDFS() {
@@ -366,7 +543,7 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
     public abstract W getOne();
 
     public WeightedPAutomaton<N, D, W> createNestedAutomaton(D initialState) {
-        WeightedPAutomaton<N, D, W> nested = new WeightedPAutomaton<N, D, W>(initialState) {
+        WeightedPAutomaton<N, D, W> nested = new WeightedPAutomaton<N, D, W>(initialState, concurrent) {
 
             @Override
             public D createState(D d, N loc) {
@@ -447,10 +624,8 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
 
     public void unbalancedPop(D targetState, Transition<N, D> trans, W weight) {
         UnbalancedPopEntry t = new UnbalancedPopEntry(targetState, trans);
-        W oldVal = unbalancedPops.get(t);
-        W newVal = (oldVal == null ? weight : (W) oldVal.combineWith(weight));
-        if (!newVal.equals(oldVal)) {
-            unbalancedPops.put(t, newVal);
+        W newVal = combineWeight(unbalancedPops, t, weight);
+        if (newVal != null) {
             for (UnbalancedPopListener<N, D, W> l : Lists.newArrayList(unbalancedPopListeners)) {
                 l.unbalancedPop(targetState, trans, newVal);
             }
@@ -593,10 +768,9 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
 
         @Override
         public void onInTransitionAdded(Transition<N, D> t, W w, WeightedPAutomaton<N, D, W> aut) {
-            W newWeight = (W) weight.extendWith(w);
-            W weightAtTarget = transitionsToFinalWeights.get(t);
-            W newVal = (weightAtTarget == null ? newWeight : (W) weightAtTarget.combineWith(newWeight));
-            transitionsToFinalWeights.put(t, newVal);
+            W newVal = combineWeight(transitionsToFinalWeights, t, (W) weight.extendWith(w));
+            if (newVal == null)
+                return;
             if (isGeneratedState(t.getStart())) {
                 registerListener(new ValueComputationListener(t.getStart(), newVal));
             }
@@ -643,8 +817,12 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
     public void addNestedAutomaton(WeightedPAutomaton<N, D, W> nested) {
         if (!nestedAutomatons.add(nested))
             return;
-        for (WPAStateListener<N, D, W> e : Lists.newArrayList(stateListeners.values())) {
-            nested.registerListener(e);
+        if (listenerExecutor != null)
+            nested.setListenerExecutor(listenerExecutor);
+        for (Set<WPAStateListener<N, D, W>> stateListenersOfState : Lists.newArrayList(stateListeners.values())) {
+            for (WPAStateListener<N, D, W> e : Lists.newArrayList(stateListenersOfState)) {
+                nested.registerListener(e);
+            }
         }
         for (WPAUpdateListener<N, D, W> e : Lists.newArrayList(listeners)) {
             nested.registerListener(e);
@@ -708,7 +886,7 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
         while (!worklist.isEmpty()) {
             D pop = worklist.pop();
             visited.add(pop);
-            Collection<Transition<N, D>> inTrans = transitionsInto.get(pop);
+            Collection<Transition<N, D>> inTrans = getIndexed(transitionsInto, pop);
             for (Transition<N, D> t : inTrans) {
                 if (t.getLabel().equals(this.epsilon()))
                     continue;
@@ -731,7 +909,7 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
         while (!worklist.isEmpty()) {
             D pop = worklist.pop();
             Set<N> atCurr = getOrCreate(pathReachingD, pop);
-            Collection<Transition<N, D>> inTrans = transitionsInto.get(pop);
+            Collection<Transition<N, D>> inTrans = getIndexed(transitionsInto, pop);
             for (Transition<N, D> t : inTrans) {
                 if (t.getLabel().equals(this.epsilon()))
                     continue;
@@ -776,10 +954,70 @@ public abstract class WeightedPAutomaton<N extends Location, D extends State, W
         unbalancedStates.add(state);
     }
 
+    /**
+     * The maximal height of the stack below the top-most symbol after a push, i.e., the number of call sites a
+     * push keeps. When a push would exceed the bound, the older part of the stack is cut off and replaced by
+     * the initial state, which is unbalanced. Pops beyond the bound are then reported as unbalanced pops instead
+     * of being matched against their call site. A negative value disables the bound.
+     *
+     * @return the stack bound, -1 if the stack is unbounded
+     */
+    public int getStackBound() {
+        return -1;
+    }
+
+    /**
+     * Checks whether any path starting in the given state encodes a stack whose height reaches the stack bound
+     * of this automaton. Epsilon transitions do not contribute to the height of the stack.
+     */
+    public boolean exceedsStackBound(D state) {
+        int bound = getStackBound();
+        return bound >= 0 && getStackHeight(state) >= bound;
+    }
+
+    /**
+     * The height of the highest stack encoded by the paths starting in the state. Heights are only tracked when
+     * the automaton has a stack bound and are capped at the bound.
+     */
+    public int getStackHeight(D state) {
+        Integer height = stackHeights.get(state);
+        return height == null ? 0 : height;
+    }
+
+    /**
+     * Raises the heights of the start state of the added transition and, transitively, of the states it is
+     * reachable from. Each state is raised at most bound many times.
+     */
+    private void updateStackHeights(Transition<N, D> trans) {
+        int bound = getStackBound();
+        if (bound < 0)
+            return;
+        LinkedList<Transition<N, D>> worklist = Lists.newLinkedList();
+        worklist.add(trans);
+        while (!worklist.isEmpty()) {
+            Transition<N, D> t = worklist.poll();
+            int height = getStackHeight(t.getTarget()) + (t.getLabel().equals(epsilon()) ? 0 : 1);
+            if (raiseStackHeight(t.getStart(), Math.min(height, bound)))
+                worklist.addAll(getIndexed(transitionsInto, t.getStart()));
+        }
+    }
+
+    private boolean raiseStackHeight(D state, int height) {
+        while (true) {
+            Integer oldHeight = stackHeights.get(state);
+            if ((oldHeight == null ? 0 : oldHeight) >= height)
+                return false;
+            if (oldHeight == null ? stackHeights.putIfAbsent(state, height) == null
+                    : stackHeights.replace(state, oldHeight, height))
+                return true;
+        }
+    }
+
     public void clearListener() {
         this.conntectedPushListeners.clear();
         this.nestedAutomataListeners.clear();
         this.stateListeners.clear();
+        this.numberOfStateListeners.set(0);
         this.listeners.clear();
         this.stateToEpsilonReachabilityListener.clear();
         this.stateToReachabilityListener.clear();
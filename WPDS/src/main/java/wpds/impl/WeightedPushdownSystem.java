@@ -28,10 +28,30 @@ import wpds.wildcard.Wildcard;
 
 public class WeightedPushdownSystem<N extends Location, D extends State, W extends Weight>
         implements IPushdownSystem<N, D, W> {
-    protected final Set<PushRule<N, D, W>> pushRules = Sets.newHashSet();
-    protected final Set<PopRule<N, D, W>> popRules = Sets.newHashSet();
-    protected final Set<NormalRule<N, D, W>> normalRules = Sets.newHashSet();
-    protected final Set<WPDSUpdateListener<N, D, W>> listeners = Sets.newHashSet();
+    protected final Set<PushRule<N, D, W>> pushRules;
+    protected final Set<PopRule<N, D, W>> popRules;
+    protected final Set<NormalRule<N, D, W>> normalRules;
+    protected final Set<WPDSUpdateListener<N, D, W>> listeners;
+
+    public WeightedPushdownSystem() {
+        this(false);
+    }
+
+    /**
+     * @param concurrent
+     *            If set, rules and listeners can be added by several threads at the same time. Each rule is
+     *            reported exactly once to each listener registered before the rule is added.
+     */
+    public WeightedPushdownSystem(boolean concurrent) {
+        pushRules = newSet(concurrent);
+        popRules = newSet(concurrent);
+        normalRules = newSet(concurrent);
+        listeners = newSet(concurrent);
+    }
+
+    private static <T> Set<T> newSet(boolean concurrent) {
+        return concurrent ? Sets.<T> newConcurrentHashSet() : Sets.<T> newHashSet();
+    }
 
     @Override
     public boolean addRule(Rule<N, D, W> rule) {
@@ -78,6 +98,10 @@ public class WeightedPushdownSystem<N extends Location, D extends State, W exten
         return pushRules;
     }
 
+    public int getNumberOfRules() {
+        return normalRules.size() + popRules.size() + pushRules.size();
+    }
+
     @Override
     public Set<Rule<N, D, W>> getAllRules() {
         Set<Rule<N, D, W>> rules = Sets.newHashSet();
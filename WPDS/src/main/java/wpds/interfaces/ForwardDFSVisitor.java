@@ -12,6 +12,7 @@
 package wpds.interfaces;
 
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 
 import com.google.common.collect.HashBasedTable;
@@ -33,17 +34,39 @@ public class ForwardDFSVisitor<N extends Location, D extends State, W extends We
     private Multimap<D, D> reaches = HashMultimap.create();
     private Multimap<D, D> inverseReaches = HashMultimap.create();
     private Table<D, D, Integer> refCount = HashBasedTable.create();
+    // Listeners to register at the automaton once the monitor of this visitor is released
+    private final List<TransitiveClosure> pendingClosures = Lists.newArrayList();
 
     public ForwardDFSVisitor(WeightedPAutomaton<N, D, W> aut) {
         this.aut = aut;
     }
 
     public void registerListener(D state, final ReachabilityListener<N, D> l) {
-        if (listeners.put(state, l)) {
-            for (D d : Lists.newArrayList(inverseReaches.get(state))) {
-                aut.registerListener(new TransitiveClosure(d, state, l));
+        synchronized (this) {
+            if (listeners.put(state, l)) {
+                for (D d : inverseReaches.get(state)) {
+                    pendingClosures.add(new TransitiveClosure(d, state, l));
+                }
             }
         }
+        registerPendingClosures();
+    }
+
+    /**
+     * Registers the closures found while holding the monitor. Registering replays the transitions of the automaton
+     * to the reachability listeners, which must not run while holding the monitor.
+     */
+    private void registerPendingClosures() {
+        List<TransitiveClosure> closures;
+        synchronized (this) {
+            if (pendingClosures.isEmpty())
+                return;
+            closures = Lists.newArrayList(pendingClosures);
+            pendingClosures.clear();
+        }
+        for (TransitiveClosure closure : closures) {
+            aut.registerListener(closure);
+        }
     }
 
     private class TransitiveClosure extends WPAStateListener<N, D, W> {
@@ -112,14 +135,15 @@ public class ForwardDFSVisitor<N extends Location, D extends State, W extends We
 
     @Override
     public void onWeightAdded(Transition<N, D> t, W w, WeightedPAutomaton<N, D, W> aut) {
-
-        D a = t.getStart();
-        D b = t.getTarget();
-        inverseReaches(a, a);
-        // inverseReaches(b,b);
-        if (!continueWith(t))
-            return;
-        insertEdge(a, b);
+        synchronized (this) {
+            D a = t.getStart();
+            D b = t.getTarget();
+            inverseReaches(a, a);
+            // inverseReaches(b,b);
+            if (continueWith(t))
+                insertEdge(a, b);
+        }
+        registerPendingClosures();
     }
 
     private void insertEdge(D a, D b) {
@@ -159,8 +183,8 @@ public class ForwardDFSVisitor<N extends Location, D extends State, W extends We
 
     private void inverseReaches(D from, D to) {
         if (inverseReaches.put(from, to)) {
-            for (ReachabilityListener<N, D> l : Lists.newArrayList(listeners.get(from))) {
-                aut.registerListener(new TransitiveClosure(to, from, l));
+            for (ReachabilityListener<N, D> l : listeners.get(from)) {
+                pendingClosures.add(new TransitiveClosure(to, from, l));
             }
         }
 
@@ -11,6 +11,8 @@
  *******************************************************************************/
 package tests;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static tests.TestHelper.ACC;
 import static tests.TestHelper.a;
@@ -22,10 +24,14 @@ import static tests.TestHelper.s;
 import static tests.TestHelper.t;
 
 import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import com.google.common.collect.Sets;
+
 import tests.TestHelper.Abstraction;
 import tests.TestHelper.StackSymbol;
 import wpds.impl.NestedWeightedPAutomatons;
@@ -134,17 +140,27 @@ public class PDSPoststarTests {
         assertTrue(transitions.isEmpty());
     }
 
+    @Test
+    public void recPushTestStackBound() {
+        pds.addRule(push(1, "a", 1, "d", "e"));
+        pds.addRule(push(1, "d", 1, "d", "h"));
+        pds.addRule(pop(1, "d", 1));
+        pds.addRule(normal(1, "e", 1, "k"));
+        PAutomaton<StackSymbol, Abstraction> fa = accepts(1, "a", false, 1);
+        pds.poststar(fa);
+        System.out.println(fa.getTransitions());
+        assertTrue(fa.getTransitions().contains(t(a(1, "d"), "e", ACC)));
+        assertTrue(fa.getTransitions().contains(t(1, "k", ACC)));
+        // The recursive call is cut off at the initial state instead of being stacked on the first call
+        assertTrue(fa.getTransitions().contains(t(a(1, "d"), s("h"), a(1))));
+        assertFalse(fa.getTransitions().contains(t(a(1, "d"), s("h"), a(1, "d"))));
+        assertEquals(1, fa.getStackHeight(a(1, "d")));
+    }
+
     // Example taken from http://research.cs.wisc.edu/wpis/papers/fsttcs07.invited.pdf
     @Test
     public void paperEx() {
-        pds.addRule(normal(1, "n1", 1, "n2"));
-        pds.addRule(normal(1, "n1", 1, "n3"));
-        pds.addRule(push(1, "n2", 1, "n7", "n4"));
-        pds.addRule(push(1, "n3", 1, "n7", "n5"));
-        pds.addRule(normal(1, "n4", 1, "n6"));
-        pds.addRule(normal(1, "n5", 1, "n6"));
-        pds.addRule(normal(1, "n7", 1, "n8"));
-        pds.addRule(pop(1, "n8", 1));
+        addPaperExRules(pds);
         PAutomaton<StackSymbol, Abstraction> fa = accepts(1, "n1");
         pds.poststar(fa);
         Collection<Transition<StackSymbol, Abstraction>> transitions = fa.getTransitions();
@@ -161,4 +177,33 @@ public class PDSPoststarTests {
         transitions.remove(t(a(1, "n7"), "n5", ACC));
         assertTrue(transitions.isEmpty());
     }
+
+    @Test
+    public void paperExConcurrent() {
+        addPaperExRules(pds);
+        PAutomaton<StackSymbol, Abstraction> fa = accepts(1, "n1");
+        pds.poststar(fa);
+
+        PushdownSystem<StackSymbol, Abstraction> concurrentPds = new PushdownSystem<StackSymbol, Abstraction>(true) {
+        };
+        addPaperExRules(concurrentPds);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        PAutomaton<StackSymbol, Abstraction> concurrentFa = accepts(1, "n1", true);
+        concurrentFa.setListenerExecutor(pool);
+        concurrentPds.poststar(concurrentFa);
+        pool.awaitQuiescence(10, TimeUnit.SECONDS);
+        pool.shutdown();
+        assertEquals(Sets.newHashSet(fa.getTransitions()), Sets.newHashSet(concurrentFa.getTransitions()));
+    }
+
+    private void addPaperExRules(PushdownSystem<StackSymbol, Abstraction> pds) {
+        pds.addRule(normal(1, "n1", 1, "n2"));
+        pds.addRule(normal(1, "n1", 1, "n3"));
+        pds.addRule(push(1, "n2", 1, "n7", "n4"));
+        pds.addRule(push(1, "n3", 1, "n7", "n5"));
+        pds.addRule(normal(1, "n4", 1, "n6"));
+        pds.addRule(normal(1, "n5", 1, "n6"));
+        pds.addRule(normal(1, "n7", 1, "n8"));
+        pds.addRule(pop(1, "n8", 1));
+    }
 }
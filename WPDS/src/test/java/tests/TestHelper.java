@@ -27,7 +27,15 @@ public class TestHelper {
     static Abstraction ACC = a(999);
 
     static PAutomaton<StackSymbol, Abstraction> accepts(int a, String c) {
-        PAutomaton<StackSymbol, Abstraction> aut = new PAutomaton<StackSymbol, Abstraction>(a(a)) {
+        return accepts(a, c, false);
+    }
+
+    static PAutomaton<StackSymbol, Abstraction> accepts(int a, String c, boolean concurrent) {
+        return accepts(a, c, concurrent, -1);
+    }
+
+    static PAutomaton<StackSymbol, Abstraction> accepts(int a, String c, boolean concurrent, final int stackBound) {
+        PAutomaton<StackSymbol, Abstraction> aut = new PAutomaton<StackSymbol, Abstraction>(a(a), concurrent) {
 
             @Override
             public Abstraction createState(Abstraction d, StackSymbol loc) {
@@ -43,6 +51,11 @@ public class TestHelper {
             public boolean isGeneratedState(Abstraction d) {
                 return d.s != null;
             }
+
+            @Override
+            public int getStackBound() {
+                return stackBound;
+            }
         };
         aut.addFinalState(ACC);
         aut.addTransition(t(a, c, ACC));
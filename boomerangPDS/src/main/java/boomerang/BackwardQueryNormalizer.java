@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang;
+
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Sets;
+
+import boomerang.callgraph.ObservableICFG;
+import boomerang.jimple.Statement;
+import boomerang.jimple.Val;
+import soot.Local;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.DefinitionStmt;
+import soot.jimple.Stmt;
+
+/**
+ * Maps a {@link BackwardQuery} for a local to its canonical defining point. Starting at the statement of the query,
+ * the normalizer walks back over statements that do not define the local as long as they have a single predecessor.
+ * A callee cannot redefine a local of its caller, hence calls are walked over as well. All queries along such a
+ * chain have the same allocation sites and share the solver of the canonical query.
+ */
+public class BackwardQueryNormalizer {
+
+    private final ObservableICFG<Unit, SootMethod> icfg;
+
+    public BackwardQueryNormalizer(ObservableICFG<Unit, SootMethod> icfg) {
+        this.icfg = icfg;
+    }
+
+    /**
+     * @return The query at the earliest statement that reaches the statement of the query without defining the
+     *         variable, or the query itself if the variable is not a local.
+     */
+    public BackwardQuery normalize(BackwardQuery query) {
+        Val var = query.var();
+        Optional<Stmt> unit = query.stmt().getUnit();
+        if (!unit.isPresent() || !(var.value() instanceof Local) || var.isStatic() || var.isNewExpr()
+                || var.isUnbalanced())
+            return query;
+        SootMethod method = query.stmt().getMethod();
+        Stmt curr = unit.get();
+        Set<Stmt> visited = Sets.newHashSet();
+        visited.add(curr);
+        while (!defines(curr, var)) {
+            List<Unit> preds = icfg.getPredsOf(curr);
+            if (preds.size() != 1)
+                break;
+            Stmt pred = (Stmt) preds.get(0);
+            // A cycle of statements with a single predecessor each
+            if (!visited.add(pred))
+                break;
+            curr = pred;
+        }
+        if (curr == unit.get())
+            return query;
+        return new BackwardQuery(new Statement(curr, method), var);
+    }
+
+    private boolean defines(Stmt stmt, Val var) {
+        return stmt instanceof DefinitionStmt && ((DefinitionStmt) stmt).getLeftOp().equals(var.value());
+    }
+}
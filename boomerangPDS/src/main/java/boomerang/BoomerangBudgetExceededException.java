@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang;
+
+import boomerang.stats.IBoomerangStats;
+
+/**
+ * Thrown when a query exceeds one of the step budgets of the {@link BoomerangOptions}, e.g.
+ * {@link BoomerangOptions#analysisTransitionBudget()}. The query is aborted like on a timeout, i.e., the results
+ * computed so far are reported as timed out.
+ */
+public class BoomerangBudgetExceededException extends BoomerangTimeoutException {
+
+    private final String budget;
+    private final long value;
+    private final long limit;
+
+    public BoomerangBudgetExceededException(long elapsed, String budget, long value, long limit,
+            IBoomerangStats stats) {
+        super(elapsed, stats);
+        this.budget = budget;
+        this.value = value;
+        this.limit = limit;
+    }
+
+    public String getBudget() {
+        return budget;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    @Override
+    public String toString() {
+        return "Boomerang Budget of " + limit + " " + budget + " exceeded (" + value + ") after " + getElapsed()
+                + "ms\n " + getStats();
+    }
+}
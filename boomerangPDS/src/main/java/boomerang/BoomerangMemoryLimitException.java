@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *  
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang;
+
+import boomerang.stats.IBoomerangStats;
+
+/**
+ * Thrown when the estimated heap footprint of the solvers exceeds {@link BoomerangOptions#analysisMemoryLimitMB()}.
+ * The query is aborted like on a timeout, i.e., the results computed so far are reported as timed out.
+ */
+public class BoomerangMemoryLimitException extends BoomerangTimeoutException {
+
+    private final long estimatedBytes;
+    private final long limitBytes;
+
+    public BoomerangMemoryLimitException(long elapsed, long estimatedBytes, long limitBytes, IBoomerangStats stats) {
+        super(elapsed, stats);
+        this.estimatedBytes = estimatedBytes;
+        this.limitBytes = limitBytes;
+    }
+
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    public long getLimitBytes() {
+        return limitBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "Boomerang Memory Limit of " + (limitBytes >> 20) + "MB exceeded (estimated " + (estimatedBytes >> 20)
+                + "MB) after " + getElapsed() + "ms\n " + getStats();
+    }
+}
@@ -40,6 +40,49 @@ public interface BoomerangOptions {
 
     public int analysisTimeoutMS();
 
+    /**
+     * The maximal number of transitions added to the automata of all solvers during a query. Unlike the timeout,
+     * the budgets are deterministic. A query exceeding a budget is aborted like on a timeout.
+     * 
+     * @return The budget, or -1 for no budget.
+     */
+    public long analysisTransitionBudget();
+
+    /**
+     * The maximal number of rules added to the pushdown systems of all solvers during a query.
+     * 
+     * @return The budget, or -1 for no budget.
+     */
+    public long analysisRuleBudget();
+
+    /**
+     * The maximal number of nodes reached by all solvers during a query.
+     * 
+     * @return The budget, or -1 for no budget.
+     */
+    public long analysisReachedNodeBudget();
+
+    /**
+     * With {@link #onTheFlyCallGraph()}, the maximal number of transitions added while resolving the callees of a
+     * single call site, summed over all queries issued for the call site. The queries are solved within the
+     * remaining budget and aborted once they exceed it, see {@link WeightedBoomerang#solveWithinBudget}. A query
+     * solved before for another call site counts with the transitions it added then. Once exceeded, the call site
+     * takes its callees from the precomputed call graph of the scene, e.g., of CHA or Spark, and is not queried
+     * again. The decision is recorded in the stats.
+     * 
+     * @return The budget, or -1 for no budget.
+     */
+    public long callSiteResolutionBudget();
+
+    /**
+     * Whole-program analyses solve their seeds ordered by the cost predicted by a
+     * {@link boomerang.seedfactory.QueryCostEstimator}, the cheapest first. This maximizes the number of seeds
+     * solved within a given time, as a few expensive seeds cannot delay all others.
+     * 
+     * @return true to solve cheap seeds first, false to solve them in the order the seed factory found them
+     */
+    public boolean cheapQueriesFirst();
+
     public boolean isAllocationVal(Value val);
 
     public Optional<AllocVal> getAllocationVal(SootMethod m, Stmt stmt, Val fact,
@@ -65,4 +108,113 @@ public interface BoomerangOptions {
     boolean trackStaticFieldAtEntryPointToClinit();
 
     boolean trackFields();
+
+    /**
+     * @return If set to false, calls and returns are not matched. A data-flow leaving a method returns to all
+     *         callers of the method. This trades precision for a smaller call automaton.
+     */
+    boolean contextSensitive();
+
+    /**
+     * Limits the calling context of a data-flow to the k most recent call sites. Returns beyond the k-th call
+     * site are treated like unbalanced returns and flow to all callers of the method. Only respected when
+     * {@link #contextSensitive()} is set.
+     * 
+     * @return The number k of call sites kept on the call stack, or -1 for an unbounded call stack.
+     */
+    int callStackBound();
+
+    /**
+     * Soft limit on the estimated heap footprint the solvers grow by during a top-level query. Solvers cached from
+     * earlier queries do not count. When exceeded, the query is aborted like on a timeout and the results computed
+     * so far are returned, with a {@link BoomerangMemoryLimitException} as their abort reason.
+     * 
+     * @return The limit in megabytes, or -1 to disable the limit.
+     */
+    int analysisMemoryLimitMB();
+
+    /**
+     * Bounds the number of solvers retained across queries. Before a query is solved, the least recently used
+     * solvers are evicted, each together with the solvers it exchanged data-flows with, e.g., a backward query with
+     * the forward solvers of its allocation sites. Results of earlier queries must therefore be consumed before the
+     * next query is solved, results of evicted queries fail with an {@link IllegalStateException}.
+     * 
+     * @return The maximal number of solvers, or -1 for an unbounded cache.
+     */
+    int solverCacheSize();
+
+    /**
+     * Like {@link #solverCacheSize()}, but bounds the estimated heap footprint of the retained solvers.
+     * 
+     * @return The limit in megabytes, or -1 for an unbounded cache.
+     */
+    int solverCacheMemoryLimitMB();
+
+    /**
+     * The number of normal flow function results shared among the solvers. Flow functions are pure given the
+     * options, so the cache does not change the results. The cache is disabled by default.
+     * 
+     * @return The maximal number of cached results, or 0 to disable the cache.
+     */
+    int flowFunctionCacheSize();
+
+    /**
+     * Forward solvers propagate facts stored in locals along a sparse value-flow graph, i.e., directly to the next
+     * statements that use or define the local, to calls, to exit statements and to the successors of field and array
+     * accesses, where the flows of aliases are imported. This shrinks the number of rules and reached nodes, but the
+     * facts are not reached at the skipped statements.
+     * 
+     * @return true to propagate sparsely
+     */
+    boolean sparseValueFlow();
+
+    /**
+     * Facts of static fields skip calls to methods that neither read nor write the field, directly or through their
+     * callees, see {@link boomerang.solver.StaticFieldIndex}. Facts of a field reaching an entry point only enter the
+     * static initializers that may access it. The accesses are computed once per field on the call graph of the
+     * scene, which therefore must contain all edges the analysis follows. Calls without edges in the call graph are
+     * not skipped.
+     * 
+     * @return true to index the accesses of static fields
+     */
+    boolean staticFieldIndex();
+
+    /**
+     * Backward queries for a local are solved from the earliest statement that reaches the query without redefining
+     * the local, see {@link BackwardQueryNormalizer}. Queries for the same local along such a chain of statements
+     * share one solver and its allocation sites, which do not depend on where along the chain the query starts.
+     * Aliases are still extracted at the statement of each query, as the local may gain aliases along the chain.
+     * 
+     * @return true to normalize backward queries
+     */
+    boolean normalizeBackwardQueries();
+
+    /**
+     * A file of precomputed library summaries, see {@link boomerang.summaries.LibrarySummaries}. At calls to a
+     * summarized method, the solvers apply the summary instead of analyzing the body of the method.
+     * 
+     * @return The path of the file, or null to analyze all callees.
+     */
+    String librarySummaryFile();
+
+    /**
+     * A directory in which IDEal analyses record their finished seeds, see
+     * {@link boomerang.seedfactory.SeedCheckpoint}. A restarted IDEal analysis orders its seeds by their recorded
+     * costs and replays the results of the finished seeds to a result handler that accepts textual results. The
+     * default handler does not, its seeds are solved again. {@link WholeProgramBoomerang} ignores the directory: the
+     * solvers of one seed import the flows of the others at field writes, hence it solves all seeds anyway.
+     * 
+     * @return The path of the directory, or null to solve all seeds without recording them.
+     */
+    String checkpointDirectory();
+
+    /**
+     * Applies the built-in summaries of the common <code>java.util</code> lists, sets and maps, see
+     * {@link boomerang.summaries.LibrarySummaries#containerSummaries()}. The contents of the containers remain
+     * field-sensitive. Summaries of a container whose fields an analyzed method may access are not applied, see
+     * {@link boomerang.summaries.LibrarySummaries#closedUnderScene()}.
+     * 
+     * @return true to apply the summaries
+     */
+    boolean containerSummaries();
 }
@@ -23,6 +23,14 @@ public class BoomerangTimeoutException extends RuntimeException {
         this.stats = stats;
     }
 
+    public long getElapsed() {
+        return elapsed;
+    }
+
+    public IBoomerangStats getStats() {
+        return stats;
+    }
+
     @Override
     public String toString() {
         return "Boomerang Timeout after " + elapsed + "ms\n " + stats;
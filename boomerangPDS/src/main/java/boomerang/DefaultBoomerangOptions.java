@@ -199,6 +199,31 @@ public class DefaultBoomerangOptions implements BoomerangOptions {
         return 60000;
     }
 
+    @Override
+    public long analysisTransitionBudget() {
+        return -1;
+    }
+
+    @Override
+    public long analysisRuleBudget() {
+        return -1;
+    }
+
+    @Override
+    public long analysisReachedNodeBudget() {
+        return -1;
+    }
+
+    @Override
+    public long callSiteResolutionBudget() {
+        return -1;
+    }
+
+    @Override
+    public boolean cheapQueriesFirst() {
+        return false;
+    }
+
     @Override
     public IBoomerangStats statsFactory() {
         return new SimpleBoomerangStats();
@@ -223,4 +248,64 @@ public class DefaultBoomerangOptions implements BoomerangOptions {
     public boolean trackFields() {
         return true;
     }
+
+    @Override
+    public boolean contextSensitive() {
+        return true;
+    }
+
+    @Override
+    public int callStackBound() {
+        return -1;
+    }
+
+    @Override
+    public int analysisMemoryLimitMB() {
+        return -1;
+    }
+
+    @Override
+    public int solverCacheSize() {
+        return -1;
+    }
+
+    @Override
+    public int solverCacheMemoryLimitMB() {
+        return -1;
+    }
+
+    @Override
+    public int flowFunctionCacheSize() {
+        return 0;
+    }
+
+    @Override
+    public boolean sparseValueFlow() {
+        return false;
+    }
+
+    @Override
+    public boolean staticFieldIndex() {
+        return false;
+    }
+
+    @Override
+    public boolean normalizeBackwardQueries() {
+        return false;
+    }
+
+    @Override
+    public String librarySummaryFile() {
+        return null;
+    }
+
+    @Override
+    public String checkpointDirectory() {
+        return null;
+    }
+
+    @Override
+    public boolean containerSummaries() {
+        return false;
+    }
 }
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang;
+
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import boomerang.results.BackwardBoomerangResults;
+import boomerang.results.ForwardBoomerangResults;
+import wpds.impl.Weight;
+
+/**
+ * Solves a batch of independent queries on a pool of worker threads. Each query is solved by a fresh
+ * {@link WeightedBoomerang} instance, only the Soot scene and the ICFG handed out by the {@link SolverFactory} are
+ * shared among the workers. Hence, all method bodies must be created (e.g. by the BoomerangPretransformer) before the
+ * batch is started. A shared ICFG must tolerate concurrent updates of its unbalanced methods, which the
+ * {@link boomerang.callgraph.ObservableStaticICFG} does. An {@link boomerang.callgraph.ObservableDynamicICFG} is bound
+ * to a single solver, a factory using it must create one per solver.
+ */
+public class ParallelBoomerang<W extends Weight> {
+
+    public interface SolverFactory<W extends Weight> {
+        /**
+         * @return A new solver instance. Called concurrently by the worker threads.
+         */
+        WeightedBoomerang<W> create();
+    }
+
+    public interface ResultListener<W extends Weight> {
+        void onForwardResult(ForwardQuery query, ForwardBoomerangResults<W> results);
+
+        void onBackwardResult(BackwardQuery query, BackwardBoomerangResults<W> results);
+    }
+
+    private final SolverFactory<W> factory;
+
+    public ParallelBoomerang(SolverFactory<W> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Solves all queries using the given number of worker threads and blocks until all of them are finished. Results
+     * are streamed to the listener as soon as a query completes. The listener is never called concurrently. If
+     * solving a query fails, the remaining queries are still solved and the first failure is rethrown afterwards.
+     */
+    public void solveAll(Collection<? extends Query> queries, int parallelism, final ResultListener<W> listener) {
+        for (Query q : queries) {
+            if (!(q instanceof ForwardQuery) && !(q instanceof BackwardQuery))
+                throw new IllegalArgumentException("Unsupported query type " + q);
+        }
+        final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+        for (final Query q : queries) {
+            workers.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        solve(q, listener);
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        try {
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (failure.get() != null)
+            throw failure.get();
+    }
+
+    private void solve(Query q, ResultListener<W> listener) {
+        WeightedBoomerang<W> solver = factory.create();
+        if (q instanceof ForwardQuery) {
+            ForwardBoomerangResults<W> results = solver.solve((ForwardQuery) q);
+            synchronized (listener) {
+                listener.onForwardResult((ForwardQuery) q, results);
+            }
+        } else {
+            BackwardBoomerangResults<W> results = solver.solve((BackwardQuery) q);
+            synchronized (listener) {
+                listener.onBackwardResult((BackwardQuery) q, results);
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang;
+
+import boomerang.jimple.Statement;
+import boomerang.jimple.Val;
+import boomerang.util.AccessPath;
+import sync.pds.solver.nodes.Node;
+
+/**
+ * Receives the results of a query while it is solved, see
+ * {@link WeightedBoomerang#solve(BackwardQuery, QueryObserver)}. Each result is reported once. A callback may
+ * {@link #cancel()} the query. {@link #isCancelled()} is also polled while the query propagates, it may be overridden
+ * to cancel without a callback, e.g., at a deadline.
+ */
+public abstract class QueryObserver {
+
+    private boolean cancelled;
+
+    /**
+     * An allocation site of the backward query was found.
+     */
+    public void onAllocationSite(ForwardQuery allocationSite) {
+    }
+
+    /**
+     * An access path aliasing the variable of the backward query at the query statement was found.
+     */
+    public void onAlias(AccessPath alias) {
+    }
+
+    /**
+     * The solver of the query reached a new node.
+     */
+    public void onReachedNode(Node<Statement, Val> node) {
+    }
+
+    /**
+     * Stops the query after the current callback returns.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
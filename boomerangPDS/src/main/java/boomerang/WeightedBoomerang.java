@@ -15,6 +15,8 @@ import boomerang.callgraph.BackwardsObservableICFG;
 import boomerang.callgraph.CalleeListener;
 import boomerang.callgraph.CallerListener;
 import boomerang.callgraph.ObservableICFG;
+import java.io.File;
+import java.io.IOException;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -28,10 +30,12 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
+import com.google.common.base.Predicate;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Table;
@@ -46,6 +50,8 @@ import boomerang.poi.ExecuteImportFieldStmtPOI;
 import boomerang.poi.PointOfIndirection;
 import boomerang.preanalysis.BoomerangPretransformer;
 import boomerang.results.BackwardBoomerangResults;
+import boomerang.results.ExtractAllAliasListener;
+import boomerang.results.ExtractAllocationSiteStateListener;
 import boomerang.results.ForwardBoomerangResults;
 import boomerang.seedfactory.SimpleSeedFactory;
 import boomerang.solver.*;
@@ -56,6 +62,9 @@ import boomerang.solver.ForwardBoomerangSolver;
 import boomerang.solver.ReachableMethodListener;
 import boomerang.solver.StatementBasedCallTransitionListener;
 import boomerang.stats.IBoomerangStats;
+import boomerang.summaries.LibrarySummaries;
+import boomerang.summaries.MethodSummary;
+import boomerang.util.AccessPath;
 import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
 import com.google.common.base.Stopwatch;
@@ -113,13 +122,48 @@ public abstract class WeightedBoomerang<W extends Weight> {
     protected ObservableICFG<Unit, SootMethod> icfg;
     private static final Logger logger = LoggerFactory.getLogger(WeightedBoomerang.class);
     private Map<Entry<INode<Node<Statement, Val>>, Field>, INode<Node<Statement, Val>>> genField = new HashMap<>();
-    private long lastTick;
+    private static final int LIMIT_CHECK_INTERVAL = 1024;
+    private int transitionsSinceLimitCheck;
+    private long transitionsOfQuery;
+    private long transitions;
+    // The value of the transition counter at which the innermost query solved within a budget is aborted, or -1
+    private long nestedTransitionLimit = -1;
+    // The solvers existing before the innermost query solved within a budget, and those of them it extended
+    private Set<Query> solversBeforeNestedQuery;
+    private Set<Query> extendedByNestedQuery;
+    private long rulesBeforeQuery;
+    private long reachedNodesBeforeQuery;
+    private long footprintBeforeQuery;
     private IBoomerangStats<W> stats;
     private Set<SolverCreationListener<W>> solverCreationListeners = Sets.newHashSet();
-    private Multimap<SolverPair, ExecuteImportFieldStmtPOI<W>> poiListeners = HashMultimap.create();
+    // The POIs activated with a solver pair, indexed by field. Per field, only one POI per base variable at the
+    // successor statement is kept, POIs with the same base variable and successor import the same transitions.
+    private Table<SolverPair, Field, Map<Node<Statement, Val>, ExecuteImportFieldStmtPOI<W>>> poiListeners = HashBasedTable
+            .create();
+    private Set<ExecuteImportFieldStmtPOI<W>> executedPois = Sets.newHashSet();
     private Multimap<SolverPair, INode<Node<Statement, Val>>> activatedPoi = HashMultimap.create();
+    // Queries whose solvers exchange data-flows outside of a SolverPair, e.g., a backward query and the forward
+    // queries of its allocation sites. Symmetric.
+    private final Multimap<Query, Query> solverDependencies = HashMultimap.create();
+    // Solvers left incomplete by a cancelled query, evicted before the next top-level query
+    private final Set<Query> staleSolvers = Sets.newHashSet();
+    // Access order of the solvers, only maintained if the solver cache is bounded
+    private final LinkedHashMap<Query, Boolean> solverAccessOrder = new LinkedHashMap<>(16, 0.75f, true);
+    private int activeQueries;
+    private FlowFunctionCache flowFunctionCache;
+    private SparseValueFlowGraph sparseValueFlowGraph;
+    private StaticFieldIndex staticFieldIndex;
+    private BackwardQueryNormalizer backwardQueryNormalizer;
+    private LibrarySummaries librarySummaries;
     private final DefaultValueMap<Query, AbstractBoomerangSolver<W>> queryToSolvers = new DefaultValueMap<Query, AbstractBoomerangSolver<W>>() {
 
+        @Override
+        public AbstractBoomerangSolver<W> getOrCreate(Query key) {
+            if (isSolverCacheBounded())
+                solverAccessOrder.put(key, Boolean.TRUE);
+            return super.getOrCreate(key);
+        }
+
         @Override
         protected AbstractBoomerangSolver<W> createItem(final Query key) {
             final AbstractBoomerangSolver<W> solver;
@@ -144,25 +188,23 @@ public abstract class WeightedBoomerang<W extends Weight> {
                                         weight);
                                 icfg().addCallerListener(new UnbalancedPopCallerListener(callee, info, key, solver));
                             } else {
-                                for (SootMethod entryPoint : Scene.v().getEntryPoints()) {
-                                    for (Unit ep : WeightedBoomerang.this.icfg().getStartPointsOf(entryPoint)) {
-                                        final Statement callStatement = new Statement((Stmt) ep,
-                                                WeightedBoomerang.this.icfg().getMethodOf(ep));
-                                        solver.submit(callStatement.getMethod(), new Runnable() {
-                                            @Override
-                                            public void run() {
-                                                Val unbalancedFact = returningFact.fact().asUnbalanced(callStatement);
-                                                SingleNode<Val> unbalancedState = new SingleNode<Val>(unbalancedFact);
-                                                solver.getCallAutomaton().addUnbalancedState(unbalancedState);
-                                                solver.getCallAutomaton().addWeightForTransition(
-                                                        new Transition<Statement, INode<Val>>(
-                                                                solver.getCallAutomaton().getInitialState(),
-                                                                callStatement, unbalancedState),
-                                                        solver.getCallAutomaton().getOne());
-
-                                            }
-                                        });
-                                    }
+                                for (Stmt ep : getEntryPointStartPoints()) {
+                                    final Statement callStatement = new Statement(ep,
+                                            WeightedBoomerang.this.icfg().getMethodOf(ep));
+                                    solver.submit(callStatement.getMethod(), new Runnable() {
+                                        @Override
+                                        public void run() {
+                                            Val unbalancedFact = returningFact.fact().asUnbalanced(callStatement);
+                                            SingleNode<Val> unbalancedState = new SingleNode<Val>(unbalancedFact);
+                                            solver.getCallAutomaton().addUnbalancedState(unbalancedState);
+                                            solver.getCallAutomaton().addWeightForTransition(
+                                                    new Transition<Statement, INode<Val>>(
+                                                            solver.getCallAutomaton().getInitialState(),
+                                                            callStatement, unbalancedState),
+                                                    solver.getCallAutomaton().getOne());
+
+                                        }
+                                    });
                                 }
                             }
                         }
@@ -172,7 +214,7 @@ public abstract class WeightedBoomerang<W extends Weight> {
                 @Override
                 public void onWeightAdded(Transition<Statement, INode<Val>> t, W w,
                         WeightedPAutomaton<Statement, INode<Val>, W> aut) {
-                    checkTimeout();
+                    onTransitionAdded(key);
                 }
             });
             solver.getFieldAutomaton().registerListener(new WPAUpdateListener<Field, INode<Node<Statement, Val>>, W>() {
@@ -180,7 +222,7 @@ public abstract class WeightedBoomerang<W extends Weight> {
                 @Override
                 public void onWeightAdded(Transition<Field, INode<Node<Statement, Val>>> t, W w,
                         WeightedPAutomaton<Field, INode<Node<Statement, Val>>, W> aut) {
-                    checkTimeout();
+                    onTransitionAdded(key);
                 }
             });
             SeedFactory<W> seedFactory = getSeedFactory();
@@ -204,13 +246,91 @@ public abstract class WeightedBoomerang<W extends Weight> {
 
     }
 
+    /**
+     * Called for every transition added to any solver. The transition budget is checked exactly, the remaining
+     * limits are only checked every {@value #LIMIT_CHECK_INTERVAL} transitions, which keeps the overhead per
+     * transition low and the budgets deterministic.
+     */
+    private void onTransitionAdded(Query solver) {
+        transitions++;
+        transitionsOfQuery++;
+        if (options.analysisTransitionBudget() > 0 && transitionsOfQuery > options.analysisTransitionBudget())
+            throw budgetExceeded("transitions", transitionsOfQuery, options.analysisTransitionBudget());
+        if (nestedTransitionLimit >= 0) {
+            if (solversBeforeNestedQuery.contains(solver))
+                extendedByNestedQuery.add(solver);
+            if (transitions > nestedTransitionLimit)
+                throw new NestedBudgetExceededException();
+        }
+        if (++transitionsSinceLimitCheck < LIMIT_CHECK_INTERVAL)
+            return;
+        transitionsSinceLimitCheck = 0;
+        checkLimits();
+    }
+
+    private void checkLimits() {
+        checkTimeout();
+        checkBudgets();
+        checkMemoryLimit();
+        checkObserversCancelled();
+    }
+
+    /**
+     * Polls the observers of the running queries, which may cancel without a callback, e.g., at a deadline.
+     */
+    private void checkObserversCancelled() {
+        for (SolverCreationListener<W> l : solverCreationListeners) {
+            if (l instanceof WeightedBoomerang.ObservingListener)
+                ((ObservingListener) l).checkCancelled();
+        }
+    }
+
+    private void resetBudgets() {
+        transitionsOfQuery = 0;
+        rulesBeforeQuery = getNumberOfRules();
+        reachedNodesBeforeQuery = getNumberOfReachedNodes();
+        footprintBeforeQuery = options.analysisMemoryLimitMB() > 0 ? estimateFootprintInBytes() : 0;
+    }
+
+    private void checkBudgets() {
+        if (options.analysisRuleBudget() > 0) {
+            long rules = getNumberOfRules() - rulesBeforeQuery;
+            if (rules > options.analysisRuleBudget())
+                throw budgetExceeded("rules", rules, options.analysisRuleBudget());
+        }
+        if (options.analysisReachedNodeBudget() > 0) {
+            long nodes = getNumberOfReachedNodes() - reachedNodesBeforeQuery;
+            if (nodes > options.analysisReachedNodeBudget())
+                throw budgetExceeded("reached nodes", nodes, options.analysisReachedNodeBudget());
+        }
+    }
+
+    private BoomerangBudgetExceededException budgetExceeded(String budget, long value, long limit) {
+        if (analysisWatch.isRunning())
+            analysisWatch.stop();
+        return new BoomerangBudgetExceededException(analysisWatch.elapsed(TimeUnit.MILLISECONDS), budget, value,
+                limit, stats);
+    }
+
+    private long getNumberOfRules() {
+        long rules = 0;
+        for (AbstractBoomerangSolver<W> solver : queryToSolvers.values()) {
+            rules += solver.getNumberOfRules();
+        }
+        return rules;
+    }
+
+    private long getNumberOfReachedNodes() {
+        long nodes = 0;
+        for (AbstractBoomerangSolver<W> solver : queryToSolvers.values()) {
+            nodes += solver.getNumberOfReachedStates();
+        }
+        return nodes;
+    }
+
     public void checkTimeout() {
         if (options.analysisTimeoutMS() > 0) {
             long elapsed = analysisWatch.elapsed(TimeUnit.MILLISECONDS);
-            if (elapsed - lastTick > 15000) {
-                System.out.println("Alive " + elapsed + "  " + options.analysisTimeoutMS());
-                lastTick = elapsed;
-            }
             if (options.analysisTimeoutMS() < elapsed) {
                 if (analysisWatch.isRunning())
                     analysisWatch.stop();
@@ -219,6 +339,208 @@ public abstract class WeightedBoomerang<W extends Weight> {
         }
     }
 
+    /**
+     * Aborts the analysis when the estimated footprint the solvers have grown by since the top-level query started
+     * exceeds {@link BoomerangOptions#analysisMemoryLimitMB()}. Solvers cached from earlier queries do not count.
+     */
+    private void checkMemoryLimit() {
+        if (options.analysisMemoryLimitMB() <= 0)
+            return;
+        long limit = options.analysisMemoryLimitMB() * 1024L * 1024L;
+        long estimated = estimateFootprintInBytes() - footprintBeforeQuery;
+        if (estimated > limit) {
+            if (analysisWatch.isRunning())
+                analysisWatch.stop();
+            throw new BoomerangMemoryLimitException(analysisWatch.elapsed(TimeUnit.MILLISECONDS), estimated, limit,
+                    stats);
+        }
+    }
+
+    /**
+     * @return The estimated heap footprint of all solvers, see {@link AbstractBoomerangSolver#estimateFootprintInBytes()}
+     */
+    public long estimateFootprintInBytes() {
+        long bytes = 0;
+        for (AbstractBoomerangSolver<W> solver : queryToSolvers.values()) {
+            bytes += solver.estimateFootprintInBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Restarts the measurement of the analysis time. The time is summed over all queries of this instance, hence
+     * long-lived instances restart it before each query for {@link BoomerangOptions#analysisTimeoutMS()} to apply
+     * per query. Must not be called while a query is solved.
+     */
+    public void resetAnalysisWatch() {
+        if (activeQueries > 0)
+            throw new IllegalStateException("The analysis time cannot be reset while a query is solved");
+        analysisWatch = Stopwatch.createUnstarted();
+    }
+
+    /**
+     * Discards the solvers with rules or transitions in any of the changed methods, together with all solvers that
+     * imported data-flows from them at field reads and writes. All other solvers and their results remain valid.
+     * Changed methods are expected to have new active bodies. Methods with new call targets, e.g. callers of a new
+     * overriding method, have to be passed as changed as well. The ICFG drops the statements, control-flow graphs and
+     * call edges cached for the old bodies, see {@link ObservableICFG#invalidate(Collection)}. An ICFG based on a
+     * precomputed call graph cannot be updated, the call graph, the ICFG and this instance have to be rebuilt. Must
+     * not be called while a query is solved.
+     *
+     * @return The queries of the discarded solvers. Solving these queries again recomputes their results.
+     * @throws UnsupportedOperationException
+     *             if the ICFG cannot be updated. No solver is discarded in this case.
+     */
+    public Set<Query> invalidate(Collection<SootMethod> changedMethods) {
+        if (activeQueries > 0)
+            throw new IllegalStateException("Solvers cannot be invalidated while a query is solved");
+        Set<Query> invalidated = Sets.newHashSet();
+        if (changedMethods.isEmpty())
+            return invalidated;
+        icfg().invalidate(changedMethods);
+        // Nested summaries are shared among all solvers
+        boolean sharedSummaries = options.callSummaries() || options.fieldSummaries();
+        int solvers = queryToSolvers.size();
+        List<Query> affected = Lists.newArrayList();
+        for (Entry<Query, AbstractBoomerangSolver<W>> e : queryToSolvers.entrySet()) {
+            if (sharedSummaries || e.getValue().dependsOnAny(changedMethods))
+                affected.add(e.getKey());
+        }
+        invalidated.addAll(dependencyGroupOf(affected));
+        for (Query q : invalidated) {
+            evictSolver(q);
+        }
+        if (sparseValueFlowGraph != null) {
+            for (SootMethod m : changedMethods) {
+                sparseValueFlowGraph.invalidate(m);
+            }
+        }
+        if (flowFunctionCache != null)
+            flowFunctionCache.invalidateAll();
+        staticFieldIndex = null;
+        logger.debug("Invalidated {} of {} solvers for {} changed methods", invalidated.size(), solvers,
+                changedMethods.size());
+        return invalidated;
+    }
+
+    /**
+     * @return The given queries and the queries whose solvers exchanged data-flows with their solvers, directly or
+     *         transitively. The solvers of such a group are only consistent if they are kept or discarded together:
+     *         e.g., the allocation sites of a backward query are read from the forward solvers of the group.
+     */
+    private Set<Query> dependencyGroupOf(Collection<Query> queries) {
+        Map<AbstractBoomerangSolver<W>, Query> solverToQuery = Maps.newHashMap();
+        for (Entry<Query, AbstractBoomerangSolver<W>> e : queryToSolvers.entrySet()) {
+            solverToQuery.put(e.getValue(), e.getKey());
+        }
+        Set<SolverPair> pairs = Sets.newHashSet(poiListeners.rowKeySet());
+        pairs.addAll(activatedPoi.keySet());
+        Set<Query> group = Sets.newHashSet();
+        LinkedList<Query> worklist = Lists.newLinkedList(queries);
+        while (!worklist.isEmpty()) {
+            Query q = worklist.poll();
+            if (q == null || !group.add(q))
+                continue;
+            worklist.addAll(solverDependencies.get(q));
+            AbstractBoomerangSolver<W> solver = queryToSolvers.get(q);
+            for (SolverPair pair : pairs) {
+                if (pair.contains(solver)) {
+                    worklist.add(solverToQuery.get(pair.flowSolver));
+                    worklist.add(solverToQuery.get(pair.baseSolver));
+                }
+            }
+        }
+        return group;
+    }
+
+    private void evictStaleSolvers() {
+        if (staleSolvers.isEmpty())
+            return;
+        for (Query q : staleSolvers) {
+            evictSolver(q);
+        }
+        logger.debug("Evicted {} solvers of cancelled queries", staleSolvers.size());
+        staleSolvers.clear();
+    }
+
+    private boolean isSolverCacheBounded() {
+        return options.solverCacheSize() > 0 || options.solverCacheMemoryLimitMB() > 0;
+    }
+
+    /**
+     * Evicts the least recently used solvers until the cache fits into {@link BoomerangOptions#solverCacheSize()}
+     * and {@link BoomerangOptions#solverCacheMemoryLimitMB()}. Only called between top-level queries, when all
+     * solvers are complete. A solver is evicted together with its dependency group (see
+     * {@link #dependencyGroupOf(Collection)}), groups containing the solver of the upcoming query are kept.
+     */
+    private void evictSolvers(Query upcoming) {
+        if (!isSolverCacheBounded() || activeQueries > 0)
+            return;
+        if (queryToSolvers.containsKey(upcoming))
+            solverAccessOrder.put(upcoming, Boolean.TRUE);
+        long memoryLimit = options.solverCacheMemoryLimitMB() * 1024L * 1024L;
+        long footprint = memoryLimit > 0 ? estimateFootprintInBytes() : 0;
+        for (Query q : Lists.newArrayList(solverAccessOrder.keySet())) {
+            boolean exceedsSize = options.solverCacheSize() > 0 && queryToSolvers.size() > options.solverCacheSize();
+            boolean exceedsMemory = memoryLimit > 0 && footprint > memoryLimit;
+            if (!exceedsSize && !exceedsMemory)
+                return;
+            if (!queryToSolvers.containsKey(q))
+                continue;
+            Set<Query> group = dependencyGroupOf(Collections.singleton(q));
+            if (group.contains(upcoming))
+                continue;
+            for (Query member : group) {
+                AbstractBoomerangSolver<W> evicted = queryToSolvers.get(member);
+                if (evicted != null)
+                    footprint -= evicted.estimateFootprintInBytes();
+                evictSolver(member);
+            }
+        }
+    }
+
+    /**
+     * Removes the solver of the query and all references to it. Data-flows it already contributed to other solvers
+     * are kept, hence callers evict whole dependency groups. The solver is recomputed if the query is solved again.
+     */
+    private void evictSolver(Query q) {
+        solverAccessOrder.remove(q);
+        for (Query dependency : solverDependencies.removeAll(q)) {
+            solverDependencies.remove(dependency, q);
+        }
+        AbstractBoomerangSolver<W> solver = queryToSolvers.remove(q);
+        if (solver == null)
+            return;
+        solver.cleanup();
+        stats.unregisterSolver(q);
+        for (FieldWritePOI poi : fieldWrites.values()) {
+            poi.removeAllocation(q);
+        }
+        for (FieldReadPOI poi : fieldReads.values()) {
+            poi.removeAllocation(q);
+        }
+        for (SolverPair pair : Lists.newArrayList(poiListeners.rowKeySet())) {
+            if (pair.contains(solver))
+                poiListeners.row(pair).clear();
+        }
+        for (ExecuteImportFieldStmtPOI<W> exec : Lists.newArrayList(executedPois)) {
+            if (exec.getBaseSolver().equals(solver) || exec.getFlowSolver().equals(solver))
+                executedPois.remove(exec);
+        }
+        for (SolverPair pair : Lists.newArrayList(activatedPoi.keySet())) {
+            if (pair.contains(solver))
+                activatedPoi.removeAll(pair);
+        }
+        for (Node<Statement, AbstractBoomerangSolver<W>> pair : Lists.newArrayList(unbalancedListeners.keySet())) {
+            if (pair.fact().equals(solver))
+                unbalancedListeners.removeAll(pair);
+        }
+        for (Node<Statement, AbstractBoomerangSolver<W>> pair : Lists.newArrayList(unbalancedPopPairs)) {
+            if (pair.fact().equals(solver))
+                unbalancedPopPairs.remove(pair);
+        }
+    }
+
     Multimap<Node<Statement, AbstractBoomerangSolver<W>>, UnbalancedPopHandler<W>> unbalancedListeners = HashMultimap
             .create();
     Set<Node<Statement, AbstractBoomerangSolver<W>>> unbalancedPopPairs = Sets.newHashSet();
@@ -272,10 +594,89 @@ public abstract class WeightedBoomerang<W extends Weight> {
         this(new DefaultBoomerangOptions());
     }
 
+    /**
+     * The flow function cache shared by all solvers of this instance. Subclasses may share one cache among
+     * several instances with equal options.
+     * 
+     * @return The cache, or null if {@link BoomerangOptions#flowFunctionCacheSize()} disables caching.
+     */
+    protected FlowFunctionCache getFlowFunctionCache() {
+        if (flowFunctionCache == null && options.flowFunctionCacheSize() > 0)
+            flowFunctionCache = new FlowFunctionCache(options.flowFunctionCacheSize());
+        return flowFunctionCache;
+    }
+
+    /**
+     * @return The index of static field accesses shared by all solvers of this instance, or null if
+     *         {@link BoomerangOptions#staticFieldIndex()} is not set.
+     */
+    protected StaticFieldIndex getStaticFieldIndex() {
+        if (staticFieldIndex == null && options.staticFieldIndex())
+            staticFieldIndex = new StaticFieldIndex();
+        return staticFieldIndex;
+    }
+
+    /**
+     * @return The canonical query of the backward query that shares its solver and results, see
+     *         {@link BackwardQueryNormalizer}, or the query itself if
+     *         {@link BoomerangOptions#normalizeBackwardQueries()} is not set.
+     */
+    public BackwardQuery normalize(BackwardQuery query) {
+        if (!options.normalizeBackwardQueries())
+            return query;
+        if (backwardQueryNormalizer == null)
+            backwardQueryNormalizer = new BackwardQueryNormalizer(icfg());
+        return backwardQueryNormalizer.normalize(query);
+    }
+
+    private List<Stmt> getEntryPointStartPoints() {
+        if (getStaticFieldIndex() != null)
+            return getStaticFieldIndex().getEntryPointStartPoints(icfg());
+        List<Stmt> startPoints = Lists.newArrayList();
+        for (SootMethod entryPoint : Scene.v().getEntryPoints()) {
+            for (Unit ep : icfg().getStartPointsOf(entryPoint)) {
+                startPoints.add((Stmt) ep);
+            }
+        }
+        return startPoints;
+    }
+
+    /**
+     * The summaries of library methods applied by all solvers of this instance, loaded on first use. Subclasses may
+     * share the summaries among several instances with equal options.
+     * 
+     * @return The summaries, or null if neither {@link BoomerangOptions#librarySummaryFile()} nor
+     *         {@link BoomerangOptions#containerSummaries()} is set.
+     */
+    protected LibrarySummaries getLibrarySummaries() {
+        if (librarySummaries != null || (options.librarySummaryFile() == null && !options.containerSummaries()))
+            return librarySummaries;
+        LibrarySummaries summaries = new LibrarySummaries();
+        if (options.containerSummaries())
+            summaries.addAll(LibrarySummaries.containerSummaries());
+        if (options.librarySummaryFile() != null) {
+            File file = new File(options.librarySummaryFile());
+            try {
+                summaries.addAll(LibrarySummaries.load(file, options));
+            } catch (IOException e) {
+                throw new RuntimeException("Could not load library summaries from " + file, e);
+            }
+        }
+        librarySummaries = summaries.closedUnderScene();
+        logger.debug("Loaded {} library summaries, {} of them apply to the scene", summaries.size(),
+                librarySummaries.size());
+        return librarySummaries;
+    }
+
+    private MethodSummary getSummary(SootMethod callee) {
+        LibrarySummaries summaries = getLibrarySummaries();
+        return summaries == null ? null : summaries.getSummary(callee);
+    }
+
     protected AbstractBoomerangSolver<W> createBackwardSolver(final BackwardQuery backwardQuery) {
         BackwardBoomerangSolver<W> solver = new BackwardBoomerangSolver<W>(bwicfg(), backwardQuery, genField, options,
                 createCallSummaries(backwardQuery, backwardCallSummaries),
-                createFieldSummaries(backwardQuery, backwardFieldSummaries)) {
+                createFieldSummaries(backwardQuery, backwardFieldSummaries), getFlowFunctionCache()) {
 
             @Override
             protected Collection<? extends State> computeCallFlow(SootMethod caller, Statement returnSite,
@@ -289,6 +690,16 @@ public abstract class WeightedBoomerang<W extends Weight> {
                 return backwardEmptyCalleeFlow.getEmptyCalleeFlow(caller, callSite, value, returnSite);
             }
 
+            @Override
+            protected MethodSummary getSummary(SootMethod callee) {
+                return WeightedBoomerang.this.getSummary(callee);
+            }
+
+            @Override
+            protected StaticFieldIndex getStaticFieldIndex() {
+                return WeightedBoomerang.this.getStaticFieldIndex();
+            }
+
             @Override
             protected WeightFunctions<Statement, Val, Field, W> getFieldWeights() {
                 return WeightedBoomerang.this.getBackwardFieldWeights();
@@ -301,7 +712,7 @@ public abstract class WeightedBoomerang<W extends Weight> {
 
             @Override
             protected void onManyStateListenerRegister() {
-                checkTimeout();
+                checkLimits();
             }
 
         };
@@ -315,6 +726,8 @@ public abstract class WeightedBoomerang<W extends Weight> {
                 if (allocNode.isPresent()) {
                     ForwardQuery q = new ForwardQuery(node.stmt(), allocNode.get());
                     final AbstractBoomerangSolver<W> forwardSolver = forwardSolve(q);
+                    solverDependencies.put(backwardQuery, q);
+                    solverDependencies.put(q, backwardQuery);
                     solver.registerReachableMethodListener(new ReachableMethodListener<W>() {
 
                         @Override
@@ -335,7 +748,10 @@ public abstract class WeightedBoomerang<W extends Weight> {
                 if (options.trackStaticFieldAtEntryPointToClinit() && node.fact().isStatic()
                         && isFirstStatementOfEntryPoint(node.stmt())) {
                     StaticFieldVal val = (StaticFieldVal) node.fact();
-                    for (SootMethod m : val.field().getDeclaringClass().getMethods()) {
+                    Collection<SootMethod> initializers = getStaticFieldIndex() != null
+                            ? getStaticFieldIndex().getStaticInitializers(val.field())
+                            : val.field().getDeclaringClass().getMethods();
+                    for (SootMethod m : initializers) {
                         if (m.isStaticInitializer()) {
                             solver.addReachable(m);
                             for (Unit ep : icfg().getEndPointsOf(m)) {
@@ -395,7 +811,16 @@ public abstract class WeightedBoomerang<W extends Weight> {
     protected ForwardBoomerangSolver<W> createForwardSolver(final ForwardQuery sourceQuery) {
         final ForwardBoomerangSolver<W> solver = new ForwardBoomerangSolver<W>(icfg(), sourceQuery, genField, options,
                 createCallSummaries(sourceQuery, forwardCallSummaries),
-                createFieldSummaries(sourceQuery, forwardFieldSummaries)) {
+                createFieldSummaries(sourceQuery, forwardFieldSummaries), getFlowFunctionCache()) {
+
+            @Override
+            protected SparseValueFlowGraph getSparseValueFlowGraph() {
+                if (!options.sparseValueFlow())
+                    return null;
+                if (sparseValueFlowGraph == null)
+                    sparseValueFlowGraph = new SparseValueFlowGraph(icfg());
+                return sparseValueFlowGraph;
+            }
 
             @Override
             protected Collection<? extends State> getEmptyCalleeFlow(SootMethod caller, Stmt callSite, Val value,
@@ -403,6 +828,16 @@ public abstract class WeightedBoomerang<W extends Weight> {
                 return forwardEmptyCalleeFlow.getEmptyCalleeFlow(caller, callSite, value, returnSite);
             }
 
+            @Override
+            protected MethodSummary getSummary(SootMethod callee) {
+                return WeightedBoomerang.this.getSummary(callee);
+            }
+
+            @Override
+            protected StaticFieldIndex getStaticFieldIndex() {
+                return WeightedBoomerang.this.getStaticFieldIndex();
+            }
+
             @Override
             protected WeightFunctions<Statement, Val, Statement, W> getCallWeights() {
                 return WeightedBoomerang.this.getForwardCallWeights(sourceQuery);
@@ -423,7 +858,7 @@ public abstract class WeightedBoomerang<W extends Weight> {
 
             @Override
             protected void onManyStateListenerRegister() {
-                checkTimeout();
+                checkLimits();
             }
 
         };
@@ -606,7 +1041,7 @@ public abstract class WeightedBoomerang<W extends Weight> {
     public BackwardBoomerangResults<W> backwardSolveUnderScope(BackwardQuery backwardQuery, ForwardQuery forwardQuery,
             Node<Statement, Val> node) {
         scopedQueries.add(backwardQuery);
-        boolean timedout = false;
+        BoomerangTimeoutException abortReason = null;
         try {
             backwardSolve(backwardQuery);
             final AbstractBoomerangSolver<W> bwSolver = queryToSolvers.getOrCreate(backwardQuery);
@@ -635,11 +1070,18 @@ public abstract class WeightedBoomerang<W extends Weight> {
                 }
             });
         } catch (BoomerangTimeoutException e) {
-            timedout = true;
+            abortReason = e;
             cleanup();
+            logAbort(backwardQuery, e);
         }
 
-        return new BackwardBoomerangResults<W>(backwardQuery, timedout, this.queryToSolvers, getStats(), analysisWatch);
+        return new BackwardBoomerangResults<W>(backwardQuery, abortReason, this.queryToSolvers, getStats(),
+                analysisWatch);
+    }
+
+    private void logAbort(Query query, BoomerangTimeoutException e) {
+        logger.info("Aborted query {} after {}ms: {}", query, e.getElapsed(), e.getClass().getSimpleName());
+        logger.debug("Aborted query {}: {}", query, e);
     }
 
     private void cleanup() {
@@ -647,13 +1089,14 @@ public abstract class WeightedBoomerang<W extends Weight> {
             solver.cleanup();
         }
         this.poiListeners.clear();
+        this.executedPois.clear();
         this.unbalancedListeners.clear();
     }
 
     public BackwardBoomerangResults<W> backwardSolveUnderScope(BackwardQuery backwardQuery,
             IContextRequester requester) {
         scopedQueries.add(backwardQuery);
-        boolean timedout = false;
+        BoomerangTimeoutException abortReason = null;
         try {
             if (analysisWatch.isRunning()) {
                 analysisWatch.stop();
@@ -671,11 +1114,13 @@ public abstract class WeightedBoomerang<W extends Weight> {
                 analysisWatch.stop();
             }
         } catch (BoomerangTimeoutException e) {
-            timedout = true;
+            abortReason = e;
             cleanup();
+            logAbort(backwardQuery, e);
         }
 
-        return new BackwardBoomerangResults<W>(backwardQuery, timedout, this.queryToSolvers, getStats(), analysisWatch);
+        return new BackwardBoomerangResults<W>(backwardQuery, abortReason, this.queryToSolvers, getStats(),
+                analysisWatch);
     }
 
     private final class UnbalancedPopCallerListener implements CallerListener<Unit, SootMethod> {
@@ -1077,21 +1522,30 @@ public abstract class WeightedBoomerang<W extends Weight> {
         if (!analysisWatch.isRunning()) {
             analysisWatch.start();
         }
-        boolean timedout = false;
+        if (activeQueries == 0) {
+            evictStaleSolvers();
+            evictSolvers(query);
+            resetBudgets();
+        }
+        BoomerangTimeoutException abortReason = null;
+        activeQueries++;
         try {
             logger.debug("Starting forward analysis of: {}", query);
             forwardSolve(query);
             logger.debug("Terminated forward analysis of: {}", query);
         } catch (BoomerangTimeoutException e) {
-            timedout = true;
+            abortReason = e;
             cleanup();
-            logger.debug("Timeout of query: {}", query);
+            logAbort(query, e);
+        } finally {
+            activeQueries--;
         }
 
         if (analysisWatch.isRunning()) {
             analysisWatch.stop();
         }
-        return new ForwardBoomerangResults<W>(query, icfg(), timedout, this.queryToSolvers, getStats(), analysisWatch);
+        return new ForwardBoomerangResults<W>(query, icfg(), abortReason, this.queryToSolvers, getStats(),
+                analysisWatch);
     }
 
     public BackwardBoomerangResults<W> solve(BackwardQuery query) {
@@ -1100,24 +1554,286 @@ public abstract class WeightedBoomerang<W extends Weight> {
     }
 
     public BackwardBoomerangResults<W> solve(BackwardQuery query, boolean timing) {
+        BackwardQuery solvedQuery = normalize(query);
         if (timing && !analysisWatch.isRunning()) {
             analysisWatch.start();
         }
-        boolean timedout = false;
+        if (activeQueries == 0) {
+            evictStaleSolvers();
+            evictSolvers(solvedQuery);
+            resetBudgets();
+        }
+        BoomerangTimeoutException abortReason = null;
+        activeQueries++;
         try {
-            logger.debug("Starting backward analysis of: {}", query);
-            backwardSolve(query);
-            logger.debug("Terminated backward analysis of: {}", query);
+            logger.debug("Starting backward analysis of: {}", solvedQuery);
+            backwardSolve(solvedQuery);
+            logger.debug("Terminated backward analysis of: {}", solvedQuery);
         } catch (BoomerangTimeoutException e) {
-            timedout = true;
+            abortReason = e;
             cleanup();
-            logger.debug("Timeout of query: {}", query);
+            logAbort(solvedQuery, e);
+        } finally {
+            activeQueries--;
         }
         if (timing && analysisWatch.isRunning()) {
             analysisWatch.stop();
         }
 
-        return new BackwardBoomerangResults<W>(query, timedout, this.queryToSolvers, getStats(), analysisWatch);
+        return new BackwardBoomerangResults<W>(query, solvedQuery, abortReason != null, false, abortReason,
+                this.queryToSolvers, getStats(), analysisWatch);
+    }
+
+    /**
+     * Solves the query until an allocation site is found that satisfies the predicate, e.g., to decide whether a
+     * variable may point to an object of a given type. See {@link #solve(BackwardQuery, QueryObserver)} for the
+     * state of the solvers afterwards.
+     */
+    public BackwardBoomerangResults<W> solve(BackwardQuery query, final Predicate<ForwardQuery> stopWhen) {
+        return solve(query, new QueryObserver() {
+            @Override
+            public void onAllocationSite(ForwardQuery allocationSite) {
+                if (stopWhen.apply(allocationSite))
+                    cancel();
+            }
+        });
+    }
+
+    /**
+     * Solves the query and reports allocation sites, aliases at the query statement and the nodes reached by the
+     * backward solver to the observer as soon as they are found. When the observer cancels the query, the results
+     * contain what was found so far. The solvers the cancelled query created or extended are incomplete, they are
+     * evicted before the next query is solved, which invalidates the results.
+     */
+    public BackwardBoomerangResults<W> solve(BackwardQuery query, QueryObserver observer) {
+        BackwardQuery solvedQuery = normalize(query);
+        ObservingListener listener = new ObservingListener(solvedQuery, query.stmt(), observer);
+        Set<Query> cachedBefore = Sets.newHashSet(queryToSolvers.keySet());
+        try {
+            // Replays the existing solvers, the observer may already cancel here
+            registerSolverCreationListener(listener);
+            return solve(query);
+        } catch (QueryCancelledException e) {
+            stopCancelledQuery(solvedQuery, cachedBefore);
+            return new BackwardBoomerangResults<W>(query, solvedQuery, false, true, null, this.queryToSolvers,
+                    getStats(), analysisWatch);
+        } finally {
+            solverCreationListeners.remove(listener);
+            listener.detach();
+        }
+    }
+
+    /**
+     * Solves the query and reports the nodes reached by the forward solver to the observer as soon as they are
+     * found, see {@link #solve(BackwardQuery, QueryObserver)}.
+     */
+    public ForwardBoomerangResults<W> solve(ForwardQuery query, QueryObserver observer) {
+        ObservingListener listener = new ObservingListener(query, query.stmt(), observer);
+        Set<Query> cachedBefore = Sets.newHashSet(queryToSolvers.keySet());
+        try {
+            registerSolverCreationListener(listener);
+            return solve(query);
+        } catch (QueryCancelledException e) {
+            stopCancelledQuery(query, cachedBefore);
+            return new ForwardBoomerangResults<W>(query, icfg(), false, true, this.queryToSolvers, getStats(),
+                    analysisWatch);
+        } finally {
+            solverCreationListeners.remove(listener);
+            listener.detach();
+        }
+    }
+
+    /**
+     * Solves a query nested in the current query, e.g., to resolve the callees of a call site, within a budget of
+     * transitions. The budget is checked on every transition, like {@link BoomerangOptions#analysisTransitionBudget()}.
+     * A query exceeding it is aborted like a cancelled query: the solvers it created or extended are marked stale and
+     * are evicted before the next top-level query, and the enclosing query continues. Aborting unwinds the listeners
+     * of all solvers that propagate at that moment. If the query extended a solver that existed before it, that
+     * solver may have missed notifications the enclosing query depends on, hence the enclosing query is aborted with
+     * a {@link BoomerangBudgetExceededException} instead. A timeout or exceeded budget of the enclosing analysis
+     * aborts the enclosing query as well.
+     * 
+     * @return The results of the query, or null if it exceeded the budget.
+     */
+    public BackwardBoomerangResults<W> solveWithinBudget(BackwardQuery query, long transitionBudget) {
+        BackwardQuery solvedQuery = normalize(query);
+        Set<Query> cachedBefore = Sets.newHashSet(queryToSolvers.keySet());
+        long enclosingLimit = nestedTransitionLimit;
+        Set<Query> enclosingSolversBefore = solversBeforeNestedQuery;
+        Set<Query> enclosingExtended = extendedByNestedQuery;
+        long transitionsBefore = transitions;
+        nestedTransitionLimit = enclosingLimit < 0 ? transitionsBefore + transitionBudget
+                : Math.min(enclosingLimit, transitionsBefore + transitionBudget);
+        solversBeforeNestedQuery = cachedBefore;
+        extendedByNestedQuery = Sets.newHashSet();
+        try {
+            BackwardBoomerangResults<W> results = solve(query, false);
+            if (results.getAbortReason() != null)
+                throw results.getAbortReason();
+            return results;
+        } catch (NestedBudgetExceededException e) {
+            logger.debug("Query {} exceeded its budget of {} transitions", solvedQuery, transitionBudget);
+            markStale(solvedQuery, cachedBefore);
+            if (!extendedByNestedQuery.isEmpty()) {
+                logger.debug("Query {} extended the solvers {} of the enclosing query", solvedQuery,
+                        extendedByNestedQuery);
+                throw budgetExceeded("transitions of a nested query", transitions - transitionsBefore,
+                        transitionBudget);
+            }
+            // The budget of an enclosing query may be exceeded as well
+            if (enclosingLimit >= 0 && transitions > enclosingLimit)
+                throw e;
+            return null;
+        } finally {
+            nestedTransitionLimit = enclosingLimit;
+            // Solvers the enclosing nested query depends on were extended by this query as well
+            if (enclosingExtended != null) {
+                for (Query q : extendedByNestedQuery) {
+                    if (enclosingSolversBefore.contains(q))
+                        enclosingExtended.add(q);
+                }
+            }
+            solversBeforeNestedQuery = enclosingSolversBefore;
+            extendedByNestedQuery = enclosingExtended;
+        }
+    }
+
+    /**
+     * Marks the solvers of the cancelled query stale, see {@link #markStale(Query, Set)}.
+     */
+    private void stopCancelledQuery(Query query, Set<Query> cachedBefore) {
+        logger.debug("Cancelled query: {}", query);
+        markStale(query, cachedBefore);
+        if (analysisWatch.isRunning()) {
+            analysisWatch.stop();
+        }
+    }
+
+    /**
+     * Marks the solvers of an aborted query stale. These are the solvers created while it was solved and the
+     * solvers that exchanged data-flows with them or with the solver of the query.
+     */
+    private void markStale(Query query, Set<Query> cachedBefore) {
+        List<Query> touched = Lists.newArrayList();
+        touched.add(query);
+        for (Query q : queryToSolvers.keySet()) {
+            if (!cachedBefore.contains(q))
+                touched.add(q);
+        }
+        for (Query q : dependencyGroupOf(touched)) {
+            if (queryToSolvers.containsKey(q))
+                staleSolvers.add(q);
+        }
+    }
+
+    private class ObservingListener implements SolverCreationListener<W> {
+        private final Query query;
+        // The statement of the query of the caller, at which aliases are reported
+        private final Statement aliasStmt;
+        private final QueryObserver observer;
+        private final Set<AccessPath> aliases = new HashSet<AccessPath>() {
+            @Override
+            public boolean add(AccessPath alias) {
+                if (!super.add(alias))
+                    return false;
+                if (active) {
+                    observer.onAlias(alias);
+                    checkCancelled();
+                }
+                return true;
+            }
+        };
+        private boolean active = true;
+        // Removes the listeners registered at the solvers once the query is finished
+        private final List<Runnable> detachers = Lists.newArrayList();
+
+        public ObservingListener(Query query, Statement aliasStmt, QueryObserver observer) {
+            this.query = query;
+            this.aliasStmt = aliasStmt;
+            this.observer = observer;
+        }
+
+        private void detach() {
+            active = false;
+            for (Runnable detacher : detachers) {
+                detacher.run();
+            }
+            detachers.clear();
+        }
+
+        private void checkCancelled() {
+            if (active && observer.isCancelled())
+                throw new QueryCancelledException();
+        }
+
+        @Override
+        public void onCreatedSolver(Query key, final AbstractBoomerangSolver<W> solver) {
+            if (key.equals(query)) {
+                final SyncPDSUpdateListener<Statement, Val> nodeListener = new SyncPDSUpdateListener<Statement, Val>() {
+                    @Override
+                    public void onReachableNodeAdded(Node<Statement, Val> node) {
+                        if (active) {
+                            observer.onReachedNode(node);
+                            checkCancelled();
+                        }
+                    }
+                };
+                detachers.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        solver.unregisterListener(nodeListener);
+                    }
+                });
+                solver.registerListener(nodeListener);
+            }
+            if (!(query instanceof BackwardQuery) || !(key instanceof ForwardQuery))
+                return;
+            final ExtractAllocationSiteStateListener<W> allocationListener = new ExtractAllocationSiteStateListener<W>(
+                    solver.getFieldAutomaton().getInitialState(), (BackwardQuery) query, (ForwardQuery) key) {
+
+                @Override
+                protected void allocationSiteFound(ForwardQuery allocationSite, BackwardQuery query) {
+                    if (!active)
+                        return;
+                    observer.onAllocationSite(allocationSite);
+                    checkCancelled();
+                    final ExtractAllAliasListener<W> aliasListener = new ExtractAllAliasListener<W>(solver, aliases,
+                            aliasStmt) {
+                        @Override
+                        public int hashCode() {
+                            // Otherwise we cannot register this listener twice.
+                            return System.identityHashCode(this);
+                        }
+
+                        @Override
+                        public boolean equals(Object obj) {
+                            // Otherwise we cannot register this listener twice.
+                            return this == obj;
+                        }
+                    };
+                    detachers.add(new Runnable() {
+                        @Override
+                        public void run() {
+                            aliasListener.detach();
+                        }
+                    });
+                    solver.registerListener(aliasListener);
+                }
+            };
+            detachers.add(new Runnable() {
+                @Override
+                public void run() {
+                    solver.getFieldAutomaton().unregisterListener(allocationListener);
+                }
+            });
+            solver.getFieldAutomaton().registerListener(allocationListener);
+        }
+    }
+
+    private static class QueryCancelledException extends RuntimeException {
+    }
+
+    private static class NestedBudgetExceededException extends RuntimeException {
     }
 
     protected void backwardSolve(BackwardQuery query) {
@@ -1238,8 +1954,8 @@ public abstract class WeightedBoomerang<W extends Weight> {
                         activateAllPois(new SolverPair(flowSolver, baseSolver), start);
                     };
                 };
-                registerActivationListener(new SolverPair(flowSolver, baseSolver), exec);
-                exec.solve();
+                if (registerActivationListener(new SolverPair(flowSolver, baseSolver), exec))
+                    exec.solve();
             }
         }
 
@@ -1266,8 +1982,8 @@ public abstract class WeightedBoomerang<W extends Weight> {
                             activateAllPois(new SolverPair(flowSolver, baseSolver), start);
                         };
                     };
-                    registerActivationListener(new SolverPair(flowSolver, baseSolver), exec);
-                    exec.solve();
+                    if (registerActivationListener(new SolverPair(flowSolver, baseSolver), exec))
+                        exec.solve();
                 }
             }
         }
@@ -1276,20 +1992,38 @@ public abstract class WeightedBoomerang<W extends Weight> {
 
     protected void activateAllPois(SolverPair pair, INode<Node<Statement, Val>> start) {
         if (activatedPoi.put(pair, start)) {
-            Collection<ExecuteImportFieldStmtPOI<W>> listeners = poiListeners.get(pair);
-            for (ExecuteImportFieldStmtPOI<W> l : Lists.newArrayList(listeners)) {
-                l.trigger(start);
+            for (Map<Node<Statement, Val>, ExecuteImportFieldStmtPOI<W>> listeners : Lists
+                    .newArrayList(poiListeners.row(pair).values())) {
+                for (ExecuteImportFieldStmtPOI<W> l : Lists.newArrayList(listeners.values())) {
+                    l.trigger(start);
+                }
             }
         }
     }
 
-    public void registerActivationListener(WeightedBoomerang<W>.SolverPair solverPair,
+    /**
+     * Registers the POI to be triggered by all activations of the solver pair. A POI is only triggered if no other
+     * POI of the pair imports the same transitions, i.e., has the same field and base variable at the successor.
+     *
+     * @return false if an equal POI is already registered, it must not be solved again.
+     */
+    public boolean registerActivationListener(WeightedBoomerang<W>.SolverPair solverPair,
             ExecuteImportFieldStmtPOI<W> exec) {
-        Collection<INode<Node<Statement, Val>>> listeners = activatedPoi.get(solverPair);
-        for (INode<Node<Statement, Val>> node : Lists.newArrayList(listeners)) {
+        if (!executedPois.add(exec))
+            return false;
+        Map<Node<Statement, Val>, ExecuteImportFieldStmtPOI<W>> listeners = poiListeners.get(solverPair,
+                exec.getField());
+        if (listeners == null) {
+            listeners = Maps.newHashMap();
+            poiListeners.put(solverPair, exec.getField(), listeners);
+        }
+        if (listeners.containsKey(exec.getBaseAtSuccessor()))
+            return true;
+        listeners.put(exec.getBaseAtSuccessor(), exec);
+        for (INode<Node<Statement, Val>> node : Lists.newArrayList(activatedPoi.get(solverPair))) {
             exec.trigger(node);
         }
-        poiListeners.put(solverPair, exec);
+        return true;
     }
 
     private class SolverPair {
@@ -1336,6 +2070,10 @@ public abstract class WeightedBoomerang<W extends Weight> {
             return true;
         }
 
+        private boolean contains(AbstractBoomerangSolver<W> solver) {
+            return solver.equals(flowSolver) || solver.equals(baseSolver);
+        }
+
         private WeightedBoomerang getOuterType() {
             return WeightedBoomerang.this;
         }
@@ -1383,6 +2121,13 @@ public abstract class WeightedBoomerang<W extends Weight> {
         return stats;
     }
 
+    /**
+     * @return The number of transitions added to the automata of all solvers since this instance was created.
+     */
+    public long getNumberOfTransitions() {
+        return transitions;
+    }
+
     public void onCreateSubSolver(Query key, AbstractBoomerangSolver<W> solver) {
         for (SolverCreationListener<W> l : solverCreationListeners) {
             l.onCreatedSolver(key, solver);
@@ -13,6 +13,9 @@ package boomerang;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+
+import com.google.common.collect.Lists;
 
 import boomerang.callgraph.BoomerangICFG;
 import boomerang.callgraph.ObservableICFG;
@@ -21,6 +24,8 @@ import boomerang.jimple.AllocVal;
 import boomerang.jimple.Statement;
 import boomerang.jimple.Val;
 import boomerang.results.BackwardBoomerangResults;
+import boomerang.results.ForwardBoomerangResults;
+import boomerang.seedfactory.QueryCostEstimator;
 import boomerang.seedfactory.SeedFactory;
 import soot.SootMethod;
 import soot.Unit;
@@ -34,6 +39,7 @@ public abstract class WholeProgramBoomerang<W extends Weight> extends WeightedBo
     private int reachableMethodCount;
     private int allocationSites;
     private SeedFactory<W> seedFactory;
+    private QueryCostEstimator costEstimator;
 
     public WholeProgramBoomerang(BoomerangOptions opts) {
         super(opts);
@@ -50,13 +56,9 @@ public abstract class WholeProgramBoomerang<W extends Weight> extends WeightedBo
 
                 @Override
                 protected Collection<? extends Query> generate(SootMethod method, Stmt u) {
-                    if (u instanceof AssignStmt) {
-                        AssignStmt assignStmt = (AssignStmt) u;
-                        if (options.isAllocationVal(assignStmt.getRightOp())) {
-                            return Collections.singleton(
-                                    new ForwardQuery(new Statement(u, method), new AllocVal(assignStmt.getLeftOp(),
-                                            method, assignStmt.getRightOp(), new Statement((Stmt) u, method))));
-                        }
+                    ForwardQuery seed = createSeed(method, u);
+                    if (seed != null) {
+                        return Collections.singleton(seed);
                     }
                     return Collections.emptySet();
                 }
@@ -70,11 +72,22 @@ public abstract class WholeProgramBoomerang<W extends Weight> extends WeightedBo
         return seedFactory;
     }
 
+    /**
+     * @return The estimator of the costs of the seeds. It knows the costs, in transitions, of all seeds solved by
+     *         {@link #wholeProgramAnalysis()} and {@link #reanalyze(Collection)}.
+     */
+    public QueryCostEstimator getQueryCostEstimator() {
+        if (costEstimator == null)
+            costEstimator = new QueryCostEstimator(getSeedFactory());
+        return costEstimator;
+    }
+
     public void wholeProgramAnalysis() {
         long before = System.currentTimeMillis();
 
-        for (Query s : getSeedFactory().computeSeeds()) {
-            solve((ForwardQuery) s);
+        Collection<Query> seeds = getSeedFactory().computeSeeds();
+        for (Query s : schedule(seeds)) {
+            solveAndRecordCost((ForwardQuery) s);
         }
 
         long after = System.currentTimeMillis();
@@ -85,6 +98,55 @@ public abstract class WholeProgramBoomerang<W extends Weight> extends WeightedBo
         System.out.println(options.statsFactory());
     }
 
+    /**
+     * Re-analyzes the program after the bodies of the methods changed. Only the seeds whose solvers depend on the
+     * changed methods are solved again, see {@link #invalidate(Collection)}, plus the allocation sites within the
+     * changed methods.
+     */
+    public void reanalyze(Collection<SootMethod> changedMethods) {
+        List<ForwardQuery> invalidated = Lists.newArrayList();
+        for (Query q : invalidate(changedMethods)) {
+            if (q instanceof ForwardQuery && !changedMethods.contains(q.stmt().getMethod()))
+                invalidated.add((ForwardQuery) q);
+        }
+        for (ForwardQuery q : schedule(invalidated)) {
+            solveAndRecordCost(q);
+        }
+        for (SootMethod m : changedMethods) {
+            if (!m.hasActiveBody())
+                continue;
+            for (Unit u : m.getActiveBody().getUnits()) {
+                ForwardQuery seed = createSeed(m, u);
+                if (seed != null)
+                    solveAndRecordCost(seed);
+            }
+        }
+    }
+
+    private <Q extends Query> Collection<Q> schedule(Collection<Q> seeds) {
+        if (!options.cheapQueriesFirst())
+            return seeds;
+        return getQueryCostEstimator().order(seeds);
+    }
+
+    private ForwardBoomerangResults<W> solveAndRecordCost(ForwardQuery seed) {
+        long transitionsBefore = getNumberOfTransitions();
+        ForwardBoomerangResults<W> res = solve(seed);
+        getQueryCostEstimator().record(seed, getNumberOfTransitions() - transitionsBefore);
+        return res;
+    }
+
+    private ForwardQuery createSeed(SootMethod method, Unit u) {
+        if (u instanceof AssignStmt) {
+            AssignStmt assignStmt = (AssignStmt) u;
+            if (options.isAllocationVal(assignStmt.getRightOp())) {
+                return new ForwardQuery(new Statement((Stmt) u, method), new AllocVal(assignStmt.getLeftOp(), method,
+                        assignStmt.getRightOp(), new Statement((Stmt) u, method)));
+            }
+        }
+        return null;
+    }
+
     @Override
     protected void backwardSolve(BackwardQuery query) {
     }
@@ -86,6 +86,11 @@ public class BackwardsObservableICFG implements ObservableICFG<Unit, SootMethod>
         return this.delegate.isReachable(u);
     }
 
+    @Override
+    public boolean isReachable(Unit u, SootMethod m) {
+        return this.delegate.isReachable(u, m);
+    }
+
     @Override
     public CallGraph getCallGraphCopy() {
         return delegate.getCallGraphCopy();
@@ -122,4 +127,9 @@ public class BackwardsObservableICFG implements ObservableICFG<Unit, SootMethod>
         delegate.resetCallGraph();
     }
 
+    @Override
+    public void invalidate(Collection<SootMethod> changedMethods) {
+        delegate.invalidate(changedMethods);
+    }
+
 }
@@ -1,5 +1,6 @@
 package boomerang.callgraph;
 
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -8,6 +9,7 @@ import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
 import org.slf4j.Logger;
@@ -160,6 +162,12 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
     private CallGraph precomputedCallGraph;
     private WeightedBoomerang<? extends Weight> solver;
     private Set<SootMethod> unbalancedMethods = Sets.newHashSet();
+    // Per call site, the transitions added while resolving its callees
+    private Map<Unit, Long> resolutionCosts = new HashMap<>();
+    // Per query for the base of a call site, the transitions added when it was solved first
+    private Map<BackwardQuery, Long> queryCosts = new HashMap<>();
+    private Set<BackwardQuery> queriesExceedingBudget = Sets.newHashSet();
+    private Set<Unit> precomputedCallSites = Sets.newHashSet();
 
     private Multimap<Unit, CalleeListener<Unit, SootMethod>> calleeListeners = HashMultimap.create();
     private Multimap<SootMethod, CallerListener<Unit, SootMethod>> callerListeners = HashMultimap.create();
@@ -169,6 +177,9 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
     @DontSynchronize("written by single thread; read afterwards")
     private final Map<Unit, Body> unitToOwner = new HashMap<>();
 
+    @DontSynchronize("written by single thread; read afterwards")
+    private final BitSet reachableMethods = new BitSet();
+
     @SynchronizedBy("by use of synchronized LoadingCache class")
     private final LoadingCache<Body, DirectedGraph<Unit>> bodyToUnitGraph = IDESolver.DEFAULT_CACHE_BUILDER
             .build(new CacheLoader<Body, DirectedGraph<Unit>>() {
@@ -299,19 +310,45 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
     }
 
     private void queryForCallees(Unit unit) {
+        if (precomputedCallSites.contains(unit))
+            return;
         // Construct BackwardQuery, so we know which types the object might have
         logger.debug("Queried for callees of '{}'.", unit);
         Stmt stmt = (Stmt) unit;
         InvokeExpr invokeExpr = stmt.getInvokeExpr();
         Value value = ((InstanceInvokeExpr) invokeExpr).getBase();
         Val val = new Val(value, getMethodOf(stmt));
+        // Predecessors without a redefinition of the base in between share a single query
+        Set<BackwardQuery> queries = Sets.newLinkedHashSet();
         for (Unit pred : getPredsOf(stmt)) {
             Statement statement = new Statement((Stmt) pred, getMethodOf(unit));
-
-            BackwardQuery query = new BackwardQuery(statement, val);
-
+            queries.add(solver.normalize(new BackwardQuery(statement, val)));
+        }
+        long budget = solver.getOptions().callSiteResolutionBudget();
+        Long costBefore = resolutionCosts.get(unit);
+        long cost = costBefore == null ? 0 : costBefore;
+        for (BackwardQuery query : queries) {
+            // A query solved for another call site costs what it cost when it was solved
+            Long queryCost = queryCosts.get(query);
+            if (budget >= 0 && (queriesExceedingBudget.contains(query)
+                    || (queryCost != null && cost + queryCost > budget))) {
+                cost = budget + 1;
+                break;
+            }
             // Execute that query
-            solver.solve(query, false);
+            long transitionsBefore = solver.getNumberOfTransitions();
+            if (budget < 0) {
+                solver.solve(query, false);
+            } else if (solver.solveWithinBudget(query, budget - cost) == null) {
+                queriesExceedingBudget.add(query);
+                cost = budget + 1;
+                break;
+            }
+            if (queryCost == null) {
+                queryCost = solver.getNumberOfTransitions() - transitionsBefore;
+                queryCosts.put(query, queryCost);
+            }
+            cost += queryCost;
             forAnyAllocationSiteOfQuery(query, invokeExpr, stmt);
             
             // Go through possible types an add edges to implementations in possible types
@@ -331,6 +368,28 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
 //                }
 //            }
         }
+        if (budget < 0)
+            return;
+        resolutionCosts.put(unit, cost);
+        if (cost > budget)
+            fallBackOnPrecomputed(unit, cost);
+    }
+
+    /**
+     * Adds all edges of the precomputed call graph out of the call site, which is not queried for callees anymore.
+     */
+    private void fallBackOnPrecomputed(Unit unit, long cost) {
+        if (precomputedCallGraph == null || !precomputedCallSites.add(unit))
+            return;
+        logger.debug("Resolving callees of '{}' cost {} transitions, taking them from the precomputed call graph.",
+                unit, cost);
+        solver.getStats().registerCallGraphFallback(new Statement((Stmt) unit, getMethodOf(unit)), cost);
+        Iterator<Edge> precomputedCallees = precomputedCallGraph.edgesOutOf(unit);
+        while (precomputedCallees.hasNext()) {
+            Edge edge = precomputedCallees.next();
+            if (addCallIfNotInGraph(unit, edge.tgt(), edge.kind()))
+                numberOfEdgesTakenFromPrecomputedCallGraph++;
+        }
     }
 
     
@@ -533,6 +592,14 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
         return unitToOwner.containsKey(u);
     }
 
+    @Override
+    public boolean isReachable(Unit u, SootMethod m) {
+        // Methods added to the scene after it was numbered have no number
+        if (m.getNumber() == 0)
+            return isReachable(u);
+        return reachableMethods.get(m.getNumber());
+    }
+
     private void initializeUnitToOwner() {
         for (Iterator<MethodOrMethodContext> iter = Scene.v().getReachableMethods().listener(); iter.hasNext();) {
             SootMethod m = iter.next().method();
@@ -542,6 +609,7 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
                 for (Unit unit : units) {
                     unitToOwner.put(unit, b);
                 }
+                reachableMethods.set(m.getNumber());
             }
         }
     }
@@ -575,8 +643,58 @@ public class ObservableDynamicICFG implements ObservableICFG<Unit, SootMethod> {
         demandDrivenCallGraph = new CallGraph();
         numberOfEdgesTakenFromPrecomputedCallGraph = 0;
         unbalancedMethods.clear();
+        resolutionCosts.clear();
+        queryCosts.clear();
+        queriesExceedingBudget.clear();
+        precomputedCallSites.clear();
         calleeListeners.clear();
         callerListeners.clear();
     }
 
+    /**
+     * {@inheritDoc} The precomputed call graph is not updated, hence calls of the new bodies are resolved demand-driven
+     * only.
+     */
+    @Override
+    public void invalidate(Collection<SootMethod> changedMethods) {
+        Set<Body> oldBodies = Sets.newHashSet();
+        for (Iterator<Entry<Unit, Body>> iter = unitToOwner.entrySet().iterator(); iter.hasNext();) {
+            Entry<Unit, Body> e = iter.next();
+            if (!changedMethods.contains(e.getValue().getMethod()))
+                continue;
+            Unit unit = e.getKey();
+            for (Edge edge : Lists.newArrayList(demandDrivenCallGraph.edgesOutOf(unit))) {
+                demandDrivenCallGraph.removeEdge(edge);
+            }
+            resolutionCosts.remove(unit);
+            precomputedCallSites.remove(unit);
+            calleeListeners.removeAll(unit);
+            oldBodies.add(e.getValue());
+            iter.remove();
+        }
+        bodyToUnitGraph.invalidateAll(oldBodies);
+        for (Iterator<BackwardQuery> iter = queryCosts.keySet().iterator(); iter.hasNext();) {
+            if (changedMethods.contains(iter.next().stmt().getMethod()))
+                iter.remove();
+        }
+        for (Iterator<BackwardQuery> iter = queriesExceedingBudget.iterator(); iter.hasNext();) {
+            if (changedMethods.contains(iter.next().stmt().getMethod()))
+                iter.remove();
+        }
+        methodToParameterRefs.invalidateAll(changedMethods);
+        methodToCallsFromWithin.invalidateAll(changedMethods);
+        // The methods owning the old bodies were reachable, the new bodies replace them
+        for (Body oldBody : oldBodies) {
+            SootMethod m = oldBody.getMethod();
+            if (!m.hasActiveBody()) {
+                reachableMethods.clear(m.getNumber());
+                continue;
+            }
+            Body b = m.getActiveBody();
+            for (Unit unit : b.getUnits()) {
+                unitToOwner.put(unit, b);
+            }
+        }
+    }
+
 }
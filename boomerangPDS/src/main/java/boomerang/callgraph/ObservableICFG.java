@@ -108,6 +108,18 @@ public interface ObservableICFG<N, M> {
      */
     boolean isReachable(N u);
 
+    /**
+     * Checks whether the given statement of the given method is reachable from the entry point. Equivalent to
+     * {@link #isReachable(Object)}, but answered by a single bit test on the number of the method, as a statement is
+     * reachable if and only if its method is.
+     * 
+     * @param u
+     *            The statement to check
+     * @param m
+     *            The method containing the statement
+     */
+    boolean isReachable(N u, M m);
+
     CallGraph getCallGraphCopy();
 
     boolean isUnbalancedMethod(SootMethod method);
@@ -123,4 +135,15 @@ public interface ObservableICFG<N, M> {
      */
     void resetCallGraph();
 
+    /**
+     * Drops the information cached for the changed methods, which are expected to have new active bodies: the owners
+     * and control-flow graphs of their statements, their reachability and the call edges out of their old
+     * statements. The calls of the new bodies are resolved again.
+     * 
+     * @throws UnsupportedOperationException
+     *             if the ICFG is based on a precomputed call graph, which cannot be updated. The call graph, the ICFG
+     *             and the solvers using it then have to be rebuilt.
+     */
+    void invalidate(Collection<M> changedMethods);
+
 }
@@ -1,5 +1,6 @@
 package boomerang.callgraph;
 
+import soot.MethodOrMethodContext;
 import soot.Scene;
 import soot.SootMethod;
 import soot.Unit;
@@ -9,8 +10,10 @@ import soot.jimple.toolkits.callgraph.CallGraph;
 import soot.jimple.toolkits.callgraph.Edge;
 import soot.jimple.toolkits.ide.icfg.BiDiInterproceduralCFG;
 
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import com.google.common.collect.Sets;
@@ -28,10 +31,22 @@ public class ObservableStaticICFG implements ObservableICFG<Unit, SootMethod> {
      * Wrapped static ICFG. If available, this is used to handle all queries.
      */
     private BoomerangICFG precomputedGraph;
-    private Set<SootMethod> unbalancedMethods = Sets.newHashSet();
+    /**
+     * Written by all solvers sharing this ICFG, which may run concurrently (see {@link boomerang.ParallelBoomerang}).
+     */
+    private final Set<SootMethod> unbalancedMethods = Sets.newConcurrentHashSet();
+    /**
+     * The numbers of the methods with reachable statements, see {@link #isReachable(Unit, SootMethod)}.
+     */
+    private final BitSet reachableMethods = new BitSet();
 
     public ObservableStaticICFG(BoomerangICFG icfg) {
         this.precomputedGraph = icfg;
+        for (Iterator<MethodOrMethodContext> iter = Scene.v().getReachableMethods().listener(); iter.hasNext();) {
+            SootMethod m = iter.next().method();
+            if (m.hasActiveBody())
+                reachableMethods.set(m.getNumber());
+        }
     }
 
     @Override
@@ -121,6 +136,14 @@ public class ObservableStaticICFG implements ObservableICFG<Unit, SootMethod> {
         return precomputedGraph.isReachable(u);
     }
 
+    @Override
+    public boolean isReachable(Unit u, SootMethod m) {
+        // Methods added to the scene after it was numbered have no number
+        if (m.getNumber() == 0)
+            return isReachable(u);
+        return reachableMethods.get(m.getNumber());
+    }
+
     public CallGraph getCallGraphCopy() {
         CallGraph copy = new CallGraph();
         HashSet<SootMethod> visited = new HashSet<>();
@@ -166,4 +189,10 @@ public class ObservableStaticICFG implements ObservableICFG<Unit, SootMethod> {
     public void resetCallGraph() {
         // Static call graph does not need to be reset, ignore this
     }
+
+    @Override
+    public void invalidate(Collection<SootMethod> changedMethods) {
+        throw new UnsupportedOperationException(
+                "The precomputed call graph cannot be updated, it has to be rebuilt together with the ICFG");
+    }
 }
@@ -0,0 +1,538 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.daemon;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import boomerang.BackwardQuery;
+import boomerang.Boomerang;
+import boomerang.DefaultBoomerangOptions;
+import boomerang.ForwardQuery;
+import boomerang.QueryObserver;
+import boomerang.callgraph.BoomerangICFG;
+import boomerang.callgraph.ObservableICFG;
+import boomerang.callgraph.ObservableStaticICFG;
+import boomerang.jimple.AllocVal;
+import boomerang.jimple.Statement;
+import boomerang.jimple.Val;
+import boomerang.preanalysis.BoomerangPretransformer;
+import boomerang.results.BackwardBoomerangResults;
+import boomerang.results.ForwardBoomerangResults;
+import boomerang.seedfactory.SeedFactory;
+import soot.Body;
+import soot.G;
+import soot.Local;
+import soot.PackManager;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.AssignStmt;
+import soot.jimple.Stmt;
+import soot.options.Options;
+import wpds.impl.Weight.NoWeight;
+
+/**
+ * Answers queries against a Soot scene that is loaded once. The scene, its call graph and a Boomerang solver with
+ * its solvers, caches and summaries are kept between requests, hence only the first query pays for their
+ * construction. Requests and responses are JSON objects, one per line, read from stdin and written to stdout, or
+ * exchanged over TCP connections on the loopback interface. The first line of a TCP connection must be
+ * <code>{"token": "..."}</code> with the token of the daemon, as any local user can connect to the port. For
+ * example:
+ *
+ * <pre>
+ * {"id": 1, "type": "backward", "method": "&lt;a.B: void m()&gt;", "statement": 4, "variable": "r1", "timeoutMs": 5000}
+ * {"id": 1, "status": "ok", "allocationSites": [{"method": "&lt;a.B: void m()&gt;", "statement": "r1 = new a.C", "type": "a.C"}]}
+ * </pre>
+ *
+ * The type is one of <code>backward</code> (allocation sites of the variable), <code>forward</code> (methods
+ * invoked on the object allocated at the statement), <code>alias</code> (whether the variable and the variable
+ * named <code>other</code> may point to the same object) and <code>shutdown</code>. The statement is given by its
+ * index in the body of the method or by its Jimple representation. The status of a response is <code>ok</code>,
+ * <code>timeout</code> or <code>error</code>, the latter with a <code>message</code>. A query that times out is
+ * cancelled, the solvers it left incomplete are evicted before the next query and the other solvers are kept. After
+ * an error, the solver is replaced by a fresh one, the scene and the call graph are kept. Requests of concurrent
+ * connections are answered one after the other, as they share the solver.
+ */
+public class BoomerangDaemon {
+
+    private static final Logger logger = LoggerFactory.getLogger(BoomerangDaemon.class);
+    private static final String USAGE = "Usage: BoomerangDaemon --cp <classpath> --main <class> "
+            + "[--port <port> --token-file <file>] [--timeout <ms>] [--summaries <file>]";
+    private static final int MAX_CONNECTIONS = 8;
+    private static final int IDLE_CONNECTION_TIMEOUT_MS = 5 * 60 * 1000;
+
+    private final ObservableICFG<Unit, SootMethod> icfg;
+    private final DaemonOptions options;
+    private final int defaultTimeoutMS;
+    private Boomerang solver;
+    private volatile boolean shutdown;
+    private volatile ServerSocket server;
+
+    /**
+     * Must be constructed after the scene is set up, see {@link #setupScene(String, String)}.
+     */
+    public BoomerangDaemon(int defaultTimeoutMS, String librarySummaryFile) {
+        this.icfg = new ObservableStaticICFG(new BoomerangICFG(false));
+        this.options = new DaemonOptions(librarySummaryFile);
+        this.defaultTimeoutMS = defaultTimeoutMS;
+    }
+
+    public static void main(String... args) throws IOException {
+        String classPath = null;
+        String mainClass = null;
+        String summaries = null;
+        String tokenFile = null;
+        int port = -1;
+        int timeout = 60000;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (i + 1 >= args.length)
+                    throw new IllegalArgumentException("Missing value of " + arg);
+                String value = args[++i];
+                if (arg.equals("--cp")) {
+                    classPath = value;
+                } else if (arg.equals("--main")) {
+                    mainClass = value;
+                } else if (arg.equals("--port")) {
+                    port = Integer.parseInt(value);
+                } else if (arg.equals("--timeout")) {
+                    timeout = Integer.parseInt(value);
+                } else if (arg.equals("--summaries")) {
+                    summaries = value;
+                } else if (arg.equals("--token-file")) {
+                    tokenFile = value;
+                } else {
+                    throw new IllegalArgumentException("Unknown argument " + arg);
+                }
+            }
+            if (classPath == null || mainClass == null)
+                throw new IllegalArgumentException("Missing class path or main class");
+            if (port >= 0 && tokenFile == null)
+                throw new IllegalArgumentException("Listening on a port requires a token file");
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        // Only responses are written to stdout, any other output of the analysis goes to stderr
+        PrintStream protocolOut = System.out;
+        System.setOut(System.err);
+        setupScene(classPath, mainClass);
+        BoomerangDaemon daemon = new BoomerangDaemon(timeout, summaries);
+        if (port < 0) {
+            daemon.serve(new InputStreamReader(System.in, StandardCharsets.UTF_8),
+                    new OutputStreamWriter(protocolOut, StandardCharsets.UTF_8));
+        } else {
+            // The token is not passed on the command line, which other local users can see
+            List<String> token = Files.readAllLines(new File(tokenFile).toPath(), StandardCharsets.UTF_8);
+            if (token.isEmpty() || token.get(0).trim().isEmpty())
+                throw new IOException("No token in " + tokenFile);
+            daemon.listen(port, token.get(0).trim());
+        }
+    }
+
+    /**
+     * Loads the scene with the main class as entry point, builds the call graph and applies the
+     * {@link BoomerangPretransformer}.
+     */
+    public static void setupScene(String classPath, String mainClass) {
+        G.v().reset();
+        G.v().out = System.err;
+        Options.v().set_whole_program(true);
+        Options.v().setPhaseOption("cg.spark", "on");
+        Options.v().set_output_format(Options.output_format_none);
+        Options.v().set_no_bodies_for_excluded(true);
+        Options.v().set_allow_phantom_refs(true);
+
+        List<String> includeList = new LinkedList<String>();
+        includeList.add("java.lang.*");
+        includeList.add("java.util.*");
+        includeList.add("java.io.*");
+        includeList.add("sun.misc.*");
+        includeList.add("java.net.*");
+        includeList.add("javax.servlet.*");
+        includeList.add("javax.crypto.*");
+
+        Options.v().set_include(includeList);
+        Options.v().setPhaseOption("jb", "use-original-names:true");
+
+        Options.v().set_soot_classpath(classPath);
+        Options.v().set_prepend_classpath(true);
+        Options.v().set_main_class(mainClass);
+        Scene.v().loadNecessaryClasses();
+        SootClass c = Scene.v().forceResolve(mainClass, SootClass.BODIES);
+        c.setApplicationClass();
+        Scene.v().setMainClass(c);
+        logger.info("Building call graph starting at {}", mainClass);
+        PackManager.v().getPack("cg").apply();
+        BoomerangPretransformer.v().apply();
+    }
+
+    /**
+     * Answers the requests read line by line until the input ends or a <code>shutdown</code> request is received.
+     */
+    public void serve(Reader in, Writer out) throws IOException {
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        String line;
+        while (!shutdown && (line = reader.readLine()) != null) {
+            if (line.trim().isEmpty())
+                continue;
+            respond(out, handle(line));
+        }
+    }
+
+    /**
+     * Serves a bounded number of connections on the loopback interface concurrently until a <code>shutdown</code>
+     * request is received. Connections that do not authenticate with the token first are closed, as are
+     * connections idle for five minutes, so that a client cannot block the others.
+     */
+    public void listen(int port, final String token) throws IOException {
+        if (token == null || token.isEmpty())
+            throw new IllegalArgumentException("Listening on a port requires a token");
+        ExecutorService connections = Executors.newFixedThreadPool(MAX_CONNECTIONS);
+        try (ServerSocket server = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+            this.server = server;
+            logger.info("Listening on {}", server.getLocalSocketAddress());
+            while (!shutdown) {
+                final Socket client;
+                try {
+                    client = server.accept();
+                } catch (SocketException e) {
+                    // A shutdown request closes the server socket to stop accepting
+                    if (shutdown)
+                        break;
+                    throw e;
+                }
+                connections.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        serve(client, token);
+                    }
+                });
+            }
+        } finally {
+            server = null;
+            connections.shutdownNow();
+        }
+    }
+
+    private void serve(Socket client, String token) {
+        try (Socket c = client) {
+            c.setSoTimeout(IDLE_CONNECTION_TIMEOUT_MS);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(c.getInputStream(),
+                    StandardCharsets.UTF_8));
+            Writer writer = new OutputStreamWriter(c.getOutputStream(), StandardCharsets.UTF_8);
+            JSONObject response = authenticate(reader.readLine(), token);
+            respond(writer, response);
+            if ("ok".equals(response.get("status")))
+                serve(reader, writer);
+        } catch (SocketTimeoutException e) {
+            logger.info("Closing idle connection {}", client.getRemoteSocketAddress());
+        } catch (IOException e) {
+            logger.warn("Connection failed: {}", e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JSONObject authenticate(String line, String token) {
+        JSONObject response = new JSONObject();
+        Object given = null;
+        try {
+            Object parsed = line == null ? null : new JSONParser().parse(line);
+            if (parsed instanceof JSONObject)
+                given = ((JSONObject) parsed).get("token");
+        } catch (ParseException e) {
+        }
+        if (given instanceof String && MessageDigest.isEqual(((String) given).getBytes(StandardCharsets.UTF_8),
+                token.getBytes(StandardCharsets.UTF_8))) {
+            response.put("status", "ok");
+        } else {
+            error(response, "Authentication failed");
+        }
+        return response;
+    }
+
+    private static void respond(Writer out, JSONObject response) throws IOException {
+        out.write(response.toJSONString());
+        out.write("\n");
+        out.flush();
+    }
+
+    /**
+     * Answers a single request. Concurrent requests are answered one after the other.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized JSONObject handle(String line) {
+        JSONObject response = new JSONObject();
+        try {
+            Object parsed = new JSONParser().parse(line);
+            if (!(parsed instanceof JSONObject))
+                throw new IllegalArgumentException("Expected a JSON object");
+            JSONObject request = (JSONObject) parsed;
+            response.put("id", request.get("id"));
+            String type = getString(request, "type");
+            if (type.equals("shutdown")) {
+                shutdown();
+            } else {
+                Object timeout = request.get("timeoutMs");
+                if (timeout != null && !(timeout instanceof Number))
+                    throw new IllegalArgumentException("Timeout must be a number");
+                Deadline deadline = new Deadline(timeout != null ? ((Number) timeout).intValue() : defaultTimeoutMS);
+                getSolver().resetAnalysisWatch();
+                if (type.equals("backward")) {
+                    backward(request, response, deadline);
+                } else if (type.equals("forward")) {
+                    forward(request, response, deadline);
+                } else if (type.equals("alias")) {
+                    alias(request, response, deadline);
+                } else {
+                    throw new IllegalArgumentException("Unknown request type " + type);
+                }
+            }
+            if (!response.containsKey("status"))
+                response.put("status", "ok");
+        } catch (ParseException e) {
+            error(response, "Malformed request: " + e);
+        } catch (IllegalArgumentException e) {
+            error(response, e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Failed to answer {}", line, e);
+            solver = null;
+            error(response, e.toString());
+        }
+        return response;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void backward(JSONObject request, JSONObject response, Deadline deadline) {
+        BackwardQuery query = createBackwardQuery(request, "variable");
+        BackwardBoomerangResults<NoWeight> res = getSolver().solve(query, deadline);
+        if (timedout(res.isTerminatedEarly(), response))
+            return;
+        JSONArray allocationSites = new JSONArray();
+        for (ForwardQuery q : res.getAllocationSites().keySet()) {
+            JSONObject site = toJSON(q.stmt());
+            site.put("type", q.getType().toString());
+            allocationSites.add(site);
+        }
+        response.put("allocationSites", allocationSites);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void forward(JSONObject request, JSONObject response, Deadline deadline) {
+        SootMethod method = getMethod(request);
+        Stmt stmt = getStatement(request, method);
+        if (!(stmt instanceof AssignStmt) || !options.isAllocationVal(((AssignStmt) stmt).getRightOp()))
+            throw new IllegalArgumentException("Not an allocation site: " + stmt);
+        AssignStmt as = (AssignStmt) stmt;
+        Statement statement = new Statement(stmt, method);
+        ForwardQuery query = new ForwardQuery(statement,
+                new AllocVal(as.getLeftOp(), method, as.getRightOp(), statement));
+        ForwardBoomerangResults<NoWeight> res = getSolver().solve(query, deadline);
+        if (timedout(res.isTerminatedEarly(), response))
+            return;
+        JSONArray invokedMethods = new JSONArray();
+        for (Entry<Statement, SootMethod> e : res.getInvokedMethodOnInstance().entrySet()) {
+            JSONObject call = toJSON(e.getKey());
+            call.put("callee", e.getValue().getSignature());
+            invokedMethods.add(call);
+        }
+        response.put("invokedMethods", invokedMethods);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void alias(JSONObject request, JSONObject response, Deadline deadline) {
+        BackwardQuery query = createBackwardQuery(request, "variable");
+        BackwardBoomerangResults<NoWeight> res = getSolver().solve(query, deadline);
+        if (timedout(res.isTerminatedEarly(), response))
+            return;
+        BackwardBoomerangResults<NoWeight> other = getSolver().solve(createBackwardQuery(request, "other"),
+                deadline);
+        if (timedout(other.isTerminatedEarly(), response))
+            return;
+        response.put("mayAlias", res.hasNonEmptyIntersection(other));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean timedout(boolean cancelled, JSONObject response) {
+        if (!cancelled)
+            return false;
+        // The solver evicts the solvers the cancelled query left incomplete before the next query
+        response.put("status", "timeout");
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void error(JSONObject response, String message) {
+        response.put("status", "error");
+        response.put("message", message);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JSONObject toJSON(Statement statement) {
+        JSONObject json = new JSONObject();
+        json.put("method", statement.getMethod().getSignature());
+        json.put("statement", statement.getUnit().get().toString());
+        return json;
+    }
+
+    private BackwardQuery createBackwardQuery(JSONObject request, String variableKey) {
+        SootMethod method = getMethod(request);
+        Stmt stmt = getStatement(request, method);
+        String name = getString(request, variableKey);
+        for (Local l : method.getActiveBody().getLocals()) {
+            if (l.getName().equals(name))
+                return new BackwardQuery(new Statement(stmt, method), new Val(l, method));
+        }
+        throw new IllegalArgumentException("No local " + name + " in " + method);
+    }
+
+    private SootMethod getMethod(JSONObject request) {
+        String signature = getString(request, "method");
+        if (!Scene.v().containsMethod(signature))
+            throw new IllegalArgumentException("Unknown method " + signature);
+        SootMethod method = Scene.v().getMethod(signature);
+        if (!method.hasActiveBody())
+            throw new IllegalArgumentException("No body for method " + signature);
+        return method;
+    }
+
+    private Stmt getStatement(JSONObject request, SootMethod method) {
+        Object statement = request.get("statement");
+        Body body = method.getActiveBody();
+        if (statement instanceof Number) {
+            int index = ((Number) statement).intValue();
+            int i = 0;
+            for (Unit u : body.getUnits()) {
+                if (i++ == index)
+                    return (Stmt) u;
+            }
+        } else if (statement instanceof String) {
+            for (Unit u : body.getUnits()) {
+                if (u.toString().equals(statement))
+                    return (Stmt) u;
+            }
+        }
+        throw new IllegalArgumentException("No statement " + statement + " in " + method);
+    }
+
+    private static String getString(JSONObject request, String key) {
+        Object value = request.get(key);
+        if (!(value instanceof String))
+            throw new IllegalArgumentException("Missing " + key);
+        return (String) value;
+    }
+
+    private Boomerang getSolver() {
+        if (solver == null) {
+            solver = new Boomerang(options) {
+                @Override
+                public ObservableICFG<Unit, SootMethod> icfg() {
+                    return icfg;
+                }
+
+                @Override
+                public SeedFactory<NoWeight> getSeedFactory() {
+                    return null;
+                }
+            };
+        }
+        return solver;
+    }
+
+    private void shutdown() {
+        shutdown = true;
+        ServerSocket s = server;
+        if (s == null)
+            return;
+        try {
+            s.close();
+        } catch (IOException e) {
+            logger.warn("Could not close {}: {}", s.getLocalSocketAddress(), e.getMessage());
+        }
+    }
+
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * Cancels the queries of a request once its timeout elapsed. Unlike a timeout of the analysis, which cleans up
+     * all solvers, cancelling keeps the solvers that were complete before the request.
+     */
+    private static class Deadline extends QueryObserver {
+        private final long deadline;
+
+        private Deadline(int timeoutMS) {
+            this.deadline = timeoutMS > 0 ? System.currentTimeMillis() + timeoutMS : Long.MAX_VALUE;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return super.isCancelled() || System.currentTimeMillis() > deadline;
+        }
+    }
+
+    private static class DaemonOptions extends DefaultBoomerangOptions {
+        private final String librarySummaryFile;
+
+        private DaemonOptions(String librarySummaryFile) {
+            this.librarySummaryFile = librarySummaryFile;
+        }
+
+        @Override
+        public int analysisTimeoutMS() {
+            // Requests time out at their deadline
+            return 0;
+        }
+
+        @Override
+        public boolean onTheFlyCallGraph() {
+            // The call graph of the scene is built once
+            return false;
+        }
+
+        @Override
+        public String librarySummaryFile() {
+            return librarySummaryFile;
+        }
+    }
+}
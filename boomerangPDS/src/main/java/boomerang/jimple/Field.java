@@ -181,9 +181,22 @@ public class Field implements Location {
 
     }
 
+    private static Map<String, Field> syntheticFields = Maps.newHashMap();
+
+    /**
+     * A field that does not exist in the program, e.g., the contents of a summarized container. Fields of equal
+     * names are identical.
+     */
+    public static synchronized Field synthetic(String name) {
+        if (!syntheticFields.containsKey(name)) {
+            syntheticFields.put(name, new Field(name));
+        }
+        return syntheticFields.get(name);
+    }
+
     private static Map<Field, ExclusionWildcardField> exclusionWildcards = Maps.newHashMap();
 
-    public static Field exclusionWildcard(Field exclusion) {
+    public static synchronized Field exclusionWildcard(Field exclusion) {
         if (!exclusionWildcards.containsKey(exclusion)) {
             exclusionWildcards.put(exclusion, new ExclusionWildcardField(exclusion));
         }
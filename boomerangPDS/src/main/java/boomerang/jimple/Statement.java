@@ -153,17 +153,21 @@ public class Statement implements Location {
     private static Map<Stmt, Integer> statementToInteger = new HashMap<>();
 
     public int stmtToInt(Stmt s) {
-        if (!statementToInteger.containsKey(s)) {
-            statementToInteger.put(s, statementToInteger.size());
+        synchronized (statementToInteger) {
+            if (!statementToInteger.containsKey(s)) {
+                statementToInteger.put(s, statementToInteger.size());
+            }
+            return statementToInteger.get(s);
         }
-        return statementToInteger.get(s);
     }
 
     public int methodToInt(SootMethod method) {
-        if (!methodToInteger.containsKey(method)) {
-            methodToInteger.put(method, methodToInteger.size());
+        synchronized (methodToInteger) {
+            if (!methodToInteger.containsKey(method)) {
+                methodToInteger.put(method, methodToInteger.size());
+            }
+            return methodToInteger.get(method);
         }
-        return methodToInteger.get(method);
     }
 
     public SootMethod getMethod() {
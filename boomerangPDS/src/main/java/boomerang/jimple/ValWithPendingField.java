@@ -0,0 +1,52 @@
+package boomerang.jimple;
+
+import soot.SootMethod;
+import soot.Value;
+
+/**
+ * A value at a summarized call site that still has to store the propagated object into a field, see
+ * {@link boomerang.summaries.MethodSummary}. The solvers push the field as soon as they reach the value, which
+ * moves an object from a field of one value into a field of another.
+ */
+public class ValWithPendingField extends Val {
+    private final Field pendingField;
+
+    public ValWithPendingField(Value v, SootMethod m, Field pendingField) {
+        super(v, m);
+        this.pendingField = pendingField;
+    }
+
+    public Field getPendingField() {
+        return pendingField;
+    }
+
+    @Override
+    public String toString() {
+        return "Pending " + pendingField + " " + super.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = super.hashCode();
+        result = prime * result + ((pendingField == null) ? 0 : pendingField.hashCode());
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!super.equals(obj))
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        ValWithPendingField other = (ValWithPendingField) obj;
+        if (pendingField == null) {
+            if (other.pendingField != null)
+                return false;
+        } else if (!pendingField.equals(other.pendingField))
+            return false;
+        return true;
+    }
+}
@@ -153,7 +153,7 @@ public abstract class ExecuteImportFieldStmtPOI<W extends Weight> {
             if (!returnSiteOrExitStmt.getUnit().isPresent() && returnSiteOrExitStmt.getUnit() != null) {
                 return;
             }
-            if (!boomerang.icfg().isReachable(t.getString().getUnit().get())) {
+            if (!boomerang.icfg().isReachable(t.getString().getUnit().get(), t.getString().getMethod())) {
                 return;
             }
             boolean predIsCallStmt = returnSiteOrExitStmt.isCallsite()
@@ -235,6 +235,26 @@ public abstract class ExecuteImportFieldStmtPOI<W extends Weight> {
         this.field = poi.getField();
     }
 
+    public AbstractBoomerangSolver<W> getBaseSolver() {
+        return baseSolver;
+    }
+
+    public AbstractBoomerangSolver<W> getFlowSolver() {
+        return flowSolver;
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    /**
+     * @return The base variable at the successor statement. {@link #trigger(INode)} imports the field transitions
+     *         into this node.
+     */
+    public Node<Statement, Val> getBaseAtSuccessor() {
+        return new Node<Statement, Val>(succ, baseVar);
+    }
+
     public void solve() {
         if (baseSolver.equals(flowSolver)) {
             return;
@@ -42,5 +42,13 @@ public abstract class PointOfIndirection<Statement, Val, Field> {
         }
     }
 
+    /**
+     * Forgets the query as base and flow allocation, e.g., when its solver is evicted.
+     */
+    public void removeAllocation(Query allocation) {
+        actualBaseAllocations.remove(allocation);
+        flowAllocations.remove(allocation);
+    }
+
     public abstract Statement getStmt();
 }
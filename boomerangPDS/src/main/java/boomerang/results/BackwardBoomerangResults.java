@@ -9,6 +9,7 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import boomerang.BackwardQuery;
+import boomerang.BoomerangTimeoutException;
 import boomerang.ForwardQuery;
 import boomerang.Query;
 import boomerang.Util;
@@ -44,9 +45,16 @@ import java.util.Set;
 
 public class BackwardBoomerangResults<W extends Weight> extends AbstractBoomerangResults<W> implements PointsToSet {
 
+    // The query of the caller, aliases are extracted at its statement
     private final BackwardQuery query;
+    // The query whose solver computed the results, e.g., the normalized query
+    private final BackwardQuery solvedQuery;
+    // The solver of the solved query when it terminated, null if the query did not need a solver
+    private final AbstractBoomerangSolver<W> solver;
     private Map<ForwardQuery, AbstractBoomerangResults<W>.Context> allocationSites;
     private final boolean timedout;
+    private final boolean terminatedEarly;
+    private final BoomerangTimeoutException abortReason;
     private final IBoomerangStats<W> stats;
     private Stopwatch analysisWatch;
     private long maxMemory;
@@ -54,12 +62,48 @@ public class BackwardBoomerangResults<W extends Weight> extends AbstractBoomeran
     public BackwardBoomerangResults(BackwardQuery query, boolean timedout,
             DefaultValueMap<Query, AbstractBoomerangSolver<W>> queryToSolvers, IBoomerangStats<W> stats,
             Stopwatch analysisWatch) {
+        this(query, timedout, false, queryToSolvers, stats, analysisWatch);
+    }
+
+    public BackwardBoomerangResults(BackwardQuery query, boolean timedout, boolean terminatedEarly,
+            DefaultValueMap<Query, AbstractBoomerangSolver<W>> queryToSolvers, IBoomerangStats<W> stats,
+            Stopwatch analysisWatch) {
+        this(query, query, timedout, terminatedEarly, null, queryToSolvers, stats, analysisWatch);
+    }
+
+    /**
+     * @param abortReason
+     *            The exception that aborted the query, or null if the query terminated.
+     */
+    public BackwardBoomerangResults(BackwardQuery query, BoomerangTimeoutException abortReason,
+            DefaultValueMap<Query, AbstractBoomerangSolver<W>> queryToSolvers, IBoomerangStats<W> stats,
+            Stopwatch analysisWatch) {
+        this(query, query, abortReason != null, false, abortReason, queryToSolvers, stats, analysisWatch);
+    }
+
+    /**
+     * @param query
+     *            The query of the caller, aliases are extracted at its statement.
+     * @param solvedQuery
+     *            The query whose solver computed the results, e.g., the canonical query of
+     *            {@link boomerang.WeightedBoomerang#normalize(BackwardQuery)}.
+     * @param abortReason
+     *            The exception that aborted the query, or null if the query terminated.
+     */
+    public BackwardBoomerangResults(BackwardQuery query, BackwardQuery solvedQuery, boolean timedout,
+            boolean terminatedEarly, BoomerangTimeoutException abortReason,
+            DefaultValueMap<Query, AbstractBoomerangSolver<W>> queryToSolvers, IBoomerangStats<W> stats,
+            Stopwatch analysisWatch) {
         super(queryToSolvers);
         this.query = query;
+        this.solvedQuery = solvedQuery;
+        this.solver = queryToSolvers.get(solvedQuery);
         this.timedout = timedout;
+        this.terminatedEarly = terminatedEarly;
+        this.abortReason = abortReason;
         this.stats = stats;
         this.analysisWatch = analysisWatch;
-        stats.terminated(query, this);
+        stats.terminated(solvedQuery, this);
         maxMemory = Util.getReallyUsedMemory();
     }
 
@@ -72,6 +116,24 @@ public class BackwardBoomerangResults<W extends Weight> extends AbstractBoomeran
         return timedout;
     }
 
+    /**
+     * @return The exception that aborted the query, e.g., a {@link boomerang.BoomerangMemoryLimitException} or a
+     *         {@link boomerang.BoomerangBudgetExceededException}, or null if the query was not aborted.
+     */
+    public BoomerangTimeoutException getAbortReason() {
+        return abortReason;
+    }
+
+    /**
+     * @return true if the query was cancelled by its {@link boomerang.QueryObserver}, e.g., as soon as an
+     *         allocation site satisfied the predicate of
+     *         {@link boomerang.WeightedBoomerang#solve(BackwardQuery, com.google.common.base.Predicate)}. The
+     *         allocation sites are incomplete then.
+     */
+    public boolean isTerminatedEarly() {
+        return terminatedEarly;
+    }
+
     public IBoomerangStats<W> getStats() {
         return stats;
     }
@@ -80,16 +142,26 @@ public class BackwardBoomerangResults<W extends Weight> extends AbstractBoomeran
         return analysisWatch;
     }
 
+    /**
+     * Solvers evicted by a bounded solver cache (see {@link boomerang.BoomerangOptions#solverCacheSize()}) are
+     * evicted with all solvers the results are read from, hence the results of the query are gone.
+     */
+    private void checkNotEvicted() {
+        if (solver != null && queryToSolvers.get(solvedQuery) != solver)
+            throw new IllegalStateException("The solvers of " + solvedQuery + " were evicted, solve the query again");
+    }
+
     private void computeAllocations() {
         if (allocationSites != null)
             return;
+        checkNotEvicted();
         final Set<ForwardQuery> results = Sets.newHashSet();
         for (final Entry<Query, AbstractBoomerangSolver<W>> fw : queryToSolvers.entrySet()) {
             if (!(fw.getKey() instanceof ForwardQuery)) {
                 continue;
             }
             fw.getValue().getFieldAutomaton().registerListener(new ExtractAllocationSiteStateListener<W>(
-                    fw.getValue().getFieldAutomaton().getInitialState(), query, (ForwardQuery) fw.getKey()) {
+                    fw.getValue().getFieldAutomaton().getInitialState(), solvedQuery, (ForwardQuery) fw.getKey()) {
 
                       @Override
                       protected void allocationSiteFound(ForwardQuery allocationSite,
@@ -100,7 +172,7 @@ public class BackwardBoomerangResults<W extends Weight> extends AbstractBoomeran
         }
         allocationSites = Maps.newHashMap();
         for (ForwardQuery q : results) {
-            AbstractBoomerangResults<W>.Context context = constructContextGraph(q, query.asNode());
+            AbstractBoomerangResults<W>.Context context = constructContextGraph(q, solvedQuery.asNode());
             assert allocationSites.get(q) == null;
             allocationSites.put(q, context);
         }
@@ -111,9 +183,10 @@ public class BackwardBoomerangResults<W extends Weight> extends AbstractBoomeran
             if (fw instanceof BackwardQuery)
                 continue;
 
-            if (queryToSolvers.getOrCreate(fw).getReachedStates().contains(el.asNode())) {
-                for (Transition<Field, INode<Node<Statement, Val>>> t : queryToSolvers.getOrCreate(fw)
-                        .getFieldAutomaton().getTransitions()) {
+            AbstractBoomerangSolver<W> fwSolver = queryToSolvers.get(fw);
+            if (fwSolver != null && fwSolver.isReached(el.asNode())) {
+                for (Transition<Field, INode<Node<Statement, Val>>> t : fwSolver.getFieldAutomaton()
+                        .getTransitions()) {
                     if (t.getStart() instanceof GeneratedState) {
                         continue;
                     }
@@ -132,13 +205,18 @@ public class BackwardBoomerangResults<W extends Weight> extends AbstractBoomeran
         for (final Query fw : getAllocationSites().keySet()) {
             if (fw instanceof BackwardQuery)
                 continue;
-            queryToSolvers.getOrCreate(fw)
-                    .registerListener(new ExtractAllAliasListener<W>(this.queryToSolvers.get(fw), results, stmt));
+            AbstractBoomerangSolver<W> fwSolver = queryToSolvers.get(fw);
+            if (fwSolver != null)
+                fwSolver.registerListener(new ExtractAllAliasListener<W>(fwSolver, results, stmt));
 
         }
         return results;
     }
 
+    /**
+     * @return The aliases at the statement of the query of the caller, which may differ from the statement the
+     *         query was solved at.
+     */
     @Deprecated
     public Set<AccessPath> getAllAliases() {
         return getAllAliases(query.stmt());
@@ -198,8 +276,10 @@ public class BackwardBoomerangResults<W extends Weight> extends AbstractBoomeran
      * @return Set of types the backward analysis propagates
      */
     public Set<Type> getPropagationType() {
-        AbstractBoomerangSolver<W> solver = queryToSolvers.get(query);
+        checkNotEvicted();
         Set<Type> types = Sets.newHashSet();
+        if (solver == null)
+            return types;
         for (Transition<Statement, INode<Val>> t : solver.getCallAutomaton().getTransitions()) {
             types.add(t.getStart().fact().getType());
         }
@@ -216,7 +296,10 @@ public class BackwardBoomerangResults<W extends Weight> extends AbstractBoomeran
      */
     public Set<Node<Statement, Val>> getDataFlowPath(ForwardQuery query) {
         Set<Node<Statement, Val>> dataFlowPath = Sets.newHashSet();
-        WeightedPAutomaton<Statement, INode<Val>, W> callAut = queryToSolvers.getOrCreate(query).getCallAutomaton();
+        AbstractBoomerangSolver<W> fwSolver = queryToSolvers.get(query);
+        if (fwSolver == null)
+            return dataFlowPath;
+        WeightedPAutomaton<Statement, INode<Val>, W> callAut = fwSolver.getCallAutomaton();
         for (Entry<Transition<Statement, INode<Val>>, W> e : callAut.getTransitionsToFinalWeights().entrySet()) {
             Transition<Statement, INode<Val>> t = e.getKey();
             if (t.getLabel().equals(Statement.epsilon()))
@@ -224,7 +307,7 @@ public class BackwardBoomerangResults<W extends Weight> extends AbstractBoomeran
             if (t.getStart().fact().value() instanceof Local
                     && !t.getLabel().getMethod().equals(t.getStart().fact().m()))
                 continue;
-            if (queryToSolvers.getOrCreate(query).valueUsedInStatement(t.getLabel().getUnit().get(),
+            if (fwSolver.valueUsedInStatement(t.getLabel().getUnit().get(),
                     t.getStart().fact()))
                 dataFlowPath.add(new Node<Statement, Val>(t.getLabel(), t.getStart().fact()));
         }
@@ -27,6 +27,10 @@ public class ExtractAllAliasListener<W extends Weight> implements SyncPDSUpdateL
     private final Set<AccessPath> results;
     private final Statement stmt;
     private AbstractBoomerangSolver<W> fwSolver;
+    // The listeners registered at the field automaton, see detach()
+    private final List<WPAUpdateListener<Field, INode<Node<Statement, Val>>, W>> updateListeners = Lists
+            .newArrayList();
+    private final List<ExtractAccessPathStateListener> stateListeners = Lists.newArrayList();
 
     public ExtractAllAliasListener(AbstractBoomerangSolver<W> fwSolver, Set<AccessPath> results, Statement stmt) {
         this.fwSolver = fwSolver;
@@ -39,28 +43,51 @@ public class ExtractAllAliasListener<W extends Weight> implements SyncPDSUpdateL
         if (reachableNode.stmt().equals(stmt)) {
             Val base = reachableNode.fact();
             final INode<Node<Statement, Val>> allocNode = fwSolver.getFieldAutomaton().getInitialState();
-            fwSolver.getFieldAutomaton()
-                    .registerListener(new WPAUpdateListener<Field, INode<Node<Statement, Val>>, W>() {
-                        @Override
-                        public void onWeightAdded(Transition<Field, INode<Node<Statement, Val>>> t, W w,
-                                WeightedPAutomaton<Field, INode<Node<Statement, Val>>, W> aut) {
-                            if (t.getStart().fact().stmt().equals(stmt) && !(t.getStart() instanceof GeneratedState)
-                                    && t.getStart().fact().fact().equals(base)) {
-                                if (t.getLabel().equals(Field.empty())) {
-                                    if (t.getTarget().equals(allocNode)) {
-                                        results.add(new AccessPath(base));
-                                    }
-                                }
-                                List<Transition<Field, INode<Node<Statement, Val>>>> fields = Lists.newArrayList();
-                                if (!(t.getLabel() instanceof Empty)) {
-                                    fields.add(t);
-                                }
-                                fwSolver.getFieldAutomaton().registerListener(new ExtractAccessPathStateListener(
-                                        t.getTarget(), allocNode, base, fields, results));
+            WPAUpdateListener<Field, INode<Node<Statement, Val>>, W> listener;
+            listener = new WPAUpdateListener<Field, INode<Node<Statement, Val>>, W>() {
+                @Override
+                public void onWeightAdded(Transition<Field, INode<Node<Statement, Val>>> t, W w,
+                        WeightedPAutomaton<Field, INode<Node<Statement, Val>>, W> aut) {
+                    if (t.getStart().fact().stmt().equals(stmt) && !(t.getStart() instanceof GeneratedState)
+                            && t.getStart().fact().fact().equals(base)) {
+                        if (t.getLabel().equals(Field.empty())) {
+                            if (t.getTarget().equals(allocNode)) {
+                                results.add(new AccessPath(base));
                             }
                         }
-                    });
+                        List<Transition<Field, INode<Node<Statement, Val>>>> fields = Lists.newArrayList();
+                        if (!(t.getLabel() instanceof Empty)) {
+                            fields.add(t);
+                        }
+                        register(new ExtractAccessPathStateListener(t.getTarget(), allocNode, base, fields,
+                                results));
+                    }
+                }
+            };
+            updateListeners.add(listener);
+            fwSolver.getFieldAutomaton().registerListener(listener);
+        }
+    }
+
+    private void register(ExtractAccessPathStateListener listener) {
+        stateListeners.add(listener);
+        fwSolver.getFieldAutomaton().registerListener(listener);
+    }
+
+    /**
+     * Removes this listener from the solver, together with all listeners it registered at the field automaton.
+     * No further aliases are reported afterwards.
+     */
+    public void detach() {
+        fwSolver.unregisterListener(this);
+        for (WPAUpdateListener<Field, INode<Node<Statement, Val>>, W> l : updateListeners) {
+            fwSolver.getFieldAutomaton().unregisterListener(l);
+        }
+        for (ExtractAccessPathStateListener l : stateListeners) {
+            fwSolver.getFieldAutomaton().unregisterListener(l);
         }
+        updateListeners.clear();
+        stateListeners.clear();
     }
 
     class ExtractAccessPathStateListener extends WPAStateListener<Field, INode<Node<Statement, Val>>, W> {
@@ -97,8 +124,7 @@ public class ExtractAllAliasListener<W extends Weight> implements SyncPDSUpdateL
 
                 results.add(new AccessPath(base, convert(copiedFields)));
             }
-            weightedPAutomaton.registerListener(
-                    new ExtractAccessPathStateListener(t.getTarget(), allocNode, base, copiedFields, results));
+            register(new ExtractAccessPathStateListener(t.getTarget(), allocNode, base, copiedFields, results));
         }
 
         private Collection<Field> convert(Collection<Transition<Field, INode<Node<Statement, Val>>>> fields) {
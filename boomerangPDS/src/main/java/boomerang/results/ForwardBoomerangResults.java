@@ -1,5 +1,6 @@
 package boomerang.results;
 
+import boomerang.BoomerangTimeoutException;
 import boomerang.ForwardQuery;
 import boomerang.Query;
 import boomerang.callgraph.CallerListener;
@@ -43,6 +44,8 @@ public class ForwardBoomerangResults<W extends Weight> extends AbstractBoomerang
 
     private final ForwardQuery query;
     private final boolean timedout;
+    private final boolean terminatedEarly;
+    private final BoomerangTimeoutException abortReason;
     private final IBoomerangStats<W> stats;
     private Stopwatch analysisWatch;
     private long maxMemory;
@@ -51,10 +54,35 @@ public class ForwardBoomerangResults<W extends Weight> extends AbstractBoomerang
     public ForwardBoomerangResults(ForwardQuery query, ObservableICFG<Unit, SootMethod> icfg, boolean timedout,
             DefaultValueMap<Query, AbstractBoomerangSolver<W>> queryToSolvers, IBoomerangStats<W> stats,
             Stopwatch analysisWatch) {
+        this(query, icfg, timedout, false, queryToSolvers, stats, analysisWatch);
+    }
+
+    public ForwardBoomerangResults(ForwardQuery query, ObservableICFG<Unit, SootMethod> icfg, boolean timedout,
+            boolean terminatedEarly, DefaultValueMap<Query, AbstractBoomerangSolver<W>> queryToSolvers,
+            IBoomerangStats<W> stats, Stopwatch analysisWatch) {
+        this(query, icfg, timedout, terminatedEarly, null, queryToSolvers, stats, analysisWatch);
+    }
+
+    /**
+     * @param abortReason
+     *            The exception that aborted the query, or null if the query terminated.
+     */
+    public ForwardBoomerangResults(ForwardQuery query, ObservableICFG<Unit, SootMethod> icfg,
+            BoomerangTimeoutException abortReason, DefaultValueMap<Query, AbstractBoomerangSolver<W>> queryToSolvers,
+            IBoomerangStats<W> stats, Stopwatch analysisWatch) {
+        this(query, icfg, abortReason != null, false, abortReason, queryToSolvers, stats, analysisWatch);
+    }
+
+    private ForwardBoomerangResults(ForwardQuery query, ObservableICFG<Unit, SootMethod> icfg, boolean timedout,
+            boolean terminatedEarly, BoomerangTimeoutException abortReason,
+            DefaultValueMap<Query, AbstractBoomerangSolver<W>> queryToSolvers, IBoomerangStats<W> stats,
+            Stopwatch analysisWatch) {
         super(queryToSolvers);
         this.query = query;
         this.icfg = icfg;
         this.timedout = timedout;
+        this.terminatedEarly = terminatedEarly;
+        this.abortReason = abortReason;
         this.stats = stats;
         this.analysisWatch = analysisWatch;
         stats.terminated(query, this);
@@ -69,6 +97,22 @@ public class ForwardBoomerangResults<W extends Weight> extends AbstractBoomerang
         return timedout;
     }
 
+    /**
+     * @return The exception that aborted the query, e.g., a {@link boomerang.BoomerangMemoryLimitException} or a
+     *         {@link boomerang.BoomerangBudgetExceededException}, or null if the query was not aborted.
+     */
+    public BoomerangTimeoutException getAbortReason() {
+        return abortReason;
+    }
+
+    /**
+     * @return true if the query was cancelled by its {@link boomerang.QueryObserver}. The results are incomplete
+     *         then.
+     */
+    public boolean isTerminatedEarly() {
+        return terminatedEarly;
+    }
+
     public Table<Statement, Val, W> getObjectDestructingStatements() {
         AbstractBoomerangSolver<W> solver = queryToSolvers.get(query);
         if (solver == null)
@@ -150,7 +194,10 @@ public class ForwardBoomerangResults<W extends Weight> extends AbstractBoomerang
      */
     public Set<Node<Statement, Val>> getDataFlowPath() {
         Set<Node<Statement, Val>> dataFlowPath = Sets.newHashSet();
-        WeightedPAutomaton<Statement, INode<Val>, W> callAut = queryToSolvers.getOrCreate(query).getCallAutomaton();
+        AbstractBoomerangSolver<W> solver = queryToSolvers.get(query);
+        if (solver == null)
+            throw new IllegalStateException("The solver of " + query + " was evicted, solve the query again");
+        WeightedPAutomaton<Statement, INode<Val>, W> callAut = solver.getCallAutomaton();
         for (Entry<Transition<Statement, INode<Val>>, W> e : callAut.getTransitionsToFinalWeights().entrySet()) {
             Transition<Statement, INode<Val>> t = e.getKey();
             if (t.getLabel().equals(Statement.epsilon()))
@@ -158,7 +205,7 @@ public class ForwardBoomerangResults<W extends Weight> extends AbstractBoomerang
             if (t.getStart().fact().value() instanceof Local
                     && !t.getLabel().getMethod().equals(t.getStart().fact().m()))
                 continue;
-            if (queryToSolvers.getOrCreate(query).valueUsedInStatement(t.getLabel().getUnit().get(),
+            if (solver.valueUsedInStatement(t.getLabel().getUnit().get(),
                     t.getStart().fact()))
                 dataFlowPath.add(new Node<Statement, Val>(t.getLabel(), t.getStart().fact()));
         }
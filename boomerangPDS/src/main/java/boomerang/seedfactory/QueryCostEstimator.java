@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.seedfactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import boomerang.Query;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.AssignStmt;
+import soot.jimple.FieldRef;
+import soot.jimple.Stmt;
+
+/**
+ * Predicts the cost of the seeds of a {@link SeedFactory} to order them before they are solved. The
+ * prediction sums the statements, call sites and field writes of the method scope of a seed. Call sites and field
+ * writes are weighted higher, as they trigger the analysis of callees and aliasing queries. Once the actual costs of
+ * solved seeds are recorded, their costs are known exactly and the predictions of the remaining seeds are scaled to
+ * the unit of the recorded costs, e.g., transitions or milliseconds. Recorded costs survive a restart in a
+ * {@link SeedCheckpoint}.
+ */
+public class QueryCostEstimator {
+
+    private static final int CALL_SITE_WEIGHT = 4;
+    private static final int FIELD_WRITE_WEIGHT = 8;
+
+    private final SeedFactory<?> seedFactory;
+    private final Map<SootMethod, Long> methodCosts = Maps.newHashMap();
+    private final Map<Query, Long> recordedCosts = Maps.newHashMap();
+    private long recordedPredictions;
+    private long recordedTotal;
+
+    public QueryCostEstimator(SeedFactory<?> seedFactory) {
+        this.seedFactory = seedFactory;
+    }
+
+    /**
+     * @return The recorded cost of the query, or its predicted cost if it was not solved yet.
+     */
+    public long estimate(Query query) {
+        Long recorded = recordedCosts.get(query);
+        if (recorded != null)
+            return recorded;
+        long predicted = Math.max(predict(query), 1);
+        if (recordedPredictions == 0)
+            return predicted;
+        return Math.round(predicted * ((double) recordedTotal / recordedPredictions));
+    }
+
+    /**
+     * Records the actual cost of a solved query. All costs recorded with one estimator must have the same unit.
+     */
+    public void record(Query query, long cost) {
+        Long previous = recordedCosts.put(query, cost);
+        // Queries that are not seeds of the factory have no scope to compare the cost with
+        long predicted = predict(query);
+        if (predicted == 0)
+            return;
+        if (previous != null) {
+            recordedTotal -= previous;
+        } else {
+            recordedPredictions += predicted;
+        }
+        recordedTotal += cost;
+    }
+
+    /**
+     * Records the costs the checkpoint holds for the given queries. Recording them before {@link #order(Collection)}
+     * orders the queries by the costs of an earlier run.
+     */
+    public void recordAll(SeedCheckpoint checkpoint, Collection<? extends Query> queries) {
+        for (Query q : queries) {
+            Long cost = checkpoint.getCost(q);
+            if (cost != null)
+                record(q, cost);
+        }
+    }
+
+    private long predict(Query query) {
+        long cost = 0;
+        for (SootMethod m : seedFactory.getMethodScope(query)) {
+            cost += getMethodCost(m);
+        }
+        return cost;
+    }
+
+    private long getMethodCost(SootMethod m) {
+        Long cost = methodCosts.get(m);
+        if (cost != null)
+            return cost;
+        long c = 0;
+        if (m.hasActiveBody()) {
+            for (Unit u : m.getActiveBody().getUnits()) {
+                Stmt s = (Stmt) u;
+                c++;
+                if (s.containsInvokeExpr())
+                    c += CALL_SITE_WEIGHT;
+                if (s instanceof AssignStmt && ((AssignStmt) s).getLeftOp() instanceof FieldRef)
+                    c += FIELD_WRITE_WEIGHT;
+            }
+        }
+        methodCosts.put(m, c);
+        return c;
+    }
+
+    /**
+     * @return The queries ordered by their estimated cost, the cheapest first. Queries of equal cost keep their
+     *         order.
+     */
+    public <Q extends Query> List<Q> order(Collection<Q> queries) {
+        return order(queries, estimateAll(queries));
+    }
+
+    private <Q extends Query> List<Q> order(Collection<Q> queries, final Map<Q, Long> estimates) {
+        List<Q> ordered = Lists.newArrayList(queries);
+        Collections.sort(ordered, new Comparator<Q>() {
+            @Override
+            public int compare(Q q1, Q q2) {
+                return Long.compare(estimates.get(q1), estimates.get(q2));
+            }
+        });
+        return ordered;
+    }
+
+    private <Q extends Query> Map<Q, Long> estimateAll(Collection<Q> queries) {
+        Map<Q, Long> estimates = Maps.newHashMap();
+        for (Q q : queries) {
+            estimates.put(q, estimate(q));
+        }
+        return estimates;
+    }
+}
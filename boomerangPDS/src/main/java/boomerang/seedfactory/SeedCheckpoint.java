@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.seedfactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import boomerang.BoomerangOptions;
+import boomerang.Query;
+import boomerang.summaries.LibrarySummaries;
+import boomerang.util.ClassPathDigest;
+import soot.SootMethod;
+import soot.Unit;
+
+/**
+ * Records the seeds finished by an IDEal analysis in a directory. Each finished seed is appended to the file
+ * <code>seeds.json</code> as soon as it is solved, one JSON object per line, together with its cost and its results
+ * in textual form. A restarted analysis orders its seeds by the recorded costs and hands the recorded results to its
+ * result handler. The seeds whose textual results the handler does not accept, which is the default, are solved
+ * again. A line that was not completely written when the JVM died is ignored and its seed is solved again. Seeds are
+ * identified by their method, the index of their statement and their variable. Only the seeds finished with options
+ * of the same hash, see {@link LibrarySummaries#optionsHash(BoomerangOptions)}, and on the same program, see
+ * {@link #programHash()}, are loaded.
+ */
+public class SeedCheckpoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeedCheckpoint.class);
+    private static final String SEEDS_FILE = "seeds.json";
+
+    private final File file;
+    private final String optionsHash;
+    private final String programHash;
+    private final Map<String, JSONObject> finished = Maps.newHashMap();
+    // Per method, the indices of its statements, which identify seeds across runs
+    private final Map<SootMethod, Map<Unit, Integer>> unitIndices = Maps.newHashMap();
+
+    private SeedCheckpoint(File directory, BoomerangOptions options) {
+        this.file = new File(directory, SEEDS_FILE);
+        this.optionsHash = LibrarySummaries.optionsHash(options);
+        this.programHash = programHash();
+    }
+
+    /**
+     * Loads the seeds finished in earlier runs from the directory. A missing directory yields no finished seeds.
+     */
+    public static SeedCheckpoint load(File directory, BoomerangOptions options) throws IOException {
+        SeedCheckpoint checkpoint = new SeedCheckpoint(directory, options);
+        if (!checkpoint.file.exists())
+            return checkpoint;
+        JSONParser parser = new JSONParser();
+        for (String line : Files.readAllLines(checkpoint.file.toPath(), StandardCharsets.UTF_8)) {
+            if (line.isEmpty())
+                continue;
+            try {
+                JSONObject seed = (JSONObject) parser.parse(line);
+                if (checkpoint.optionsHash.equals(seed.get("options"))
+                        && checkpoint.programHash.equals(seed.get("program")))
+                    checkpoint.finished.put((String) seed.get("seed"), seed);
+            } catch (ParseException | ClassCastException e) {
+                logger.warn("Ignoring incomplete line of {}: {}", checkpoint.file, line);
+            }
+        }
+        logger.info("Loaded {} finished seed(s) from {}", checkpoint.finished.size(), checkpoint.file);
+        return checkpoint;
+    }
+
+    public boolean isFinished(Query seed) {
+        return finished.containsKey(key(seed));
+    }
+
+    /**
+     * @return The recorded cost of the finished seed, or null if the seed is not finished.
+     */
+    public Long getCost(Query seed) {
+        JSONObject record = finished.get(key(seed));
+        return record == null ? null : (Long) record.get("cost");
+    }
+
+    public boolean isTimedout(Query seed) {
+        JSONObject record = finished.get(key(seed));
+        return record != null && Boolean.TRUE.equals(record.get("timedout"));
+    }
+
+    /**
+     * @return The results recorded for the finished seed, or an empty list if the seed is not finished.
+     */
+    public List<String> getResults(Query seed) {
+        JSONObject record = finished.get(key(seed));
+        if (record == null)
+            return Collections.emptyList();
+        List<String> results = Lists.newArrayList();
+        for (Object r : (JSONArray) record.get("results")) {
+            results.add((String) r);
+        }
+        return results;
+    }
+
+    /**
+     * Appends the finished seed to the checkpoint. Seeds that timed out count as finished, as they would time out
+     * again with the same budgets.
+     */
+    @SuppressWarnings("unchecked")
+    public void finished(Query seed, boolean timedout, long cost, Collection<String> results) throws IOException {
+        JSONObject record = new JSONObject();
+        record.put("options", optionsHash);
+        record.put("program", programHash);
+        record.put("seed", key(seed));
+        record.put("timedout", timedout);
+        record.put("cost", cost);
+        JSONArray resultArray = new JSONArray();
+        resultArray.addAll(results);
+        record.put("results", resultArray);
+        if (file.getParentFile() != null)
+            Files.createDirectories(file.getParentFile().toPath());
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND)) {
+            writer.write(record.toJSONString());
+            writer.write("\n");
+        }
+        finished.put(key(seed), record);
+    }
+
+    /**
+     * @return The digest of the class path of the scene, see {@link ClassPathDigest#ofClassPath()}.
+     */
+    public static String programHash() {
+        return new ClassPathDigest().ofClassPath();
+    }
+
+    /**
+     * @return A key of the seed that is stable across runs on the same program.
+     */
+    public String key(Query seed) {
+        if (!seed.stmt().getUnit().isPresent())
+            return seed.getClass().getSimpleName() + " " + seed.toString();
+        SootMethod method = seed.stmt().getMethod();
+        Map<Unit, Integer> indices = unitIndices.get(method);
+        if (indices == null) {
+            indices = new IdentityHashMap<>();
+            int index = 0;
+            for (Unit u : method.getActiveBody().getUnits()) {
+                indices.put(u, index++);
+            }
+            unitIndices.put(method, indices);
+        }
+        Integer index = indices.get(seed.stmt().getUnit().get());
+        return seed.getClass().getSimpleName() + " " + method.getSignature() + " " + index + " " + seed.var().value();
+    }
+}
@@ -13,6 +13,7 @@ package boomerang.solver;
 
 import java.util.AbstractMap;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -26,6 +27,8 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
+import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Table;
 
@@ -38,8 +41,11 @@ import boomerang.debugger.IDEVizDebugger;
 import boomerang.jimple.AllocVal;
 import boomerang.jimple.Field;
 import boomerang.jimple.Statement;
+import boomerang.jimple.StaticFieldVal;
 import boomerang.jimple.Val;
+import boomerang.summaries.MethodSummary;
 import boomerang.util.RegExAccessPath;
+import boomerang.util.TypeCompatibilityCache;
 import pathexpression.IRegEx;
 import soot.NullType;
 import soot.RefType;
@@ -58,6 +64,7 @@ import soot.jimple.StaticFieldRef;
 import soot.jimple.Stmt;
 import soot.jimple.toolkits.ide.icfg.BiDiInterproceduralCFG;
 import sync.pds.solver.SyncPDSSolver;
+import sync.pds.solver.SyncPDSUpdateListener;
 import sync.pds.solver.nodes.GeneratedState;
 import sync.pds.solver.nodes.INode;
 import sync.pds.solver.nodes.Node;
@@ -162,6 +169,8 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
     }
 
     protected static final Logger logger = LoggerFactory.getLogger(AbstractBoomerangSolver.class);
+    // An entry of the indexes of the reached nodes, the nodes themselves are counted by the reached states
+    private static final long INDEX_ENTRY_BYTES = 60;
     protected final ObservableICFG<Unit, SootMethod> icfg;
     protected final Query query;
     protected boolean INTERPROCEDURAL = true;
@@ -181,15 +190,26 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
     private Set<ReachableMethodListener<W>> reachableMethodListeners = Sets.newHashSet();
     private Multimap<SootMethod, Runnable> queuedReachableMethod = HashMultimap.create();
     private Collection<SootMethod> reachableMethods = Sets.newHashSet();
+    // Indexes of the reached nodes, updated as nodes are reached
+    private final SetMultimap<Statement, Val> reachedValsPerStatement = Multimaps
+            .synchronizedSetMultimap(HashMultimap.<Statement, Val> create());
+    private final SetMultimap<SootMethod, Node<Statement, Val>> reachedNodesPerMethod = Multimaps
+            .synchronizedSetMultimap(HashMultimap.<SootMethod, Node<Statement, Val>> create());
+    // The methods the rules and transitions of this solver stem from
+    private Set<SootMethod> methodDependencies = Sets.newHashSet();
     protected final BoomerangOptions options;
+    // May be null if flow functions are not cached
+    protected final FlowFunctionCache flowFunctions;
 
     public AbstractBoomerangSolver(ObservableICFG<Unit, SootMethod> icfg, Query query,
             Map<Entry<INode<Node<Statement, Val>>, Field>, INode<Node<Statement, Val>>> genField,
             BoomerangOptions options, NestedWeightedPAutomatons<Statement, INode<Val>, W> callSummaries,
-            NestedWeightedPAutomatons<Field, INode<Node<Statement, Val>>, W> fieldSummaries) {
+            NestedWeightedPAutomatons<Field, INode<Node<Statement, Val>>, W> fieldSummaries,
+            FlowFunctionCache flowFunctions) {
         super(new SingleNode<Val>(query.asNode().fact()), new SingleNode<Node<Statement, Val>>(query.asNode()),
                 options.callSummaries(), callSummaries, options.fieldSummaries(), fieldSummaries);
         this.options = options;
+        this.flowFunctions = flowFunctions;
         this.icfg = icfg;
         this.query = query;
         this.fieldAutomaton.registerListener(new WPAUpdateListener<Field, INode<Node<Statement, Val>>, W>() {
@@ -200,6 +220,8 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
                 addTransitionToMethod(t.getStart().fact().stmt().getMethod(), t);
                 addTransitionToMethod(t.getTarget().fact().stmt().getMethod(), t);
                 addTransitionToStatement(t.getStart().fact().stmt(), t);
+                addMethodDependency(t.getStart().fact().stmt().getMethod());
+                addMethodDependency(t.getTarget().fact().stmt().getMethod());
             }
         });
         this.callAutomaton.registerListener(new WPAUpdateListener<Statement, INode<Val>, W>() {
@@ -207,6 +229,15 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
             public void onWeightAdded(Transition<Statement, INode<Val>> t, W w,
                     WeightedPAutomaton<Statement, INode<Val>, W> aut) {
                 addCallTransitionToStatement(t.getLabel(), t, w);
+                addMethodDependency(t.getLabel().getMethod());
+            }
+        });
+        registerListener(new SyncPDSUpdateListener<Statement, Val>() {
+            @Override
+            public void onReachableNodeAdded(Node<Statement, Val> reachableNode) {
+                reachedValsPerStatement.put(reachableNode.stmt(), reachableNode.fact());
+                if (reachableNode.stmt().getMethod() != null)
+                    reachedNodesPerMethod.put(reachableNode.stmt().getMethod(), reachableNode);
             }
         });
         // TODO recap, I assume we can implement this more easily.
@@ -214,9 +245,20 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
         addReachable(query.asNode().stmt().getMethod());
     }
 
+    @Override
+    protected boolean contextSensitive() {
+        return options.contextSensitive();
+    }
+
+    @Override
+    protected int callStackBound() {
+        return options.callStackBound();
+    }
+
     @Override
     protected boolean preventCallTransitionAdd(Transition<Statement, INode<Val>> t, W weight) {
-        if (t.getString().getUnit().isPresent() && !icfg.isReachable(t.getString().getUnit().get())) {
+        if (t.getString().getUnit().isPresent()
+                && !icfg.isReachable(t.getString().getUnit().get(), t.getString().getMethod())) {
             return true;
         }
         if (t.getStart() instanceof GeneratedState)
@@ -243,6 +285,9 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
             if (rule.getL1().equals(rule.getL2()) && rule.getS1().equals(rule.getS2()))
                 return;
         }
+        addMethodDependency(rule.getL1().getMethod());
+        if (rule.getL2() != null)
+            addMethodDependency(rule.getL2().getMethod());
         if (rule instanceof PopRule)
             super.addCallRule(rule);
         else
@@ -260,6 +305,8 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
             if (rule.getL1().equals(rule.getL2()) && rule.getS1().equals(rule.getS2()))
                 return;
         }
+        addMethodDependency(rule.getS1().fact().stmt().getMethod());
+        addMethodDependency(rule.getS2().fact().stmt().getMethod());
         submit(rule.getS2().fact().stmt().getMethod(), new Runnable() {
             @Override
             public void run() {
@@ -277,6 +324,30 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
         }
     }
 
+    private void addMethodDependency(SootMethod method) {
+        if (method != null)
+            methodDependencies.add(method);
+    }
+
+    /**
+     * @return The methods the rules and transitions of this solver stem from. The results of the solver remain
+     *         valid as long as none of these methods changes.
+     */
+    public Set<SootMethod> getMethodDependencies() {
+        return Collections.unmodifiableSet(methodDependencies);
+    }
+
+    /**
+     * @return true if any rule or transition of this solver stems from one of the methods.
+     */
+    public boolean dependsOnAny(Collection<SootMethod> methods) {
+        for (SootMethod m : methods) {
+            if (methodDependencies.contains(m))
+                return true;
+        }
+        return false;
+    }
+
     public void registerFieldTransitionListener(MethodBasedFieldTransitionListener<W> l) {
         if (perMethodFieldTransitionsListener.put(l.getMethod(), l)) {
             for (Transition<Field, INode<Node<Statement, Val>>> t : Lists
@@ -457,11 +528,9 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
         Stmt curr = currNode.stmt().getUnit().get();
         if (method.isStaticInitializer() && value.isStatic()) {
             Set<State> out = Sets.newHashSet();
-            for (SootMethod entryPoint : Scene.v().getEntryPoints()) {
-                for (Unit sp : icfg.getStartPointsOf(entryPoint)) {
-                    Collection<? extends State> outFlow = computeReturnFlow(method, curr, value, (Stmt) sp, (Stmt) sp);
-                    out.addAll(outFlow);
-                }
+            for (Stmt sp : getEntryPointStartPoints()) {
+                Collection<? extends State> outFlow = computeReturnFlow(method, curr, value, sp, sp);
+                out.addAll(outFlow);
             }
             for (State s : out) {
                 propagate(currNode, s);
@@ -488,9 +557,47 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
         }
     }
 
+    private List<Stmt> getEntryPointStartPoints() {
+        StaticFieldIndex index = getStaticFieldIndex();
+        if (index != null)
+            return index.getEntryPointStartPoints(icfg);
+        List<Stmt> startPoints = Lists.newArrayList();
+        for (SootMethod entryPoint : Scene.v().getEntryPoints()) {
+            for (Unit sp : icfg.getStartPointsOf(entryPoint)) {
+                startPoints.add((Stmt) sp);
+            }
+        }
+        return startPoints;
+    }
+
+    /**
+     * @return The index of static field accesses, or null if facts of static fields are propagated into all callees.
+     */
+    protected StaticFieldIndex getStaticFieldIndex() {
+        return null;
+    }
+
+    /**
+     * @return true if the fact is stored in a static field that no callee of the call site accesses. The fact then
+     *         flows over the call site instead of into the callees.
+     */
+    protected boolean bypassesCall(Stmt callSite, Val fact) {
+        if (!fact.isStatic())
+            return false;
+        StaticFieldIndex index = getStaticFieldIndex();
+        return index != null && !index.mayBeAccessedByCall(callSite, ((StaticFieldVal) fact).field());
+    }
+
     protected abstract Collection<? extends State> getEmptyCalleeFlow(SootMethod caller, Stmt callSite, Val value,
             Stmt returnSite);
 
+    /**
+     * @return The summary applied at calls to the callee instead of analyzing its body, or null to analyze the body.
+     */
+    protected MethodSummary getSummary(SootMethod callee) {
+        return null;
+    }
+
     // protected abstract Collection<? extends State> computeCallFlow(SootMethod caller, Statement returnSite,
     // Statement callSite, InvokeExpr invokeExpr, Val value, SootMethod callee, Stmt calleeSp);
 
@@ -539,7 +646,8 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
 
     @Override
     protected void processNode(final Node<Statement, Val> witnessNode) {
-        if (witnessNode.stmt().getUnit().isPresent() && !icfg.isReachable(witnessNode.stmt().getUnit().get()))
+        if (witnessNode.stmt().getUnit().isPresent()
+                && !icfg.isReachable(witnessNode.stmt().getUnit().get(), witnessNode.stmt().getMethod()))
             return;
         submit(witnessNode.stmt().getMethod(), new Runnable() {
             @Override
@@ -582,7 +690,7 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
     }
 
     public int getNumberOfRules() {
-        return callingPDS.getAllRules().size() + fieldPDS.getAllRules().size();
+        return callingPDS.getNumberOfRules() + fieldPDS.getNumberOfRules();
     }
 
     @Override
@@ -615,16 +723,12 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
         RefType sourceType = (RefType) sourceVal;
         if (targetType.getSootClass().isPhantom() || sourceType.getSootClass().isPhantom())
             return false;
+        TypeCompatibilityCache types = TypeCompatibilityCache.v();
         if (target instanceof AllocVal && ((AllocVal) target).allocationValue() instanceof NewExpr) {
-            boolean castFails = Scene.v().getOrMakeFastHierarchy().canStoreType(targetType, sourceType);
+            boolean castFails = types.canStoreType(targetType, sourceType);
             return !castFails;
         }
-        // TODO this line is necessary as canStoreType does not properly work for interfaces, see Java doc.
-        if (targetType.getSootClass().isInterface()) {
-            return false;
-        }
-        boolean castFails = Scene.v().getOrMakeFastHierarchy().canStoreType(targetType, sourceType)
-                || Scene.v().getOrMakeFastHierarchy().canStoreType(sourceType, targetType);
+        boolean castFails = types.mayPointToSameObject(sourceType, targetType);
         return !castFails;
     }
 
@@ -750,21 +854,48 @@ public abstract class AbstractBoomerangSolver<W extends Weight> extends SyncPDSS
         this.perStatementFieldTransitionsListener.clear();
     }
 
-	public Set<SootMethod> getVisitedMethods() {
-		Set<SootMethod> methods = Sets.newHashSet();
-		for(Node<Statement, Val> s : getReachedStates()) {
-			methods.add(s.stmt().getMethod());
-		}
-		return methods;
-	}
+    /**
+     * @return A copy of the methods containing reached nodes. The index grows while the solver runs, e.g. within a
+     *         {@link boomerang.callgraph.CallerListener}, hence no view is returned.
+     */
+    public Set<SootMethod> getVisitedMethods() {
+        synchronized (reachedNodesPerMethod) {
+            return Sets.newHashSet(reachedNodesPerMethod.keySet());
+        }
+    }
 
-	public Set<Val> getValsAtStatement(Statement exitStmt) {
-		Set<Val> vals = Sets.newHashSet();
-		for(Node<Statement, Val> s : getReachedStates()) {
-			if(s.stmt().equals(exitStmt))
-				vals.add(s.fact());
-		}
-		return vals;
-	}
+    /**
+     * @return A copy of the reached nodes within the method.
+     */
+    public Set<Node<Statement, Val>> getReachedStatesOf(SootMethod method) {
+        synchronized (reachedNodesPerMethod) {
+            return Sets.newHashSet(reachedNodesPerMethod.get(method));
+        }
+    }
+
+    /**
+     * @return true if the node has been reached.
+     */
+    public boolean isReached(Node<Statement, Val> node) {
+        return reachedValsPerStatement.containsEntry(node.stmt(), node.fact());
+    }
+
+    /**
+     * @return A copy of the facts of the nodes reached at the statement.
+     */
+    public Set<Val> getValsAtStatement(Statement exitStmt) {
+        synchronized (reachedValsPerStatement) {
+            return Sets.newHashSet(reachedValsPerStatement.get(exitStmt));
+        }
+    }
+
+    /**
+     * {@inheritDoc} Includes the indexes of the reached nodes per statement and per method.
+     */
+    @Override
+    public long estimateFootprintInBytes() {
+        return super.estimateFootprintInBytes()
+                + (reachedValsPerStatement.size() + reachedNodesPerMethod.size()) * INDEX_ENTRY_BYTES;
+    }
 
 }
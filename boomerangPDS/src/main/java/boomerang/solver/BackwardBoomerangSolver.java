@@ -30,6 +30,9 @@ import boomerang.jimple.Field;
 import boomerang.jimple.Statement;
 import boomerang.jimple.StaticFieldVal;
 import boomerang.jimple.Val;
+import boomerang.jimple.ValWithPendingField;
+import boomerang.solver.FlowFunctionCache.Flow;
+import boomerang.summaries.MethodSummary;
 import soot.Body;
 import soot.Local;
 import soot.Scene;
@@ -86,6 +89,21 @@ public abstract class BackwardBoomerangSolver<W extends Weight> extends Abstract
             	normalFlow(icfg.getMethodOf(callSite), curr); 
             	return;
             }
+            MethodSummary summary = getSummary(callee);
+            if (summary != null) {
+                boolean returned = isAssignedAt((Stmt) callSite, curr.fact());
+                if (!returned)
+                    normalFlow(caller, curr);
+                for (Unit pred : icfg.getSuccsOf(callSite)) {
+                    for (State s : summary.backwardFlow(caller, (Stmt) callSite, curr.fact(), (Stmt) pred,
+                            options.trackFields())) {
+                        BackwardBoomerangSolver.this.propagate(curr, s);
+                    }
+                }
+                // The allocation site of an object created by the callee is only found within its body
+                if (!returned || !summary.returnsNewObject())
+                    return;
+            }
             // onlyStaticInitializer = false;
             Set<State> out = Sets.newHashSet();
             InvokeExpr invokeExpr = curr.stmt().getUnit().get().getInvokeExpr();
@@ -151,8 +169,9 @@ public abstract class BackwardBoomerangSolver<W extends Weight> extends Abstract
     public BackwardBoomerangSolver(ObservableICFG<Unit, SootMethod> icfg, BackwardQuery query,
             Map<Entry<INode<Node<Statement, Val>>, Field>, INode<Node<Statement, Val>>> genField,
             BoomerangOptions options, NestedWeightedPAutomatons<Statement, INode<Val>, W> callSummaries,
-            NestedWeightedPAutomatons<Field, INode<Node<Statement, Val>>, W> fieldSummaries) {
-        super(icfg, query, genField, options, callSummaries, fieldSummaries);
+            NestedWeightedPAutomatons<Field, INode<Node<Statement, Val>>, W> fieldSummaries,
+            FlowFunctionCache flowFunctions) {
+        super(icfg, query, genField, options, callSummaries, fieldSummaries, flowFunctions);
     }
 
     @Override
@@ -234,13 +253,23 @@ public abstract class BackwardBoomerangSolver<W extends Weight> extends Abstract
             SootMethod method = icfg.getMethodOf(curr);
             if (method == null)
                 return;
+            if (value instanceof ValWithPendingField) {
+                // Second half of a summary edge moving the object into a field of the value
+                for (Unit pred : icfg.getSuccsOf(curr)) {
+                    propagate(node, new PushNode<Statement, Val, Field>(new Statement((Stmt) pred, method),
+                            new Val(value.value(), method), ((ValWithPendingField) value).getPendingField(),
+                            PDSSystem.FIELDS));
+                }
+                return;
+            }
             if (killFlow(method, curr, value)) {
                 return;
             }
             if (options.isIgnoredMethod(method)) {
                 return;
             }
-            if (curr.containsInvokeExpr() && valueUsedInStatement(curr, value) && INTERPROCEDURAL) {
+            if (curr.containsInvokeExpr() && valueUsedInStatement(curr, value) && INTERPROCEDURAL
+                    && !bypassesCall(curr, value)) {
                 callFlow(method, node);
             } else if (icfg.isExitStmt(curr)) {
                 returnFlow(method, node);
@@ -250,6 +279,10 @@ public abstract class BackwardBoomerangSolver<W extends Weight> extends Abstract
         }
     }
 
+    private boolean isAssignedAt(Stmt callSite, Val fact) {
+        return callSite instanceof AssignStmt && ((AssignStmt) callSite).getLeftOp().equals(fact.value());
+    }
+
     protected void normalFlow(SootMethod method, Node<Statement, Val> currNode) {
         Set<State> out = Sets.newHashSet();
         Stmt curr = currNode.stmt().getUnit().get();
@@ -308,6 +341,16 @@ public abstract class BackwardBoomerangSolver<W extends Weight> extends Abstract
 
     @Override
     protected Collection<State> computeNormalFlow(SootMethod method, Stmt curr, Val fact, Stmt succ) {
+        if (flowFunctions == null)
+            return normalFlowFunction(method, curr, fact, succ);
+        Collection<State> out = flowFunctions.getNormalFlow(Flow.BACKWARD, curr, fact, succ);
+        if (out == null)
+            out = flowFunctions.putNormalFlow(Flow.BACKWARD, curr, fact, succ,
+                    normalFlowFunction(method, curr, fact, succ));
+        return out;
+    }
+
+    private Collection<State> normalFlowFunction(SootMethod method, Stmt curr, Val fact, Stmt succ) {
         // assert !fact.equals(thisVal()) && !fact.equals(returnVal()) && !fact.equals(param(0));
         if (options.isAllocationVal(fact.value())) {
             return Collections.emptySet();
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.solver;
+
+import java.util.Collection;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+
+import boomerang.jimple.Val;
+import soot.jimple.Stmt;
+import wpds.interfaces.State;
+
+/**
+ * Memoizes the normal flow functions of the solvers. The flow functions only depend on the statements, the fact
+ * and the options, hence all solvers of a {@link boomerang.WeightedBoomerang} (or several instances with equal
+ * options) can share one cache. The cache is bounded and thread-safe.
+ */
+public class FlowFunctionCache {
+
+    /**
+     * Distinguishes flow functions that differ for the same statements and fact.
+     */
+    public enum Flow {
+        BACKWARD, FORWARD,
+        /**
+         * Forward flow of an allocation site of type null, which additionally tracks instanceof checks.
+         */
+        FORWARD_OF_NULL
+    }
+
+    private final Cache<Key, Collection<State>> normalFlows;
+
+    /**
+     * @param maximumSize
+     *            The maximal number of flow function results retained
+     */
+    public FlowFunctionCache(long maximumSize) {
+        this.normalFlows = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    /**
+     * @return The cached result of the normal flow function, or null if it has not been computed
+     */
+    public Collection<State> getNormalFlow(Flow flow, Stmt curr, Val fact, Stmt succ) {
+        return normalFlows.getIfPresent(new Key(flow, curr, fact, succ));
+    }
+
+    /**
+     * Stores the result of the normal flow function and returns an immutable copy of it.
+     */
+    public Collection<State> putNormalFlow(Flow flow, Stmt curr, Val fact, Stmt succ, Collection<State> out) {
+        Collection<State> copy = ImmutableSet.copyOf(out);
+        normalFlows.put(new Key(flow, curr, fact, succ), copy);
+        return copy;
+    }
+
+    /**
+     * Discards all cached flow functions, e.g. after method bodies changed.
+     */
+    public void invalidateAll() {
+        normalFlows.invalidateAll();
+    }
+
+    public long size() {
+        return normalFlows.size();
+    }
+
+    private static class Key {
+        private final Flow flow;
+        private final Stmt curr;
+        private final Val fact;
+        private final Stmt succ;
+
+        Key(Flow flow, Stmt curr, Val fact, Stmt succ) {
+            this.flow = flow;
+            this.curr = curr;
+            this.fact = fact;
+            this.succ = succ;
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ((flow == null) ? 0 : flow.hashCode());
+            result = prime * result + ((curr == null) ? 0 : curr.hashCode());
+            result = prime * result + ((fact == null) ? 0 : fact.hashCode());
+            result = prime * result + ((succ == null) ? 0 : succ.hashCode());
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null)
+                return false;
+            if (getClass() != obj.getClass())
+                return false;
+            Key other = (Key) obj;
+            if (flow != other.flow)
+                return false;
+            if (curr == null) {
+                if (other.curr != null)
+                    return false;
+            } else if (!curr.equals(other.curr))
+                return false;
+            if (fact == null) {
+                if (other.fact != null)
+                    return false;
+            } else if (!fact.equals(other.fact))
+                return false;
+            if (succ == null) {
+                if (other.succ != null)
+                    return false;
+            } else if (!succ.equals(other.succ))
+                return false;
+            return true;
+        }
+    }
+}
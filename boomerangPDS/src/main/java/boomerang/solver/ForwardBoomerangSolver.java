@@ -31,6 +31,9 @@ import boomerang.jimple.Statement;
 import boomerang.jimple.StaticFieldVal;
 import boomerang.jimple.Val;
 import boomerang.jimple.ValWithFalseVariable;
+import boomerang.jimple.ValWithPendingField;
+import boomerang.solver.FlowFunctionCache.Flow;
+import boomerang.summaries.MethodSummary;
 import soot.Body;
 import soot.Local;
 import soot.NullType;
@@ -133,11 +136,18 @@ public abstract class ForwardBoomerangSolver<W extends Weight> extends AbstractB
             if (callee.isStaticInitializer()) {
                 return;
             }
-            if(!callee.hasActiveBody()) {
+            MethodSummary summary = getSummary(callee);
+            if(!callee.hasActiveBody() || summary != null) {
             	for (State s : computeNormalFlow(caller, currNode.stmt().getUnit().get(), currNode.fact(),
                         (Stmt) callSite)) {
                     propagate(currNode, s);
                 }
+                if (summary != null) {
+                    for (State s : summary.forwardFlow(caller, (Stmt) callSite, currNode.fact(),
+                            options.trackFields())) {
+                        propagate(currNode, s);
+                    }
+                }
             	return;
             }
             // onlyStaticInitializer = false;
@@ -166,8 +176,9 @@ public abstract class ForwardBoomerangSolver<W extends Weight> extends AbstractB
     public ForwardBoomerangSolver(ObservableICFG<Unit, SootMethod> icfg, ForwardQuery query,
             Map<Entry<INode<Node<Statement, Val>>, Field>, INode<Node<Statement, Val>>> genField,
             BoomerangOptions options, NestedWeightedPAutomatons<Statement, INode<Val>, W> callSummaries,
-            NestedWeightedPAutomatons<Field, INode<Node<Statement, Val>>, W> fieldSummaries) {
-        super(icfg, query, genField, options, callSummaries, fieldSummaries);
+            NestedWeightedPAutomatons<Field, INode<Node<Statement, Val>>, W> fieldSummaries,
+            FlowFunctionCache flowFunctions) {
+        super(icfg, query, genField, options, callSummaries, fieldSummaries, flowFunctions);
     }
 
     public Collection<? extends State> computeCallFlow(SootMethod caller, Statement callSite, InvokeExpr invokeExpr,
@@ -248,22 +259,31 @@ public abstract class ForwardBoomerangSolver<W extends Weight> extends AbstractB
             SootMethod method = icfg.getMethodOf(curr);
             if (method == null)
                 return;
+            if (value instanceof ValWithPendingField) {
+                // Second half of a summary edge moving the object into a field of the value
+                propagate(node, new PushNode<Statement, Val, Field>(stmt, new Val(value.value(), method),
+                        ((ValWithPendingField) value).getPendingField(), PDSSystem.FIELDS));
+                return;
+            }
             if (icfg.isExitStmt(curr)) {
                 returnFlow(method, node);
                 return;
             }
             for (Unit next : icfg.getSuccsOf(curr)) {
-                Stmt nextStmt = (Stmt) next;
                 if (query.getType() instanceof NullType && curr instanceof IfStmt
                         && killAtIfStmt((IfStmt) curr, value, next)) {
                     continue;
                 }
-                if (nextStmt.containsInvokeExpr() && (isParameter(value, nextStmt) || value.isStatic())) {
-                    callFlow(method, node, nextStmt, nextStmt.getInvokeExpr());
-                } else if (!killFlow(method, nextStmt, value)) {
-                    Collection<State> out = computeNormalFlow(method, curr, value, nextStmt);
-                    for (State s : out) {
-                        propagate(node, s);
+                for (Unit relevant : getNextRelevantUnits(method, next, value)) {
+                    Stmt nextStmt = (Stmt) relevant;
+                    if (nextStmt.containsInvokeExpr() && (isParameter(value, nextStmt)
+                            || value.isStatic() && !bypassesCall(nextStmt, value))) {
+                        callFlow(method, node, nextStmt, nextStmt.getInvokeExpr());
+                    } else if (!killFlow(method, nextStmt, value)) {
+                        Collection<State> out = computeNormalFlow(method, curr, value, nextStmt);
+                        for (State s : out) {
+                            propagate(node, s);
+                        }
                     }
                 }
             }
@@ -342,6 +362,24 @@ public abstract class ForwardBoomerangSolver<W extends Weight> extends AbstractB
         return false;
     }
 
+    /**
+     * With a sparse value-flow graph, facts stored in locals skip the statements that do not use or define them.
+     */
+    private Collection<Unit> getNextRelevantUnits(SootMethod method, Unit next, Val value) {
+        SparseValueFlowGraph sparseGraph = getSparseValueFlowGraph();
+        if (sparseGraph == null || value.isStatic() || value instanceof ValWithFalseVariable
+                || !(value.value() instanceof Local))
+            return Collections.singleton(next);
+        return sparseGraph.getNextRelevantUnits(method, next, (Local) value.value());
+    }
+
+    /**
+     * @return The sparse value-flow graph shared by the forward solvers, or null to propagate along all statements.
+     */
+    protected SparseValueFlowGraph getSparseValueFlowGraph() {
+        return null;
+    }
+
     protected Collection<State> normalFlow(SootMethod method, Stmt curr, Val value) {
         Set<State> out = Sets.newHashSet();
         for (Unit succ : icfg.getSuccsOf(curr)) {
@@ -353,6 +391,17 @@ public abstract class ForwardBoomerangSolver<W extends Weight> extends AbstractB
 
     @Override
     public Collection<State> computeNormalFlow(SootMethod method, Stmt curr, Val fact, Stmt succ) {
+        if (flowFunctions == null)
+            return normalFlowFunction(method, curr, fact, succ);
+        // The flow of null allocation sites differs at instanceof checks
+        Flow flow = query.getType() instanceof NullType ? Flow.FORWARD_OF_NULL : Flow.FORWARD;
+        Collection<State> out = flowFunctions.getNormalFlow(flow, curr, fact, succ);
+        if (out == null)
+            out = flowFunctions.putNormalFlow(flow, curr, fact, succ, normalFlowFunction(method, curr, fact, succ));
+        return out;
+    }
+
+    private Collection<State> normalFlowFunction(SootMethod method, Stmt curr, Val fact, Stmt succ) {
         Set<State> out = Sets.newHashSet();
         if (!isFieldWriteWithBase(succ, fact)) {
             // always maintain data-flow if not a field write // killFlow has
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.solver;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
+
+import boomerang.callgraph.ObservableICFG;
+import soot.Local;
+import soot.SootMethod;
+import soot.Unit;
+import soot.ValueBox;
+import soot.jimple.ArrayRef;
+import soot.jimple.AssignStmt;
+import soot.jimple.FieldRef;
+import soot.jimple.Stmt;
+
+/**
+ * A sparse value-flow graph of the locals of a method. A fact stored in a local can skip all statements that neither
+ * use nor define the local: it directly flows to the next statements that use or redefine it, to calls and to exit
+ * statements. The successors of field and array accesses are relevant for all locals, as the points of indirection
+ * of the accesses import the flows of aliases, held in any local, at these statements. The graph is built lazily per
+ * method and local and is shared by all forward solvers.
+ */
+public class SparseValueFlowGraph {
+
+    private final ObservableICFG<Unit, SootMethod> icfg;
+    private final Map<SootMethod, Table<Unit, Local, Collection<Unit>>> successors = Maps.newHashMap();
+
+    public SparseValueFlowGraph(ObservableICFG<Unit, SootMethod> icfg) {
+        this.icfg = icfg;
+    }
+
+    /**
+     * @return The unit itself if the local is relevant at it, otherwise the relevant units first reached from it.
+     */
+    public Collection<Unit> getNextRelevantUnits(SootMethod method, Unit unit, Local local) {
+        if (isRelevant(unit, local))
+            return Collections.singleton(unit);
+        Table<Unit, Local, Collection<Unit>> methodSuccessors = successors.get(method);
+        if (methodSuccessors == null) {
+            methodSuccessors = HashBasedTable.create();
+            successors.put(method, methodSuccessors);
+        }
+        Collection<Unit> next = methodSuccessors.get(unit, local);
+        if (next == null) {
+            next = computeNextRelevantUnits(unit, local);
+            methodSuccessors.put(unit, local, next);
+        }
+        return next;
+    }
+
+    private Collection<Unit> computeNextRelevantUnits(Unit start, Local local) {
+        Set<Unit> relevant = Sets.newHashSet();
+        Set<Unit> visited = Sets.newHashSet(start);
+        LinkedList<Unit> worklist = new LinkedList<>(icfg.getSuccsOf(start));
+        while (!worklist.isEmpty()) {
+            Unit u = worklist.poll();
+            if (!visited.add(u))
+                continue;
+            if (isRelevant(u, local)) {
+                relevant.add(u);
+            } else {
+                worklist.addAll(icfg.getSuccsOf(u));
+            }
+        }
+        return relevant;
+    }
+
+    private boolean isRelevant(Unit u, Local local) {
+        if (((Stmt) u).containsInvokeExpr() || icfg.isExitStmt(u) || icfg.getSuccsOf(u).isEmpty())
+            return true;
+        for (ValueBox box : u.getUseAndDefBoxes()) {
+            if (box.getValue().equals(local))
+                return true;
+        }
+        for (Unit pred : icfg.getPredsOf(u)) {
+            if (isFieldAccess(pred))
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean isFieldAccess(Unit u) {
+        if (!(u instanceof AssignStmt))
+            return false;
+        AssignStmt as = (AssignStmt) u;
+        return as.getLeftOp() instanceof FieldRef || as.getLeftOp() instanceof ArrayRef
+                || as.getRightOp() instanceof FieldRef || as.getRightOp() instanceof ArrayRef;
+    }
+
+    /**
+     * Forgets the graph of a method whose body changed.
+     */
+    public void invalidate(SootMethod method) {
+        successors.remove(method);
+    }
+
+    public void clear() {
+        successors.clear();
+    }
+}
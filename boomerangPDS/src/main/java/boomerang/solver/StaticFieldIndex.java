@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.solver;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+
+import boomerang.callgraph.ObservableICFG;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootField;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.Stmt;
+import soot.jimple.toolkits.callgraph.CallGraph;
+import soot.jimple.toolkits.callgraph.Edge;
+
+/**
+ * An index of the static field accesses of the program, shared by all solvers. For each static field, the methods
+ * that read or write it directly or through their transitive callees are computed once, on the call graph of the
+ * scene. A fact stored in a static field skips calls to methods that do not access the field instead of being
+ * propagated through their bodies. Likewise, the static initializers that may affect a field and the start points
+ * of the entry points, to which static initializers return, are computed once.
+ */
+public class StaticFieldIndex {
+
+    private final CallGraph callGraph;
+    private Multimap<SootField, SootMethod> directAccesses;
+    // Per field, the numbers of the methods accessing it directly or transitively
+    private final Map<SootField, BitSet> transitiveAccesses = Maps.newHashMap();
+    private final Map<SootField, Collection<SootMethod>> staticInitializers = Maps.newHashMap();
+    private final Map<ObservableICFG<Unit, SootMethod>, List<Stmt>> entryPointStartPoints = Maps.newHashMap();
+
+    public StaticFieldIndex() {
+        this.callGraph = Scene.v().getCallGraph();
+    }
+
+    /**
+     * @return The methods of the scene that read or write the static field within their own body, whether or not
+     *         they are reachable in the call graph.
+     */
+    public synchronized Collection<SootMethod> getDirectAccesses(SootField field) {
+        if (directAccesses == null) {
+            directAccesses = HashMultimap.create();
+            for (SootClass c : Lists.newArrayList(Scene.v().getClasses())) {
+                for (SootMethod m : Lists.newArrayList(c.getMethods())) {
+                    if (!m.hasActiveBody())
+                        continue;
+                    for (Unit u : m.getActiveBody().getUnits()) {
+                        Stmt s = (Stmt) u;
+                        if (s.containsFieldRef() && s.getFieldRef().getField().isStatic())
+                            directAccesses.put(s.getFieldRef().getField(), m);
+                    }
+                }
+            }
+        }
+        return Collections.unmodifiableCollection(directAccesses.get(field));
+    }
+
+    /**
+     * @return true if the method or any method it transitively calls reads or writes the static field.
+     */
+    public boolean mayAccess(SootMethod method, SootField field) {
+        // Methods added to the scene after it was numbered have no number
+        if (method.getNumber() == 0)
+            return true;
+        return getTransitiveAccesses(field).get(method.getNumber());
+    }
+
+    /**
+     * @return true if any callee of the call site may read or write the static field, see
+     *         {@link #mayAccess(SootMethod, SootField)}. The callees of a call without edges in the call graph are
+     *         unknown to the index, hence they may access it.
+     */
+    public boolean mayBeAccessedByCall(Stmt callSite, SootField field) {
+        Iterator<Edge> edges = callGraph.edgesOutOf(callSite);
+        if (!edges.hasNext())
+            return true;
+        while (edges.hasNext()) {
+            if (mayAccess(edges.next().tgt(), field))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return The static initializers of the declaring class of the static field that may read or write it. Facts of
+     *         the field at the start of an entry point only flow into these initializers.
+     */
+    public synchronized Collection<SootMethod> getStaticInitializers(SootField field) {
+        Collection<SootMethod> initializers = staticInitializers.get(field);
+        if (initializers == null) {
+            initializers = Lists.newArrayList();
+            for (SootMethod m : field.getDeclaringClass().getMethods()) {
+                if (m.isStaticInitializer() && mayAccess(m, field))
+                    initializers.add(m);
+            }
+            initializers = Collections.unmodifiableCollection(initializers);
+            staticInitializers.put(field, initializers);
+        }
+        return initializers;
+    }
+
+    private synchronized BitSet getTransitiveAccesses(SootField field) {
+        BitSet accesses = transitiveAccesses.get(field);
+        if (accesses != null)
+            return accesses;
+        accesses = new BitSet();
+        LinkedList<SootMethod> worklist = Lists.newLinkedList(getDirectAccesses(field));
+        while (!worklist.isEmpty()) {
+            SootMethod m = worklist.poll();
+            if (accesses.get(m.getNumber()))
+                continue;
+            accesses.set(m.getNumber());
+            for (Iterator<Edge> callers = callGraph.edgesInto(m); callers.hasNext();) {
+                SootMethod caller = callers.next().src();
+                if (caller != null)
+                    worklist.add(caller);
+            }
+        }
+        transitiveAccesses.put(field, accesses);
+        return accesses;
+    }
+
+    /**
+     * @return The start points of all entry points in the ICFG, i.e., the exit points for a backward ICFG. Facts of
+     *         static fields leaving a static initializer flow to them.
+     */
+    public synchronized List<Stmt> getEntryPointStartPoints(ObservableICFG<Unit, SootMethod> icfg) {
+        List<Stmt> startPoints = entryPointStartPoints.get(icfg);
+        if (startPoints == null) {
+            startPoints = Lists.newArrayList();
+            for (SootMethod entryPoint : Scene.v().getEntryPoints()) {
+                for (Unit sp : icfg.getStartPointsOf(entryPoint)) {
+                    startPoints.add((Stmt) sp);
+                }
+            }
+            startPoints = Collections.unmodifiableList(startPoints);
+            entryPointStartPoints.put(icfg, startPoints);
+        }
+        return startPoints;
+    }
+}
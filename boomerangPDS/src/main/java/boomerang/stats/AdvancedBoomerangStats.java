@@ -67,6 +67,7 @@ public class AdvancedBoomerangStats<W extends Weight> implements IBoomerangStats
     private int staticFlows;
     private int fieldWritePOIs;
     private int fieldReadPOIs;
+    private Map<Statement, Long> callGraphFallbacks = Maps.newHashMap();
     private boolean COUNT_TOP_METHODS = false;
     private Map<String, Integer> backwardFieldMethodsRules = new TreeMap<>();
     private Map<String, Integer> backwardCallMethodsRules = new TreeMap<>();
@@ -89,6 +90,11 @@ public class AdvancedBoomerangStats<W extends Weight> implements IBoomerangStats
         return sortedByValues;
     }
 
+    @Override
+    public void unregisterSolver(Query key) {
+        queries.remove(key);
+    }
+
     @Override
     public void registerSolver(Query key, final AbstractBoomerangSolver<W> solver) {
         if (queries.containsKey(key)) {
@@ -185,6 +191,11 @@ public class AdvancedBoomerangStats<W extends Weight> implements IBoomerangStats
         fieldReadPOIs++;
     }
 
+    @Override
+    public void registerCallGraphFallback(Statement callSite, long resolutionCost) {
+        callGraphFallbacks.put(callSite, resolutionCost);
+    }
+
     public String toString() {
         String s = "=========== Boomerang Stats =============\n";
         int forwardQuery = 0;
@@ -213,6 +224,8 @@ public class AdvancedBoomerangStats<W extends Weight> implements IBoomerangStats
                 callTransitionCollisions);
         s += String.format("Special Flows (Static/Array): \t\t %s(%s)/%s(%s)\n", staticFlows,
                 globalCallTransitions.size(), arrayFlows, globalFieldTransitions.size());
+        s += String.format("Call Sites Resolved by Precomputed Call Graph (Cost): \t\t %s (%s)\n",
+                callGraphFallbacks.size(), sum(callGraphFallbacks.values()));
         if (COUNT_TOP_METHODS) {
             s += topMostMethods(forwardFieldMethodsRules, "forward field");
             s += topMostMethods(forwardCallMethodsRules, "forward call");
@@ -227,6 +240,14 @@ public class AdvancedBoomerangStats<W extends Weight> implements IBoomerangStats
         return s;
     }
 
+    private static long sum(Collection<Long> values) {
+        long sum = 0;
+        for (Long v : values) {
+            sum += v;
+        }
+        return sum;
+    }
+
     private String topMostMethods(Map<String, Integer> fieldMethodsRules, String system) {
         Map<String, Integer> sootMethodIntegerMap = sortByValues(fieldMethodsRules);
         int i = 0;
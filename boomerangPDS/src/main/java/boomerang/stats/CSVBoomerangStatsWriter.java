@@ -80,6 +80,7 @@ public class CSVBoomerangStatsWriter<W extends Weight> implements IBoomerangStat
     private int staticFlows;
     private int fieldWritePOIs;
     private int fieldReadPOIs;
+    private int callGraphFallbacks;
 
     private String outputFileName;
     private static final String CSV_SEPARATOR = ";";
@@ -88,7 +89,7 @@ public class CSVBoomerangStatsWriter<W extends Weight> implements IBoomerangStat
     private long memoryBefore;
 
     private enum Headers {
-        Query, QueryType, FieldTransitions, CallTransitions, CallRules, FieldRules, ReachedForwardNodes, ReachedBackwardNodes, CallVisitedMethods, FieldVisitedMethods, CallVisitedStmts, FieldVisitedStmts, FieldWritePOIs, FieldReadPOIs, StaticFlows, ArrayFlows, QueryTime, Timeout, ICFGEdges, CallGeneratedStates, FieldGeneratedStates, FieldLongestAccessPath, CallLongestCallStack, CallContainsLoop, FieldContainsLoop, MemoryBefore, MemoryAfter, MemoryDiff
+        Query, QueryType, FieldTransitions, CallTransitions, CallRules, FieldRules, ReachedForwardNodes, ReachedBackwardNodes, CallVisitedMethods, FieldVisitedMethods, CallVisitedStmts, FieldVisitedStmts, FieldWritePOIs, FieldReadPOIs, StaticFlows, ArrayFlows, QueryTime, Timeout, ICFGEdges, CallGeneratedStates, FieldGeneratedStates, FieldLongestAccessPath, CallLongestCallStack, CallContainsLoop, FieldContainsLoop, MemoryBefore, MemoryAfter, MemoryDiff, CallGraphFallbacks
     }
 
     public CSVBoomerangStatsWriter(String outputFileName) {
@@ -113,6 +114,11 @@ public class CSVBoomerangStatsWriter<W extends Weight> implements IBoomerangStat
         return sortedByValues;
     }
 
+    @Override
+    public void unregisterSolver(Query key) {
+        queries.remove(key);
+    }
+
     @Override
     public void registerSolver(Query key, final AbstractBoomerangSolver<W> solver) {
         if (queries.containsKey(key)) {
@@ -211,6 +217,11 @@ public class CSVBoomerangStatsWriter<W extends Weight> implements IBoomerangStat
         fieldReadPOIs++;
     }
 
+    @Override
+    public void registerCallGraphFallback(Statement callSite, long resolutionCost) {
+        callGraphFallbacks++;
+    }
+
     public String toString() {
         String s = "=========== Boomerang Stats =============\n";
         int forwardQuery = 0;
@@ -361,6 +372,7 @@ public class CSVBoomerangStatsWriter<W extends Weight> implements IBoomerangStat
         put(Headers.MemoryAfter, memoryAfter);
         put(Headers.MemoryBefore, memoryBefore);
         put(Headers.MemoryDiff, memoryAfter - memoryBefore);
+        put(Headers.CallGraphFallbacks, callGraphFallbacks);
         try {
             File reportFile = new File(outputFileName).getAbsoluteFile();
             if (!reportFile.getParentFile().exists()) {
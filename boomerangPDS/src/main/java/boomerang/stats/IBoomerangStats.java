@@ -33,10 +33,18 @@ import wpds.impl.Weight;
 public interface IBoomerangStats<W extends Weight> {
     void registerSolver(Query key, AbstractBoomerangSolver<W> solver);
 
+    void unregisterSolver(Query key);
+
     void registerFieldWritePOI(WeightedBoomerang<W>.FieldWritePOI key);
 
     void registerFieldReadPOI(WeightedBoomerang<W>.FieldReadPOI key);
 
+    /**
+     * Called when the on-the-fly call graph takes the callees of the call site from the precomputed call graph,
+     * because resolving them exceeded {@link boomerang.BoomerangOptions#callSiteResolutionBudget()}.
+     */
+    void registerCallGraphFallback(Statement callSite, long resolutionCost);
+
     Set<SootMethod> getCallVisitedMethods();
 
     Collection<? extends Node<Statement, Val>> getForwardReachesNodes();
@@ -44,6 +44,12 @@ public class SimpleBoomerangStats<W extends Weight> implements IBoomerangStats<W
     private Map<Query, AbstractBoomerangSolver<W>> queries = Maps.newHashMap();
     private Set<SootMethod> callVisitedMethods = Sets.newHashSet();
     private Set<SootMethod> fieldVisitedMethods = Sets.newHashSet();
+    private Map<Statement, Long> callGraphFallbacks = Maps.newHashMap();
+
+    @Override
+    public void unregisterSolver(Query key) {
+        queries.remove(key);
+    }
 
     @Override
     public void registerSolver(Query key, final AbstractBoomerangSolver<W> solver) {
@@ -78,6 +84,11 @@ public class SimpleBoomerangStats<W extends Weight> implements IBoomerangStats<W
     public void registerFieldReadPOI(WeightedBoomerang<W>.FieldReadPOI key) {
     }
 
+    @Override
+    public void registerCallGraphFallback(Statement callSite, long resolutionCost) {
+        callGraphFallbacks.put(callSite, resolutionCost);
+    }
+
     public String toString() {
         String s = "=========== Boomerang Stats =============\n";
         int forwardQuery = 0;
@@ -93,10 +104,20 @@ public class SimpleBoomerangStats<W extends Weight> implements IBoomerangStats<W
         s += String.format("Visited Methods (Field/Call): \t\t %s/%s/(%s/%s)\n", fieldVisitedMethods.size(),
                 callVisitedMethods.size(), Sets.difference(fieldVisitedMethods, callVisitedMethods).size(),
                 Sets.difference(callVisitedMethods, fieldVisitedMethods).size());
+        s += String.format("Call Sites Resolved by Precomputed Call Graph (Cost): \t\t %s (%s)\n",
+                callGraphFallbacks.size(), sum(callGraphFallbacks.values()));
         s += "\n";
         return s;
     }
 
+    private static long sum(Collection<Long> values) {
+        long sum = 0;
+        for (Long v : values) {
+            sum += v;
+        }
+        return sum;
+    }
+
     @Override
     public Collection<? extends Node<Statement, Val>> getForwardReachesNodes() {
         Set<Node<Statement, Val>> res = Sets.newHashSet();
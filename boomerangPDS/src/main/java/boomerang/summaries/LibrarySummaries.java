@@ -0,0 +1,272 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.summaries;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
+
+import boomerang.BoomerangOptions;
+import boomerang.util.ClassPathDigest;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootField;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.Stmt;
+import soot.jimple.toolkits.callgraph.CallGraph;
+import soot.jimple.toolkits.callgraph.Edge;
+
+/**
+ * Method summaries keyed by method signature. Summaries are persisted in a text file with one summary per line:
+ * <code>optionsHash&lt;TAB&gt;libraryDigest&lt;TAB&gt;signature&lt;TAB&gt;edges</code>. Summaries depend on the
+ * options they were computed with and on the library of the summarized method, hence only the lines matching the
+ * hash of the current options and the digest of the class path entry that currently contains the declaring class,
+ * see {@link ClassPathDigest#ofClass(String)}, are loaded. Summaries of a rebuilt library are ignored and must be
+ * regenerated. Hand-written summaries omit the hash and the digest and apply to all options and libraries, e.g.
+ * <code>&lt;java.util.ArrayList: java.lang.Object get(int)&gt; return &lt;- this.[elements]</code>.
+ */
+public class LibrarySummaries {
+
+    private static final String SEPARATOR = "\t";
+    private static final String CONTAINER_SUMMARIES = "/boomerang/summaries/java.util.summaries";
+    private final Map<String, MethodSummary> summaries = Maps.newHashMap();
+
+    /**
+     * @return The summary of the method, or null if the method is not summarized.
+     */
+    public MethodSummary getSummary(SootMethod method) {
+        return summaries.get(method.getSignature());
+    }
+
+    public void add(MethodSummary summary) {
+        summaries.put(summary.getSignature(), summary);
+    }
+
+    public void addAll(LibrarySummaries other) {
+        summaries.putAll(other.summaries);
+    }
+
+    public Collection<MethodSummary> getSummaries() {
+        return summaries.values();
+    }
+
+    public int size() {
+        return summaries.size();
+    }
+
+    /**
+     * A SHA-256 digest of the options that influence the data-flow of a method. Summaries of different options
+     * share a file, a collision would silently load summaries of other options.
+     */
+    public static String optionsHash(BoomerangOptions options) {
+        String flowOptions = Joiner.on(',').join(options.getClass().getName(), options.staticFlows(),
+                options.arrayFlows(), options.typeCheck(), options.throwFlows(), options.aliasing(),
+                options.killNullAtCast(), options.trackReturnOfInstanceOf(), options.trackFields(),
+                options.contextSensitive(), options.callStackBound());
+        return Hashing.sha256().hashString(flowOptions, StandardCharsets.UTF_8).toString();
+    }
+
+    /**
+     * Loads the summaries computed with options of the same hash on the current version of their library. A missing
+     * file yields no summaries.
+     */
+    public static LibrarySummaries load(File file, BoomerangOptions options) throws IOException {
+        LibrarySummaries loaded = new LibrarySummaries();
+        if (!file.exists())
+            return loaded;
+        String hash = optionsHash(options);
+        ClassPathDigest digest = new ClassPathDigest();
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+            if (line.startsWith("<")) {
+                try {
+                    loaded.add(parseDeclared(line));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Malformed summary line in " + file + ": " + line, e);
+                }
+                continue;
+            }
+            String[] columns = line.split(SEPARATOR, -1);
+            if (columns.length != 4)
+                throw new IOException("Malformed summary line in " + file + ": " + line);
+            if (!columns[0].equals(hash))
+                continue;
+            try {
+                if (!columns[1].equals(digest.ofClass(declaringClass(columns[2]))))
+                    continue;
+                loaded.add(MethodSummary.parse(columns[2], columns[3]));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Malformed summary line in " + file + ": " + line, e);
+            }
+        }
+        return loaded;
+    }
+
+    private static String declaringClass(String signature) {
+        int colon = signature.indexOf(':');
+        if (!signature.startsWith("<") || colon < 0)
+            throw new IllegalArgumentException("Malformed method signature " + signature);
+        return signature.substring(1, colon);
+    }
+
+    /**
+     * Parses a hand-written summary: a method signature followed by the edges of the method.
+     */
+    public static MethodSummary parseDeclared(String line) {
+        int end = line.indexOf(")>");
+        if (!line.startsWith("<") || end < 0)
+            throw new IllegalArgumentException("Missing method signature in " + line);
+        return MethodSummary.parse(line.substring(0, end + 2), line.substring(end + 2));
+    }
+
+    /**
+     * The built-in summaries of the common <code>java.util</code> lists, sets and maps. The contents of a container
+     * are kept in the synthetic field <code>elements</code>, the keys and values of a map in <code>keys</code> and
+     * <code>values</code>. Iterators and views copy the contents of their container, the entries of a map are
+     * represented by the map itself. Methods without a summary are analyzed and do not see the synthetic fields,
+     * see {@link #closedUnderScene()}.
+     */
+    public static LibrarySummaries containerSummaries() {
+        LibrarySummaries builtIn = new LibrarySummaries();
+        InputStream in = LibrarySummaries.class.getResourceAsStream(CONTAINER_SUMMARIES);
+        if (in == null)
+            throw new RuntimeException("Missing resource " + CONTAINER_SUMMARIES);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#"))
+                    builtIn.add(parseDeclared(line));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read " + CONTAINER_SUMMARIES, e);
+        }
+        return builtIn;
+    }
+
+    /**
+     * Removes the summaries of the classes whose instance fields an analyzed method may read or write. Summaries
+     * replace the fields of the summarized classes, the built-in summaries keep the contents in synthetic fields
+     * and generated summaries collapse field paths to their first field. An analyzed method accessing the original
+     * fields, e.g. a method of <code>HashMap$HashIterator</code> reading <code>HashMap.table</code>, would not see
+     * the objects stored by summarized methods. The analyzed methods are those reachable from the entry points in
+     * the call graph of the scene without passing through a summarized method, or all methods if the scene has no
+     * call graph. Removing the summaries of a class exposes its methods, hence the check is repeated until no more
+     * summaries are removed.
+     * 
+     * @return The summaries of the remaining classes.
+     */
+    public LibrarySummaries closedUnderScene() {
+        LibrarySummaries closed = new LibrarySummaries();
+        closed.addAll(this);
+        Set<SootClass> accessed;
+        while (!(accessed = closed.classesAccessedByAnalyzedMethods()).isEmpty()) {
+            for (Iterator<String> iter = closed.summaries.keySet().iterator(); iter.hasNext();) {
+                SootMethod m = Scene.v().grabMethod(iter.next());
+                if (m != null && accessed.contains(m.getDeclaringClass()))
+                    iter.remove();
+            }
+        }
+        return closed;
+    }
+
+    private Set<SootClass> classesAccessedByAnalyzedMethods() {
+        Set<SootClass> summarized = Sets.newHashSet();
+        for (String signature : summaries.keySet()) {
+            SootMethod m = Scene.v().grabMethod(signature);
+            if (m != null)
+                summarized.add(m.getDeclaringClass());
+        }
+        Set<SootClass> accessed = Sets.newHashSet();
+        for (SootMethod m : analyzedMethods()) {
+            // Static initializers only access static fields, which are not part of the summaries
+            if (!m.hasActiveBody() || m.isStaticInitializer())
+                continue;
+            for (Unit u : m.getActiveBody().getUnits()) {
+                Stmt s = (Stmt) u;
+                if (!s.containsFieldRef())
+                    continue;
+                SootField field = s.getFieldRef().getField();
+                if (!field.isStatic() && summarized.contains(field.getDeclaringClass()))
+                    accessed.add(field.getDeclaringClass());
+            }
+        }
+        return accessed;
+    }
+
+    private Collection<SootMethod> analyzedMethods() {
+        List<SootMethod> analyzed = Lists.newArrayList();
+        if (!Scene.v().hasCallGraph()) {
+            for (SootClass c : Lists.newArrayList(Scene.v().getClasses())) {
+                for (SootMethod m : c.getMethods()) {
+                    if (getSummary(m) == null)
+                        analyzed.add(m);
+                }
+            }
+            return analyzed;
+        }
+        CallGraph callGraph = Scene.v().getCallGraph();
+        Set<SootMethod> visited = Sets.newHashSet();
+        LinkedList<SootMethod> worklist = Lists.newLinkedList(Scene.v().getEntryPoints());
+        while (!worklist.isEmpty()) {
+            SootMethod m = worklist.poll();
+            if (getSummary(m) != null || !visited.add(m))
+                continue;
+            analyzed.add(m);
+            for (Iterator<Edge> edges = callGraph.edgesOutOf(m); edges.hasNext();) {
+                worklist.add(edges.next().tgt());
+            }
+        }
+        return analyzed;
+    }
+
+    /**
+     * Writes the summaries for the hash of the options, each with the digest of the library of the summarized method.
+     * Summaries stored for other options are kept.
+     */
+    public void write(File file, BoomerangOptions options) throws IOException {
+        String hash = optionsHash(options);
+        List<String> lines = Lists.newArrayList();
+        if (file.exists()) {
+            for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+                if (!line.startsWith(hash + SEPARATOR))
+                    lines.add(line);
+            }
+        }
+        ClassPathDigest digest = new ClassPathDigest();
+        for (MethodSummary summary : summaries.values()) {
+            String library = digest.ofClass(declaringClass(summary.getSignature()));
+            lines.add(hash + SEPARATOR + library + SEPARATOR + summary.getSignature() + SEPARATOR + summary);
+        }
+        if (file.getParentFile() != null)
+            Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.summaries;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import boomerang.BackwardQuery;
+import boomerang.ForwardQuery;
+import boomerang.ParallelBoomerang.SolverFactory;
+import boomerang.WeightedBoomerang;
+import boomerang.jimple.AllocVal;
+import boomerang.jimple.Field;
+import boomerang.jimple.Statement;
+import boomerang.jimple.Val;
+import boomerang.results.BackwardBoomerangResults;
+import boomerang.results.ForwardBoomerangResults;
+import boomerang.solver.AbstractBoomerangSolver;
+import soot.Body;
+import soot.Local;
+import soot.SootClass;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.IdentityStmt;
+import soot.jimple.ParameterRef;
+import soot.jimple.ReturnStmt;
+import soot.jimple.ReturnVoidStmt;
+import soot.jimple.Stmt;
+import soot.jimple.ThisRef;
+import sync.pds.solver.nodes.GeneratedState;
+import sync.pds.solver.nodes.INode;
+import sync.pds.solver.nodes.Node;
+import wpds.impl.Transition;
+import wpds.impl.Weight;
+import wpds.wildcard.ExclusionWildcard;
+import wpds.wildcard.Wildcard;
+
+/**
+ * Computes {@link MethodSummary}s of library methods with Boomerang. For each method, the receiver and each
+ * parameter are propagated forward to the exit statements and each returned value is propagated backward to the
+ * entry of the method. Field paths within the library are collapsed to their first field, hence a load of a field
+ * matches any store into the same field of the receiver. Flows out of the receiver, the parameters and the return
+ * value, e.g. into static fields or through callbacks, are not part of the summaries.
+ */
+public class LibrarySummaryGenerator<W extends Weight> {
+
+    private static final Logger logger = LoggerFactory.getLogger(LibrarySummaryGenerator.class);
+    private final SolverFactory<W> factory;
+
+    public LibrarySummaryGenerator(SolverFactory<W> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Summarizes all methods with a body of the classes. A class is only summarized if all its methods are,
+     * otherwise an analyzed method could access a field path that a summarized method of the class collapsed.
+     * Methods of other classes may access the fields as well, the solvers only apply the summaries of classes that
+     * are closed in the analyzed program, see {@link LibrarySummaries#closedUnderScene()}.
+     */
+    public LibrarySummaries generate(Collection<SootClass> classes) {
+        LibrarySummaries summaries = new LibrarySummaries();
+        for (SootClass c : classes) {
+            List<MethodSummary> classSummaries = Lists.newArrayList();
+            try {
+                for (SootMethod m : c.getMethods()) {
+                    if (m.hasActiveBody() && !m.isStaticInitializer())
+                        classSummaries.add(summarize(m));
+                }
+            } catch (UnsummarizableException e) {
+                logger.debug("Not summarizing {}: {}", c, e.getMessage());
+                continue;
+            }
+            for (MethodSummary s : classSummaries) {
+                summaries.add(s);
+            }
+        }
+        return summaries;
+    }
+
+    private MethodSummary summarize(SootMethod m) throws UnsummarizableException {
+        WeightedBoomerang<W> solver = factory.create();
+        Set<SummaryEdge> edges = Sets.newLinkedHashSet();
+        for (Unit u : m.getActiveBody().getUnits()) {
+            if (u instanceof IdentityStmt)
+                summarizeParameter(solver, m, (IdentityStmt) u, edges);
+            else if (u instanceof ReturnStmt && ((ReturnStmt) u).getOp() instanceof Local)
+                summarizeReturn(solver, m, (ReturnStmt) u, edges);
+        }
+        return new MethodSummary(m.getSignature(), edges);
+    }
+
+    private void summarizeParameter(WeightedBoomerang<W> solver, SootMethod m, IdentityStmt identity,
+            Set<SummaryEdge> edges) throws UnsummarizableException {
+        SummaryLocation source;
+        if (identity.getRightOp() instanceof ThisRef)
+            source = SummaryLocation.thisLocation(null);
+        else if (identity.getRightOp() instanceof ParameterRef)
+            source = SummaryLocation.arg(((ParameterRef) identity.getRightOp()).getIndex(), null);
+        else
+            return;
+        Statement stmt = new Statement(identity, m);
+        ForwardQuery query = new ForwardQuery(stmt,
+                new AllocVal(identity.getLeftOp(), m, identity.getRightOp(), stmt));
+        ForwardBoomerangResults<W> results = solver.solve(query);
+        if (results.isTimedout())
+            throw new UnsummarizableException("Timeout of " + query);
+        AbstractBoomerangSolver<W> forwardSolver = solver.getSolvers().get(query);
+        for (Transition<Field, INode<Node<Statement, Val>>> t : forwardSolver.getFieldAutomaton().getTransitions()) {
+            Node<Statement, Val> node = reachedNodeOf(t, m);
+            if (node == null)
+                continue;
+            Stmt exit = node.stmt().getUnit().get();
+            if (!(exit instanceof ReturnStmt) && !(exit instanceof ReturnVoidStmt))
+                continue;
+            String field = firstField(t);
+            SummaryLocation target = locationOf(node.fact(), exit, m, field);
+            if (target != null && !target.equals(source))
+                edges.add(new SummaryEdge(source, target));
+        }
+    }
+
+    private void summarizeReturn(WeightedBoomerang<W> solver, SootMethod m, ReturnStmt ret, Set<SummaryEdge> edges)
+            throws UnsummarizableException {
+        BackwardQuery query = new BackwardQuery(new Statement(ret, m), new Val(ret.getOp(), m));
+        BackwardBoomerangResults<W> results = solver.solve(query);
+        if (results.isTimedout())
+            throw new UnsummarizableException("Timeout of " + query);
+        SummaryLocation target = SummaryLocation.returnLocation(null);
+        for (ForwardQuery allocationSite : results.getAllocationSites().keySet()) {
+            // Arguments are allocated by the application
+            if (!allocationSite.stmt().getMethod().getDeclaringClass().isApplicationClass())
+                edges.add(new SummaryEdge(SummaryLocation.newObject(), target));
+        }
+        AbstractBoomerangSolver<W> backwardSolver = solver.getSolvers().get(query);
+        for (Transition<Field, INode<Node<Statement, Val>>> t : backwardSolver.getFieldAutomaton().getTransitions()) {
+            Node<Statement, Val> node = reachedNodeOf(t, m);
+            if (node == null)
+                continue;
+            SummaryLocation source = locationOf(node.fact(), null, m, firstField(t));
+            if (source != null)
+                edges.add(new SummaryEdge(source, target));
+        }
+    }
+
+    /**
+     * @return The node the transition starts at if it is a node within the method, null otherwise.
+     */
+    private Node<Statement, Val> reachedNodeOf(Transition<Field, INode<Node<Statement, Val>>> t, SootMethod m) {
+        if (t.getStart() instanceof GeneratedState)
+            return null;
+        Node<Statement, Val> node = t.getStart().fact();
+        if (!node.stmt().getUnit().isPresent() || !m.equals(node.stmt().getMethod()) || node.fact().isStatic())
+            return null;
+        return node;
+    }
+
+    /**
+     * @return The first field of the transition, null if the access path is empty.
+     */
+    private String firstField(Transition<Field, INode<Node<Statement, Val>>> t) throws UnsummarizableException {
+        Field label = t.getLabel();
+        if (label.equals(Field.empty()) || label.equals(Field.epsilon()))
+            return null;
+        if (label.equals(Field.array()))
+            return label.toString();
+        if (label.getSootField() == null || label instanceof Wildcard || label instanceof ExclusionWildcard)
+            throw new UnsummarizableException("Unsupported field " + label);
+        return label.getSootField().getSignature();
+    }
+
+    private SummaryLocation locationOf(Val val, Stmt stmt, SootMethod m, String field) {
+        Body body = m.getActiveBody();
+        if (!m.isStatic() && body.getThisLocal().equals(val.value()))
+            return SummaryLocation.thisLocation(field);
+        int index = body.getParameterLocals().indexOf(val.value());
+        if (index >= 0)
+            return SummaryLocation.arg(index, field);
+        if (stmt instanceof ReturnStmt && ((ReturnStmt) stmt).getOp().equals(val.value()))
+            return SummaryLocation.returnLocation(field);
+        return null;
+    }
+
+    private static class UnsummarizableException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        UnsummarizableException(String message) {
+            super(message);
+        }
+    }
+}
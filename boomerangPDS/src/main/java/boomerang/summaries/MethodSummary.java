@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.summaries;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.Sets;
+
+import boomerang.jimple.Field;
+import boomerang.jimple.Statement;
+import boomerang.jimple.Val;
+import boomerang.jimple.ValWithPendingField;
+import boomerang.summaries.SummaryLocation.Base;
+import soot.Local;
+import soot.SootMethod;
+import soot.Value;
+import soot.jimple.Stmt;
+import sync.pds.solver.SyncPDSSolver.PDSSystem;
+import sync.pds.solver.nodes.Node;
+import sync.pds.solver.nodes.NodeWithLocation;
+import sync.pds.solver.nodes.PopNode;
+import sync.pds.solver.nodes.PushNode;
+import wpds.interfaces.State;
+
+/**
+ * The data-flow of a method described by {@link SummaryEdge}s. The solvers apply the summary at a call site instead
+ * of analyzing the body of the callee. Objects passed to the callee keep flowing after the call, the edges add the
+ * flows into the receiver, the arguments and the return value.
+ */
+public class MethodSummary {
+
+    private final String signature;
+    private final Set<SummaryEdge> edges;
+
+    public MethodSummary(String signature, Collection<SummaryEdge> edges) {
+        this.signature = signature;
+        this.edges = Collections.unmodifiableSet(Sets.newLinkedHashSet(edges));
+    }
+
+    /**
+     * Parses edges separated by <code>;</code>, e.g. <code>arg0 -&gt; this.[array]; this.[array] -&gt; return</code>.
+     */
+    public static MethodSummary parse(String signature, String edges) {
+        Set<SummaryEdge> parsed = Sets.newLinkedHashSet();
+        for (String edge : edges.split(";")) {
+            if (!edge.trim().isEmpty())
+                parsed.add(SummaryEdge.parse(edge));
+        }
+        return new MethodSummary(signature, parsed);
+    }
+
+    public String getSignature() {
+        return signature;
+    }
+
+    public Set<SummaryEdge> getEdges() {
+        return edges;
+    }
+
+    /**
+     * @return true if the method may return an object it allocates. Backward solvers then analyze the body of the
+     *         method to find the allocation site.
+     */
+    public boolean returnsNewObject() {
+        for (SummaryEdge e : edges) {
+            if (e.getFrom().getBase() == Base.NEW && e.getTo().getBase() == Base.RETURN)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * The states a forward solver reaches at the call site from the fact flowing into the call. Objects moved
+     * between fields are popped into a {@link ValWithPendingField}.
+     */
+    public Collection<State> forwardFlow(SootMethod caller, Stmt callSite, Val fact, boolean trackFields) {
+        Set<State> out = Sets.newHashSet();
+        Statement stmt = new Statement(callSite, caller);
+        for (SummaryEdge e : edges) {
+            if (e.getFrom().getBase() == Base.NEW)
+                continue;
+            Value source = e.getFrom().getValueAt(callSite);
+            Value target = e.getTo().getValueAt(callSite);
+            if (source == null || !source.equals(fact.value()) || !(target instanceof Local))
+                continue;
+            if (e.isLoad() && e.isStore()) {
+                Field loaded = e.getFrom().resolveField();
+                Field stored = e.getTo().resolveField();
+                if (loaded != null && stored != null && trackFields) {
+                    NodeWithLocation<Statement, Val, Field> succNode = new NodeWithLocation<>(stmt,
+                            new ValWithPendingField(target, caller, stored), loaded);
+                    out.add(new PopNode<NodeWithLocation<Statement, Val, Field>>(succNode, PDSSystem.FIELDS));
+                }
+            } else if (e.isStore()) {
+                Field field = e.getTo().resolveField();
+                if (field != null && trackFields) {
+                    out.add(new PushNode<Statement, Val, Field>(stmt, new Val(target, caller), field,
+                            PDSSystem.FIELDS));
+                }
+            } else if (e.isLoad()) {
+                Field field = e.getFrom().resolveField();
+                if (field != null) {
+                    NodeWithLocation<Statement, Val, Field> succNode = new NodeWithLocation<>(stmt,
+                            new Val(target, caller), field);
+                    out.add(new PopNode<NodeWithLocation<Statement, Val, Field>>(succNode, PDSSystem.FIELDS));
+                }
+            } else {
+                out.add(new Node<Statement, Val>(stmt, new Val(target, caller)));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * The states a backward solver reaches at the predecessor of the call site from the fact flowing out of the
+     * call. Objects moved between fields are first popped at the call site, see {@link ValWithPendingField}.
+     */
+    public Collection<State> backwardFlow(SootMethod caller, Stmt callSite, Val fact, Stmt pred,
+            boolean trackFields) {
+        Set<State> out = Sets.newHashSet();
+        Statement stmt = new Statement(pred, caller);
+        for (SummaryEdge e : edges) {
+            if (e.getFrom().getBase() == Base.NEW)
+                continue;
+            Value source = e.getFrom().getValueAt(callSite);
+            Value target = e.getTo().getValueAt(callSite);
+            if (target == null || !target.equals(fact.value()) || !(source instanceof Local))
+                continue;
+            if (e.isLoad() && e.isStore()) {
+                Field loaded = e.getFrom().resolveField();
+                Field stored = e.getTo().resolveField();
+                if (loaded != null && stored != null && trackFields) {
+                    NodeWithLocation<Statement, Val, Field> succNode = new NodeWithLocation<>(
+                            new Statement(callSite, caller), new ValWithPendingField(source, caller, loaded),
+                            stored);
+                    out.add(new PopNode<NodeWithLocation<Statement, Val, Field>>(succNode, PDSSystem.FIELDS));
+                }
+            } else if (e.isStore()) {
+                Field field = e.getTo().resolveField();
+                if (field != null) {
+                    NodeWithLocation<Statement, Val, Field> succNode = new NodeWithLocation<>(stmt,
+                            new Val(source, caller), field);
+                    out.add(new PopNode<NodeWithLocation<Statement, Val, Field>>(succNode, PDSSystem.FIELDS));
+                }
+            } else if (e.isLoad()) {
+                Field field = e.getFrom().resolveField();
+                if (field != null && trackFields) {
+                    out.add(new PushNode<Statement, Val, Field>(stmt, new Val(source, caller), field,
+                            PDSSystem.FIELDS));
+                }
+            } else {
+                out.add(new Node<Statement, Val>(stmt, new Val(source, caller)));
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public String toString() {
+        return Joiner.on("; ").join(edges);
+    }
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.summaries;
+
+import boomerang.summaries.SummaryLocation.Base;
+
+/**
+ * An object reachable from the source location of a call is reachable from the target location after the call.
+ * Written as <code>arg0 -&gt; this.[field]</code> or, from target to source, <code>return &lt;- this.[field]</code>
+ * (<code>&rarr;</code> and <code>&larr;</code> are accepted as well). An edge with a field at the target stores the
+ * object, an edge with a field at the source loads it, an edge with fields at both sides moves it between fields.
+ */
+public class SummaryEdge {
+
+    private final SummaryLocation from;
+    private final SummaryLocation to;
+
+    public SummaryEdge(SummaryLocation from, SummaryLocation to) {
+        if (to.getBase() == Base.NEW)
+            throw new IllegalArgumentException("A new object can only be the source of an edge");
+        this.from = from;
+        this.to = to;
+    }
+
+    public static SummaryEdge parse(String edge) {
+        String s = edge.replace("\u2192", "->").replace("\u2190", "<-");
+        int arrow = s.indexOf("<-");
+        if (arrow >= 0) {
+            return new SummaryEdge(SummaryLocation.parse(s.substring(arrow + 2)),
+                    SummaryLocation.parse(s.substring(0, arrow)));
+        }
+        arrow = s.indexOf("->");
+        if (arrow < 0)
+            throw new IllegalArgumentException("Missing -> in summary edge " + edge);
+        return new SummaryEdge(SummaryLocation.parse(s.substring(0, arrow)),
+                SummaryLocation.parse(s.substring(arrow + 2)));
+    }
+
+    public SummaryLocation getFrom() {
+        return from;
+    }
+
+    public SummaryLocation getTo() {
+        return to;
+    }
+
+    public boolean isStore() {
+        return to.hasField();
+    }
+
+    public boolean isLoad() {
+        return from.hasField();
+    }
+
+    @Override
+    public String toString() {
+        return from + " -> " + to;
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + ((from == null) ? 0 : from.hashCode());
+        result = prime * result + ((to == null) ? 0 : to.hashCode());
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        SummaryEdge other = (SummaryEdge) obj;
+        if (from == null) {
+            if (other.from != null)
+                return false;
+        } else if (!from.equals(other.from))
+            return false;
+        if (to == null) {
+            if (other.to != null)
+                return false;
+        } else if (!to.equals(other.to))
+            return false;
+        return true;
+    }
+}
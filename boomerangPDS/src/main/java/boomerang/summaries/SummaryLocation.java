@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.summaries;
+
+import boomerang.jimple.Field;
+import soot.Scene;
+import soot.SootField;
+import soot.Value;
+import soot.jimple.AssignStmt;
+import soot.jimple.InstanceInvokeExpr;
+import soot.jimple.InvokeExpr;
+import soot.jimple.Stmt;
+
+/**
+ * One side of a {@link SummaryEdge}: the receiver, an argument or the return value of a call, optionally
+ * dereferenced by one field. Written as <code>this</code>, <code>arg0</code>, <code>return</code> or
+ * <code>new</code>, followed by <code>.[field]</code>. A field is either <code>array</code>, a Soot field
+ * signature or the name of a synthetic field, e.g. <code>this.[elements]</code> for the contents of a container.
+ */
+public class SummaryLocation {
+
+    public enum Base {
+        THIS, ARG, RETURN,
+        /**
+         * An object allocated within the summarized method. Only valid as source of an edge.
+         */
+        NEW
+    }
+
+    private final Base base;
+    private final int index;
+    private final String field;
+
+    private SummaryLocation(Base base, int index, String field) {
+        this.base = base;
+        this.index = index;
+        this.field = field;
+    }
+
+    public static SummaryLocation thisLocation(String field) {
+        return new SummaryLocation(Base.THIS, -1, field);
+    }
+
+    public static SummaryLocation arg(int index, String field) {
+        return new SummaryLocation(Base.ARG, index, field);
+    }
+
+    public static SummaryLocation returnLocation(String field) {
+        return new SummaryLocation(Base.RETURN, -1, field);
+    }
+
+    public static SummaryLocation newObject() {
+        return new SummaryLocation(Base.NEW, -1, null);
+    }
+
+    public static SummaryLocation parse(String location) {
+        String s = location.trim();
+        String field = null;
+        int fieldStart = s.indexOf(".[");
+        if (fieldStart >= 0) {
+            if (!s.endsWith("]"))
+                throw new IllegalArgumentException("Missing ] in summary location " + location);
+            field = s.substring(fieldStart + 2, s.length() - 1).trim();
+            if (field.isEmpty())
+                throw new IllegalArgumentException("Empty field in summary location " + location);
+            s = s.substring(0, fieldStart).trim();
+        }
+        if (s.equals("this"))
+            return thisLocation(field);
+        if (s.equals("return"))
+            return returnLocation(field);
+        if (s.equals("new")) {
+            if (field != null)
+                throw new IllegalArgumentException("A new object has no fields: " + location);
+            return newObject();
+        }
+        if (s.startsWith("arg")) {
+            try {
+                return arg(Integer.parseInt(s.substring(3)), field);
+            } catch (NumberFormatException e) {
+                // Reported below
+            }
+        }
+        throw new IllegalArgumentException("Unknown summary location " + location);
+    }
+
+    public Base getBase() {
+        return base;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public boolean hasField() {
+        return field != null;
+    }
+
+    /**
+     * @return The value the base denotes at the call site, or null if the call site has no such value.
+     */
+    public Value getValueAt(Stmt callSite) {
+        InvokeExpr invokeExpr = callSite.getInvokeExpr();
+        switch (base) {
+        case THIS:
+            if (invokeExpr instanceof InstanceInvokeExpr)
+                return ((InstanceInvokeExpr) invokeExpr).getBase();
+            return null;
+        case ARG:
+            if (index < invokeExpr.getArgCount())
+                return invokeExpr.getArg(index);
+            return null;
+        case RETURN:
+            if (callSite instanceof AssignStmt)
+                return ((AssignStmt) callSite).getLeftOp();
+            return null;
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * @return The field of this location, or null if it has no field or the field is not in the scene.
+     */
+    public Field resolveField() {
+        if (field == null)
+            return null;
+        if (field.equals(Field.array().toString()))
+            return Field.array();
+        if (!field.startsWith("<"))
+            return Field.synthetic(field);
+        SootField sootField = Scene.v().grabField(field);
+        if (sootField == null)
+            return null;
+        return new Field(sootField);
+    }
+
+    @Override
+    public String toString() {
+        String b;
+        switch (base) {
+        case THIS:
+            b = "this";
+            break;
+        case ARG:
+            b = "arg" + index;
+            break;
+        case RETURN:
+            b = "return";
+            break;
+        default:
+            b = "new";
+        }
+        return field == null ? b : b + ".[" + field + "]";
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + ((base == null) ? 0 : base.hashCode());
+        result = prime * result + index;
+        result = prime * result + ((field == null) ? 0 : field.hashCode());
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        SummaryLocation other = (SummaryLocation) obj;
+        if (base != other.base)
+            return false;
+        if (index != other.index)
+            return false;
+        if (field == null) {
+            if (other.field != null)
+                return false;
+        } else if (!field.equals(other.field))
+            return false;
+        return true;
+    }
+}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import soot.Scene;
+
+/**
+ * SHA-256 digests of the class path of the scene, used to detect that persisted results were computed on another
+ * program. A digest covers the path, size and modification time of a class path entry and, for directories, of each
+ * file below, which is cheap compared to hashing the classes and changes whenever a class or library is rebuilt. The
+ * digests of the entries are computed once per instance, an instance must not outlive a change of the class path.
+ */
+public class ClassPathDigest {
+
+    private final List<File> entries = Lists.newArrayList();
+    private final Map<File, String> entryDigests = Maps.newHashMap();
+    private final Map<File, Set<String>> archiveContents = Maps.newHashMap();
+
+    public ClassPathDigest() {
+        for (String entry : Scene.v().getSootClassPath().split(File.pathSeparator)) {
+            if (!entry.isEmpty())
+                entries.add(new File(entry));
+        }
+    }
+
+    /**
+     * @return The digest of all entries of the class path.
+     */
+    public String ofClassPath() {
+        Hasher hasher = Hashing.sha256().newHasher();
+        for (File entry : entries) {
+            hash(entry, hasher);
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * @return The digest of the first class path entry that contains the class. Classes that are on no entry, e.g.
+     *         the classes of the Java runtime on a class path without <code>rt.jar</code>, are loaded from the
+     *         runtime, their digest is the one of the version of the runtime.
+     */
+    public String ofClass(String className) {
+        String classFile = className.replace('.', '/') + ".class";
+        for (File entry : entries) {
+            if (entry.isDirectory() ? new File(entry, classFile).isFile() : contents(entry).contains(classFile))
+                return ofEntry(entry);
+        }
+        return Hashing.sha256().hashString(System.getProperty("java.runtime.version", ""), StandardCharsets.UTF_8)
+                .toString();
+    }
+
+    private String ofEntry(File entry) {
+        String digest = entryDigests.get(entry);
+        if (digest == null) {
+            Hasher hasher = Hashing.sha256().newHasher();
+            hash(entry, hasher);
+            digest = hasher.hash().toString();
+            entryDigests.put(entry, digest);
+        }
+        return digest;
+    }
+
+    private Set<String> contents(File archive) {
+        Set<String> names = archiveContents.get(archive);
+        if (names != null)
+            return names;
+        names = Sets.newHashSet();
+        if (archive.isFile()) {
+            try (ZipFile zip = new ZipFile(archive)) {
+                for (Enumeration<? extends ZipEntry> iter = zip.entries(); iter.hasMoreElements();) {
+                    names.add(iter.nextElement().getName());
+                }
+            } catch (IOException e) {
+                // Not an archive, Soot does not load classes from it either
+                names = Collections.emptySet();
+            }
+        }
+        archiveContents.put(archive, names);
+        return names;
+    }
+
+    private static void hash(File file, Hasher hasher) {
+        hasher.putString(file.getPath(), StandardCharsets.UTF_8);
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children == null)
+                return;
+            Arrays.sort(children);
+            for (File child : children) {
+                hash(child, hasher);
+            }
+        } else if (file.exists()) {
+            hasher.putLong(file.length());
+            hasher.putLong(file.lastModified());
+        }
+    }
+}
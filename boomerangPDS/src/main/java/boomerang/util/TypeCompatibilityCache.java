@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package boomerang.util;
+
+import java.util.Map.Entry;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Maps;
+
+import soot.FastHierarchy;
+import soot.RefType;
+import soot.Scene;
+import soot.Type;
+
+/**
+ * Memoizes {@link FastHierarchy#canStoreType(Type, Type)}, which walks the class hierarchy. The cache is shared by
+ * all solvers and bounded. It is bound to the hierarchy of the current scene and is discarded as soon as the scene
+ * builds a new hierarchy, e.g., after Soot was reset.
+ */
+public class TypeCompatibilityCache {
+
+    private static final long MAXIMUM_SIZE = 100000;
+    private static volatile TypeCompatibilityCache instance;
+
+    private final FastHierarchy hierarchy;
+    private final Cache<Entry<Type, Type>, Boolean> canStore = CacheBuilder.newBuilder().maximumSize(MAXIMUM_SIZE)
+            .build();
+
+    private TypeCompatibilityCache(FastHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+    }
+
+    /**
+     * @return The cache for the hierarchy of the current scene.
+     */
+    public static TypeCompatibilityCache v() {
+        FastHierarchy hierarchy = Scene.v().getOrMakeFastHierarchy();
+        TypeCompatibilityCache cache = instance;
+        if (cache == null || cache.hierarchy != hierarchy) {
+            cache = new TypeCompatibilityCache(hierarchy);
+            instance = cache;
+        }
+        return cache;
+    }
+
+    /**
+     * @return true if an object of type child can be stored in a variable of type parent.
+     */
+    public boolean canStoreType(Type child, Type parent) {
+        if (child.equals(parent))
+            return true;
+        Entry<Type, Type> key = Maps.immutableEntry(child, parent);
+        Boolean result = canStore.getIfPresent(key);
+        if (result == null) {
+            result = hierarchy.canStoreType(child, parent);
+            canStore.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * @return true if a variable of type source and a variable of type target may point to the same object. As
+     *         {@link FastHierarchy#canStoreType(Type, Type)} does not properly handle interfaces, an interface type
+     *         target is compatible with any type.
+     */
+    public boolean mayPointToSameObject(RefType source, RefType target) {
+        if (target.getSootClass().isInterface())
+            return true;
+        return canStoreType(target, source) || canStoreType(source, target);
+    }
+}
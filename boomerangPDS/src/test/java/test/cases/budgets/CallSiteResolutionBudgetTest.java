@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.cases.budgets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.Maps;
+
+import boomerang.BackwardQuery;
+import boomerang.Boomerang;
+import boomerang.ForwardQuery;
+import test.cases.fields.Alloc;
+import test.core.AbstractQueryTest;
+
+public class CallSiteResolutionBudgetTest extends AbstractQueryTest {
+
+    private long budget = -1;
+
+    @Override
+    protected void analyze(List<BackwardQuery> queries) {
+        assertEquals(2, queries.size());
+        BackwardQuery first = queries.get(0);
+
+        Map<BackwardQuery, Set<ForwardQuery>> expected = Maps.newHashMap();
+        Boomerang unlimited = createSolver(new ResolutionOptions());
+        for (BackwardQuery q : queries) {
+            expected.put(q, allocationSitesOf(unlimited.solve(q)));
+            assertFalse(expected.get(q).isEmpty());
+        }
+        assertEquals(0, unlimited.icfg().getNumberOfEdgesTakenFromPrecomputedGraph());
+
+        // A nested query is aborted as soon as it exceeds its budget, its solvers are recomputed afterwards
+        Boomerang single = createSolver(new ResolutionOptions());
+        single.solve(first);
+        long transitions = single.getNumberOfTransitions();
+        Boomerang aborted = createSolver(new ResolutionOptions());
+        assertNull(aborted.solveWithinBudget(first, transitions / 2));
+        assertEquals(transitions / 2 + 1, aborted.getNumberOfTransitions());
+        assertEquals(expected.get(first), allocationSitesOf(aborted.solve(first)));
+
+        // The query for the receiver of the first call site exceeds the budget and is aborted. The second call site
+        // shares that query, it falls back without solving it again.
+        budget = 1;
+        Boomerang limited = createSolver(new ResolutionOptions());
+        for (BackwardQuery q : queries) {
+            assertEquals(expected.get(q), allocationSitesOf(limited.solve(q)));
+        }
+        assertEquals(2, limited.icfg().getNumberOfEdgesTakenFromPrecomputedGraph());
+        assertTrue(limited.getNumberOfTransitions() < unlimited.getNumberOfTransitions());
+    }
+
+    private class ResolutionOptions extends TestOptions {
+        @Override
+        public long callSiteResolutionBudget() {
+            return budget;
+        }
+
+        @Override
+        public boolean normalizeBackwardQueries() {
+            return true;
+        }
+    }
+
+    @Test
+    public void sharedReceiverQuery() {
+        Holder holder = new Holder();
+        holder.set(new Impl());
+        Base base = holder.get();
+        Alloc first = base.create();
+        Alloc second = base.create();
+        queryFor(first);
+        queryFor(second);
+    }
+
+    private static abstract class Base {
+        abstract Alloc create();
+    }
+
+    private static class Impl extends Base {
+        @Override
+        Alloc create() {
+            return new Alloc();
+        }
+    }
+
+    private static class Holder {
+        private Base content;
+
+        void set(Base b) {
+            content = b;
+        }
+
+        Base get() {
+            return content;
+        }
+    }
+}
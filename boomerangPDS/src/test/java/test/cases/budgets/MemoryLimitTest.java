@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.cases.budgets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import boomerang.BackwardQuery;
+import boomerang.Boomerang;
+import boomerang.BoomerangMemoryLimitException;
+import boomerang.results.BackwardBoomerangResults;
+import test.cases.fields.Alloc;
+import test.core.AbstractQueryTest;
+import wpds.impl.Weight.NoWeight;
+
+public class MemoryLimitTest extends AbstractQueryTest {
+
+    private static final long ONE_MB = 1024L * 1024L;
+
+    private int memoryLimitMB = -1;
+
+    @Override
+    protected void analyze(List<BackwardQuery> queries) {
+        assertEquals(2, queries.size());
+        BackwardQuery mapQuery = queries.get(0);
+        BackwardQuery localQuery = queries.get(1);
+
+        Boomerang unlimited = createSolver(new LimitedOptions());
+        unlimited.solve(mapQuery);
+        assertTrue("The query must grow the solvers by more than the limit",
+                unlimited.estimateFootprintInBytes() > ONE_MB);
+
+        memoryLimitMB = 1;
+        BackwardBoomerangResults<NoWeight> limited = createSolver(new LimitedOptions()).solve(mapQuery);
+        assertTrue(limited.isTimedout());
+        assertTrue(limited.getAbortReason() instanceof BoomerangMemoryLimitException);
+
+        // The solvers cached by the first query exceed the limit, but the second query does not grow them by much
+        BackwardBoomerangResults<NoWeight> cached = unlimited.solve(localQuery);
+        assertFalse(cached.isTimedout());
+        assertNull(cached.getAbortReason());
+        assertEquals(allocationSitesOf(localQuery), allocationSitesOf(cached));
+    }
+
+    private class LimitedOptions extends TestOptions {
+        @Override
+        public int analysisMemoryLimitMB() {
+            return memoryLimitMB;
+        }
+    }
+
+    @Test
+    public void cachedSolversDoNotCount() {
+        Map<Object, Object> map = new HashMap<>();
+        map.put(new Object(), new Alloc());
+        Object value = map.get(new Object());
+        queryFor(value);
+        Alloc local = new Alloc();
+        queryFor(local);
+    }
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.cases.budgets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.Maps;
+
+import boomerang.BackwardQuery;
+import boomerang.Boomerang;
+import boomerang.ForwardQuery;
+import boomerang.results.BackwardBoomerangResults;
+import test.cases.fields.Alloc;
+import test.core.AbstractQueryTest;
+import wpds.impl.Weight.NoWeight;
+
+public class SolverCacheTest extends AbstractQueryTest {
+
+    private int solverCacheSize = -1;
+
+    @Override
+    protected void analyze(List<BackwardQuery> queries) {
+        Map<BackwardQuery, Set<ForwardQuery>> expected = Maps.newHashMap();
+        for (BackwardQuery q : queries) {
+            expected.put(q, allocationSitesOf(q));
+            assertFalse(expected.get(q).isEmpty());
+        }
+
+        // Queries sharing an allocation site share its forward solver, evicting it alone loses their results
+        for (solverCacheSize = 1; solverCacheSize <= 4; solverCacheSize++) {
+            Boomerang solver = createSolver(new CacheOptions());
+            for (int round = 0; round < 2; round++) {
+                for (BackwardQuery q : queries) {
+                    assertEquals("Cache size " + solverCacheSize, expected.get(q),
+                            allocationSitesOf(solver.solve(q)));
+                }
+            }
+        }
+
+        solverCacheSize = 1;
+        Boomerang solver = createSolver(new CacheOptions());
+        BackwardBoomerangResults<NoWeight> stale = solver.solve(queries.get(0));
+        solver.solve(queries.get(1));
+        try {
+            stale.getAllocationSites();
+            fail("Results of an evicted query");
+        } catch (IllegalStateException e) {
+        }
+    }
+
+    private class CacheOptions extends TestOptions {
+        @Override
+        public int solverCacheSize() {
+            return solverCacheSize;
+        }
+    }
+
+    @Test
+    public void evictDependencyGroups() {
+        Alloc a = new Alloc();
+        Alloc b = new Alloc();
+        Alloc c = a;
+        queryFor(a);
+        queryFor(b);
+        queryFor(c);
+    }
+}
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.cases.budgets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import boomerang.BackwardQuery;
+import boomerang.Boomerang;
+import boomerang.BoomerangBudgetExceededException;
+import boomerang.results.BackwardBoomerangResults;
+import test.cases.fields.Alloc;
+import test.core.AbstractQueryTest;
+import wpds.impl.Weight.NoWeight;
+
+public class StepBudgetTest extends AbstractQueryTest {
+
+    private long transitionBudget = -1;
+    private long ruleBudget = -1;
+    private long reachedNodeBudget = -1;
+
+    @Override
+    protected void analyze(List<BackwardQuery> queries) {
+        assertEquals(2, queries.size());
+        BackwardQuery mapQuery = queries.get(0);
+        BackwardQuery localQuery = queries.get(1);
+
+        Boomerang unlimited = createSolver(new BudgetOptions());
+        BackwardBoomerangResults<NoWeight> results = unlimited.solve(mapQuery);
+        assertFalse(results.isTimedout());
+        long transitions = unlimited.getNumberOfTransitions();
+        // The rule and node budgets are only checked every 1024 transitions
+        assertTrue("The query must add more transitions than the check interval", transitions > 2048);
+
+        transitionBudget = transitions / 2;
+        assertBudgetExceeded("transitions", transitionBudget + 1, transitionBudget, mapQuery);
+        assertBudgetExceeded("transitions", transitionBudget + 1, transitionBudget, mapQuery);
+
+        transitionBudget = transitions;
+        BackwardBoomerangResults<NoWeight> withinBudget = createSolver(new BudgetOptions()).solve(mapQuery);
+        assertFalse(withinBudget.isTimedout());
+        assertEquals(allocationSitesOf(results), allocationSitesOf(withinBudget));
+
+        // Budgets apply per query, the transitions of earlier queries do not count
+        transitionBudget = transitions / 2;
+        BackwardBoomerangResults<NoWeight> cached = unlimited.solve(localQuery);
+        assertFalse(cached.isTimedout());
+        assertNull(cached.getAbortReason());
+        assertEquals(allocationSitesOf(localQuery), allocationSitesOf(cached));
+
+        transitionBudget = -1;
+        ruleBudget = 1;
+        assertTrue(solveExceeding(mapQuery).getBudget().equals("rules"));
+        ruleBudget = -1;
+        reachedNodeBudget = 1;
+        assertTrue(solveExceeding(mapQuery).getBudget().equals("reached nodes"));
+    }
+
+    private void assertBudgetExceeded(String budget, long value, long limit, BackwardQuery query) {
+        BoomerangBudgetExceededException e = solveExceeding(query);
+        assertEquals(budget, e.getBudget());
+        assertEquals(value, e.getValue());
+        assertEquals(limit, e.getLimit());
+    }
+
+    private BoomerangBudgetExceededException solveExceeding(BackwardQuery query) {
+        BackwardBoomerangResults<NoWeight> results = createSolver(new BudgetOptions()).solve(query);
+        assertTrue(results.isTimedout());
+        assertTrue(results.getAbortReason() instanceof BoomerangBudgetExceededException);
+        return (BoomerangBudgetExceededException) results.getAbortReason();
+    }
+
+    private class BudgetOptions extends TestOptions {
+        @Override
+        public long analysisTransitionBudget() {
+            return transitionBudget;
+        }
+
+        @Override
+        public long analysisRuleBudget() {
+            return ruleBudget;
+        }
+
+        @Override
+        public long analysisReachedNodeBudget() {
+            return reachedNodeBudget;
+        }
+    }
+
+    @Test
+    public void budgetsPerQuery() {
+        Map<Object, Object> map = new HashMap<>();
+        map.put(new Object(), new Alloc());
+        Object value = map.get(new Object());
+        queryFor(value);
+        Alloc local = new Alloc();
+        queryFor(local);
+    }
+}
@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.cases.daemon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+import boomerang.BackwardQuery;
+import boomerang.ForwardQuery;
+import boomerang.daemon.BoomerangDaemon;
+import soot.Local;
+import test.cases.fields.Alloc;
+import test.core.AbstractQueryTest;
+
+public class BoomerangDaemonTest extends AbstractQueryTest {
+
+    @Override
+    protected void analyze(List<BackwardQuery> queries) {
+        assertEquals(3, queries.size());
+        BoomerangDaemon daemon = new BoomerangDaemon(60000, null);
+        for (BackwardQuery q : queries) {
+            JSONObject response = daemon.handle(request(1, "backward", q, "variable", q, ", \"timeoutMs\": 10000"));
+            assertEquals(response.toJSONString(), "ok", response.get("status"));
+            assertEquals(1L, response.get("id"));
+            Set<String> expected = Sets.newHashSet();
+            for (ForwardQuery site : allocationSitesOf(q)) {
+                expected.add(site.stmt().getUnit().get().toString());
+            }
+            Set<String> actual = Sets.newHashSet();
+            for (Object site : (JSONArray) response.get("allocationSites")) {
+                actual.add((String) ((JSONObject) site).get("statement"));
+            }
+            assertFalse(expected.isEmpty());
+            assertEquals(expected, actual);
+        }
+
+        // The variables a and c of the test case point to the same object, b to another one
+        BackwardQuery a = queries.get(0);
+        BackwardQuery b = queries.get(1);
+        BackwardQuery c = queries.get(2);
+        JSONObject alias = daemon.handle(request(2, "alias", c, "variable", a,
+                ", \"other\": \"" + localName(c) + "\""));
+        assertEquals(alias.toJSONString(), Boolean.TRUE, alias.get("mayAlias"));
+        alias = daemon.handle(request(3, "alias", c, "variable", a, ", \"other\": \"" + localName(b) + "\""));
+        assertEquals(alias.toJSONString(), Boolean.FALSE, alias.get("mayAlias"));
+
+        ForwardQuery allocation = allocationSitesOf(a).iterator().next();
+        JSONObject forward = daemon.handle("{\"id\": 4, \"type\": \"forward\", \"method\": \""
+                + allocation.stmt().getMethod().getSignature() + "\", \"statement\": \""
+                + allocation.stmt().getUnit().get() + "\"}");
+        assertEquals(forward.toJSONString(), "ok", forward.get("status"));
+        assertTrue(forward.get("invokedMethods") instanceof JSONArray);
+
+        assertError(daemon.handle("{\"id\": 5, "), "Malformed request");
+        assertError(daemon.handle("[]"), "Expected a JSON object");
+        assertError(daemon.handle("{\"id\": 6, \"type\": \"sideways\"}"), "Unknown request type sideways");
+        assertError(daemon.handle("{\"id\": 7, \"type\": \"backward\"}"), "Missing method");
+        assertError(daemon.handle("{\"id\": 8, \"type\": \"backward\", \"method\": \"<a.B: void m()>\"}"),
+                "Unknown method <a.B: void m()>");
+        assertError(daemon.handle(request(9, "forward", a, "variable", a, "")), "Not an allocation site");
+        assertError(daemon.handle(request(10, "backward", a, "variable", a, ", \"timeoutMs\": \"1\"")),
+                "Timeout must be a number");
+
+        // Errors do not affect later requests
+        JSONObject again = daemon.handle(request(11, "backward", a, "variable", a, ""));
+        assertEquals(again.toJSONString(), "ok", again.get("status"));
+
+        assertFalse(daemon.isShutdown());
+        JSONObject shutdown = daemon.handle("{\"id\": 12, \"type\": \"shutdown\"}");
+        assertEquals("ok", shutdown.get("status"));
+        assertEquals(12L, shutdown.get("id"));
+        assertTrue(daemon.isShutdown());
+
+        try {
+            assertListensOnLoopback(new BoomerangDaemon(60000, null));
+        } catch (IOException | InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Connects with a wrong token, which is rejected, then with the right one and shuts the daemon down.
+     */
+    private static void assertListensOnLoopback(final BoomerangDaemon daemon)
+            throws IOException, InterruptedException {
+        final int port;
+        try (ServerSocket free = new ServerSocket(0, 0, InetAddress.getLoopbackAddress())) {
+            port = free.getLocalPort();
+        }
+        final AtomicReference<IOException> failure = new AtomicReference<IOException>();
+        Thread listener = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    daemon.listen(port, "secret");
+                } catch (IOException e) {
+                    failure.set(e);
+                }
+            }
+        });
+        listener.start();
+
+        try (Socket client = connect(port)) {
+            BufferedReader in = send(client, "{\"token\": \"wrong\"}");
+            assertError(parse(in.readLine()), "Authentication failed");
+            assertNull(in.readLine());
+        }
+        assertFalse(daemon.isShutdown());
+
+        try (Socket client = connect(port)) {
+            BufferedReader in = send(client, "{\"token\": \"secret\"}", "{\"id\": 1, \"type\": \"shutdown\"}");
+            assertEquals("ok", parse(in.readLine()).get("status"));
+            JSONObject shutdown = parse(in.readLine());
+            assertEquals("ok", shutdown.get("status"));
+            assertEquals(1L, shutdown.get("id"));
+        }
+        listener.join(10000);
+        assertFalse(listener.isAlive());
+        assertNull(failure.get());
+        assertTrue(daemon.isShutdown());
+    }
+
+    private static Socket connect(int port) throws IOException, InterruptedException {
+        // The daemon binds its port asynchronously
+        for (int attempt = 0;; attempt++) {
+            try {
+                return new Socket(InetAddress.getLoopbackAddress(), port);
+            } catch (ConnectException e) {
+                if (attempt >= 100)
+                    throw e;
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    private static BufferedReader send(Socket client, String... lines) throws IOException {
+        client.setSoTimeout(10000);
+        Writer out = new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8);
+        for (String line : lines) {
+            out.write(line + "\n");
+        }
+        out.flush();
+        return new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    private static JSONObject parse(String line) {
+        assertNotNull(line);
+        try {
+            return (JSONObject) new JSONParser().parse(line);
+        } catch (ParseException e) {
+            throw new AssertionError("Malformed response " + line, e);
+        }
+    }
+
+    private static String request(int id, String type, BackwardQuery at, String variableKey, BackwardQuery variable,
+            String more) {
+        return "{\"id\": " + id + ", \"type\": \"" + type + "\", \"method\": \"" + at.stmt().getMethod().getSignature()
+                + "\", \"statement\": \"" + at.stmt().getUnit().get() + "\", \"" + variableKey + "\": \""
+                + localName(variable) + "\"" + more + "}";
+    }
+
+    private static String localName(BackwardQuery query) {
+        return ((Local) query.var().value()).getName();
+    }
+
+    private static void assertError(JSONObject response, String message) {
+        assertEquals(response.toJSONString(), "error", response.get("status"));
+        assertTrue(response.toJSONString(), ((String) response.get("message")).startsWith(message));
+    }
+
+    @Test
+    public void requests() {
+        Alloc a = new Alloc();
+        Alloc b = new Alloc();
+        Alloc c = a;
+        queryFor(a);
+        queryFor(b);
+        queryFor(c);
+    }
+}
@@ -31,6 +31,17 @@ public class ReadPOITest extends AbstractBoomerangTest {
         queryFor(query);
     }
 
+    @Test
+    public void indirectAllocationSiteWithUnrelatedStatement() {
+        A a = new A();
+        A b = a;
+        Alloc alloc = new Alloc();
+        a.b = alloc;
+        A unrelated = new A();
+        Alloc query = b.b;
+        queryFor(query);
+    }
+
     @Test
     public void indirectAllocationSiteTwoFields3Address() {
         Node a = new Node();
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.cases.incremental;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import boomerang.BackwardQuery;
+import boomerang.Boomerang;
+import boomerang.ForwardQuery;
+import boomerang.Query;
+import soot.Body;
+import soot.Local;
+import soot.Scene;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.ReturnStmt;
+import test.cases.fields.Alloc;
+import test.core.AbstractQueryTest;
+
+public class InvalidateTest extends AbstractQueryTest {
+
+    @Override
+    protected void analyze(List<BackwardQuery> queries) {
+        assertEquals(2, queries.size());
+        BackwardQuery selected = queries.get(0);
+        BackwardQuery local = queries.get(1);
+
+        Boomerang solver = createSolver(new TestOptions());
+        Set<ForwardQuery> before = allocationSitesOf(solver.solve(selected));
+        assertEquals(1, before.size());
+        solver.solve(local);
+
+        SootMethod select = Scene.v().getSootClass(InvalidateTest.class.getName()).getMethodByName("select");
+        returnParameter(select, 1);
+        Set<Query> invalidated = solver.invalidate(Collections.singleton(select));
+        assertTrue(invalidated.contains(selected));
+        assertFalse(invalidated.contains(local));
+
+        // The solver analyzes the new body, the results equal those of a fresh solver
+        Set<ForwardQuery> after = allocationSitesOf(solver.solve(selected));
+        assertEquals(allocationSitesOf(selected), after);
+        assertFalse(before.equals(after));
+        assertEquals(allocationSitesOf(local), allocationSitesOf(solver.solve(local)));
+
+        // The precomputed call graph of the static ICFG cannot be updated
+        try {
+            createStaticSolver(new TestOptions()).invalidate(Collections.singleton(select));
+            fail("Invalidated a solver on the static ICFG");
+        } catch (UnsupportedOperationException e) {
+        }
+    }
+
+    /**
+     * Replaces the body of the method by one returning the parameter with the given index.
+     */
+    private static void returnParameter(SootMethod m, int index) {
+        Body body = (Body) m.getActiveBody().clone();
+        Local parameter = body.getParameterLocal(index);
+        for (Unit u : body.getUnits()) {
+            if (u instanceof ReturnStmt)
+                ((ReturnStmt) u).setOp(parameter);
+        }
+        m.setActiveBody(body);
+    }
+
+    @Test
+    public void changedCallee() {
+        Alloc a = new Alloc();
+        Alloc b = new Alloc();
+        Alloc selected = select(a, b);
+        queryFor(selected);
+        Alloc local = new Alloc();
+        queryFor(local);
+    }
+
+    private static Alloc select(Alloc first, Alloc second) {
+        return first;
+    }
+}
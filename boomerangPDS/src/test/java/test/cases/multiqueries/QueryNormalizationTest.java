@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.cases.multiqueries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import boomerang.BackwardQuery;
+import boomerang.Boomerang;
+import boomerang.util.AccessPath;
+import test.cases.fields.Alloc;
+import test.core.AbstractQueryTest;
+
+public class QueryNormalizationTest extends AbstractQueryTest {
+
+    @Override
+    protected void analyze(List<BackwardQuery> queries) {
+        assertEquals(3, queries.size());
+        BackwardQuery first = queries.get(0);
+        BackwardQuery second = queries.get(1);
+        BackwardQuery copy = queries.get(2);
+
+        Boomerang solver = createSolver(new NormalizingOptions());
+        // Both queries for the local walk back to its defining statement, the copy stops at its own
+        BackwardQuery normalized = solver.normalize(first);
+        assertFalse(normalized.equals(first));
+        assertEquals(normalized, solver.normalize(second));
+        assertEquals(normalized, solver.normalize(normalized));
+        assertFalse(normalized.equals(solver.normalize(copy)));
+        assertEquals(second, createSolver(new TestOptions()).normalize(second));
+
+        for (BackwardQuery q : queries) {
+            assertEquals(allocationSitesOf(q), allocationSitesOf(solver.solve(q)));
+        }
+        // The copy aliases the local after the defining statement, the aliases are extracted at the query
+        Set<AccessPath> aliases = createSolver(new NormalizingOptions()).solve(second).getAllAliases();
+        assertEquals(createSolver(new TestOptions()).solve(second).getAllAliases(), aliases);
+        assertTrue(aliases.size() > createSolver(new TestOptions()).solve(first).getAllAliases().size());
+        // The second query is answered by the solver of the first one
+        Boomerang shared = createSolver(new NormalizingOptions());
+        shared.solve(first);
+        int solvers = shared.getSolvers().size();
+        shared.solve(second);
+        assertEquals(solvers, shared.getSolvers().size());
+    }
+
+    private class NormalizingOptions extends TestOptions {
+        @Override
+        public boolean normalizeBackwardQueries() {
+            return true;
+        }
+    }
+
+    @Test
+    public void consecutiveQueriesOfOneLocal() {
+        Alloc a = new Alloc();
+        queryFor(a);
+        Alloc b = a;
+        queryFor(a);
+        queryFor(b);
+    }
+}
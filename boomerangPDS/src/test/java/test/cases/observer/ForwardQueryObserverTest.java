@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.cases.observer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+import boomerang.BackwardQuery;
+import boomerang.Boomerang;
+import boomerang.ForwardQuery;
+import boomerang.Query;
+import boomerang.QueryObserver;
+import boomerang.jimple.Statement;
+import boomerang.jimple.Val;
+import boomerang.results.ForwardBoomerangResults;
+import sync.pds.solver.nodes.Node;
+import test.cases.fields.Alloc;
+import test.core.AbstractQueryTest;
+import wpds.impl.Weight.NoWeight;
+
+public class ForwardQueryObserverTest extends AbstractQueryTest {
+
+    @Override
+    protected void analyze(List<BackwardQuery> queries) {
+        BackwardQuery query = queries.get(0);
+        ForwardQuery allocationSite = allocationSitesOf(query).iterator().next();
+        Boomerang reference = createSolver(new TestOptions());
+        reference.solve(allocationSite);
+        Set<Node<Statement, Val>> expected = reference.getSolvers().get(allocationSite).getReachedStates();
+
+        Boomerang solver = createSolver(new TestOptions());
+        final Set<Node<Statement, Val>> observed = Sets.newHashSet();
+        solver.solve(allocationSite, new QueryObserver() {
+            @Override
+            public void onReachedNode(Node<Statement, Val> node) {
+                observed.add(node);
+            }
+        });
+        assertEquals(expected, observed);
+
+        // Cancel after the first nodes, the incomplete solver is recomputed by the next query
+        solver = createSolver(new TestOptions());
+        ForwardBoomerangResults<NoWeight> cancelled = solver.solve(allocationSite, new QueryObserver() {
+            private int nodes;
+
+            @Override
+            public void onReachedNode(Node<Statement, Val> node) {
+                if (++nodes == 2)
+                    cancel();
+            }
+        });
+        assertTrue(cancelled.isTerminatedEarly());
+        solver.solve(allocationSite);
+        assertEquals(expected, solver.getSolvers().get(allocationSite).getReachedStates());
+
+        // The listeners of an observed query are removed from the solvers once it is finished
+        Boomerang unobserved = createSolver(new TestOptions());
+        unobserved.solve(query);
+        Boomerang observedSolver = createSolver(new TestOptions());
+        observedSolver.solve(query, new QueryObserver() {
+        });
+        assertEquals(stateListenersOf(unobserved), stateListenersOf(observedSolver));
+    }
+
+    private static int stateListenersOf(Boomerang solver) {
+        int listeners = 0;
+        for (Query q : solver.getSolvers().keySet()) {
+            listeners += solver.getSolvers().get(q).getFieldAutomaton().getNumberOfStateListeners();
+            listeners += solver.getSolvers().get(q).getCallAutomaton().getNumberOfStateListeners();
+        }
+        return listeners;
+    }
+
+    @Test
+    public void observedForwardQuery() {
+        Alloc a = new Alloc();
+        Alloc b = a;
+        Container c = new Container();
+        c.field = b;
+        Alloc d = c.field;
+        queryFor(d);
+    }
+
+    private static class Container {
+        Alloc field;
+    }
+}
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.cases.observer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.base.Predicate;
+
+import boomerang.BackwardQuery;
+import boomerang.Boomerang;
+import boomerang.ForwardQuery;
+import boomerang.QueryObserver;
+import boomerang.jimple.Statement;
+import boomerang.jimple.Val;
+import boomerang.results.BackwardBoomerangResults;
+import sync.pds.solver.nodes.Node;
+import test.cases.fields.Alloc;
+import test.core.AbstractQueryTest;
+import wpds.impl.Weight.NoWeight;
+
+public class QueryObserverTest extends AbstractQueryTest {
+
+    @Override
+    protected void analyze(List<BackwardQuery> queries) {
+        assertEquals(2, queries.size());
+        BackwardQuery query = queries.get(0);
+        BackwardQuery other = queries.get(1);
+        Set<ForwardQuery> expected = allocationSitesOf(query);
+        assertEquals(3, expected.size());
+
+        // Stop at the first allocation site, the solver must not reuse the incomplete solvers afterwards
+        Boomerang solver = createSolver(new TestOptions());
+        BackwardBoomerangResults<NoWeight> early = solver.solve(query, new Predicate<ForwardQuery>() {
+            @Override
+            public boolean apply(ForwardQuery allocationSite) {
+                return true;
+            }
+        });
+        assertTrue(early.isTerminatedEarly());
+        Set<ForwardQuery> found = allocationSitesOf(early);
+        assertFalse(found.isEmpty());
+        assertTrue(expected.containsAll(found));
+        assertEquals(expected, allocationSitesOf(solver.solve(query)));
+
+        // On a warm solver, the observer is replayed the reached nodes and cancels before the query is solved
+        solver = createSolver(new TestOptions());
+        solver.solve(query);
+        BackwardBoomerangResults<NoWeight> cancelled = solver.solve(query, new QueryObserver() {
+            @Override
+            public void onReachedNode(Node<Statement, Val> node) {
+                cancel();
+            }
+        });
+        assertTrue(cancelled.isTerminatedEarly());
+        // A leaked observer would cancel the solvers created by the next query
+        BackwardBoomerangResults<NoWeight> next = solver.solve(other);
+        assertFalse(next.isTerminatedEarly());
+        assertEquals(allocationSitesOf(other), allocationSitesOf(next));
+        assertEquals(expected, allocationSitesOf(solver.solve(query)));
+    }
+
+    @Test
+    public void cancelledQueries() {
+        Alloc a = new Alloc();
+        if (staticallyUnknown())
+            a = new Alloc();
+        if (staticallyUnknown())
+            a = new Alloc();
+        queryFor(a);
+        Alloc b = new Alloc();
+        queryFor(b);
+    }
+}
@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.cases.options;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite.SuiteClasses;
+
+import test.cases.lists.ArrayListsLongTest;
+import test.cases.lists.LinkedListsLongTest;
+import test.cases.sets.HashMapGetLongTest;
+import test.cases.sets.HashMapsLongTest;
+import test.cases.sets.HashSetsLongTest;
+import test.core.OptionSuite;
+import test.core.OptionSuite.EnabledOption;
+import test.core.OptionSuite.Option;
+
+/**
+ * Runs the long list, set and map cases with the built-in summaries of the <code>java.util</code> containers.
+ */
+@RunWith(OptionSuite.class)
+@EnabledOption(Option.CONTAINER_SUMMARIES)
+@SuiteClasses({ ArrayListsLongTest.class, LinkedListsLongTest.class, HashMapGetLongTest.class,
+        HashMapsLongTest.class, HashSetsLongTest.class })
+public class ContainerSummariesLongTest {
+}
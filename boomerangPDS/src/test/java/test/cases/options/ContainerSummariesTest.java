@@ -0,0 +1,29 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.cases.options;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite.SuiteClasses;
+
+import test.cases.lists.ArrayAndLinkedListsTest;
+import test.core.OptionSuite;
+import test.core.OptionSuite.EnabledOption;
+import test.core.OptionSuite.Option;
+
+/**
+ * Runs the list cases with the built-in summaries of the <code>java.util</code> containers.
+ */
+@RunWith(OptionSuite.class)
+@EnabledOption(Option.CONTAINER_SUMMARIES)
+@SuiteClasses({ ArrayAndLinkedListsTest.class })
+public class ContainerSummariesTest {
+}
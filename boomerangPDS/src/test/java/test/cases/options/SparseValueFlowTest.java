@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.cases.options;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite.SuiteClasses;
+
+import test.cases.basic.InterprocedualTest;
+import test.cases.fields.FieldsBranchedTest;
+import test.cases.fields.ReadPOITest;
+import test.core.OptionSuite;
+import test.core.OptionSuite.EnabledOption;
+import test.core.OptionSuite.Option;
+
+/**
+ * Runs the field and interprocedural cases with the forward solvers propagating along the sparse value-flow graph.
+ */
+@RunWith(OptionSuite.class)
+@EnabledOption(Option.SPARSE_VALUE_FLOW)
+@SuiteClasses({ InterprocedualTest.class, FieldsBranchedTest.class, ReadPOITest.class })
+public class SparseValueFlowTest {
+}
@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.cases.options;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite.SuiteClasses;
+
+import test.cases.statics.SimpleSingleton;
+import test.cases.statics.Singleton;
+import test.cases.statics.StaticFieldFlows;
+import test.cases.statics.StaticInitializer;
+import test.cases.statics.StaticWithSuperclasses;
+import test.core.OptionSuite;
+import test.core.OptionSuite.EnabledOption;
+import test.core.OptionSuite.Option;
+
+/**
+ * Runs the static field cases with the index of static field accesses.
+ */
+@RunWith(OptionSuite.class)
+@EnabledOption(Option.STATIC_FIELD_INDEX)
+@SuiteClasses({ SimpleSingleton.class, Singleton.class, StaticFieldFlows.class, StaticInitializer.class,
+        StaticWithSuperclasses.class })
+public class StaticFieldAccessIndexTest {
+}
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.cases.parallel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.google.common.collect.Maps;
+
+import boomerang.BackwardQuery;
+import boomerang.ForwardQuery;
+import boomerang.ParallelBoomerang;
+import boomerang.ParallelBoomerang.ResultListener;
+import boomerang.ParallelBoomerang.SolverFactory;
+import boomerang.WeightedBoomerang;
+import boomerang.results.BackwardBoomerangResults;
+import boomerang.results.ForwardBoomerangResults;
+import test.cases.fields.Alloc;
+import test.core.AbstractQueryTest;
+import wpds.impl.Weight.NoWeight;
+
+public class ParallelBoomerangTest extends AbstractQueryTest {
+
+    @Override
+    protected void analyze(List<BackwardQuery> queries) {
+        final Map<BackwardQuery, Set<ForwardQuery>> parallel = Maps.newHashMap();
+        // All workers share the static ICFG and record the unbalanced methods of their queries in it
+        new ParallelBoomerang<NoWeight>(new SolverFactory<NoWeight>() {
+            @Override
+            public WeightedBoomerang<NoWeight> create() {
+                return createStaticSolver(new TestOptions());
+            }
+        }).solveAll(queries, 4, new ResultListener<NoWeight>() {
+            @Override
+            public void onForwardResult(ForwardQuery query, ForwardBoomerangResults<NoWeight> results) {
+            }
+
+            @Override
+            public void onBackwardResult(BackwardQuery query, BackwardBoomerangResults<NoWeight> results) {
+                assertFalse(results.isTimedout());
+                parallel.put(query, allocationSitesOf(results));
+            }
+        });
+
+        assertEquals(queries.size(), parallel.size());
+        for (BackwardQuery query : queries) {
+            Set<ForwardQuery> sequential = allocationSitesOf(createStaticSolver(new TestOptions()).solve(query));
+            assertFalse(sequential.isEmpty());
+            assertEquals(sequential, parallel.get(query));
+        }
+    }
+
+    @Test
+    public void sharedStaticICFG() {
+        Alloc a = create();
+        Alloc b = create();
+        Alloc c = wrap(new Alloc());
+        Alloc d = wrap(create());
+        Alloc e = new Alloc();
+        queryFor(a);
+        queryFor(b);
+        queryFor(c);
+        queryFor(d);
+        queryFor(e);
+        queryFor(wrap(e));
+    }
+
+    private Alloc create() {
+        return new Alloc();
+    }
+
+    private Alloc wrap(Alloc alloc) {
+        Alloc[] holder = new Alloc[] { alloc };
+        return holder[0];
+    }
+}
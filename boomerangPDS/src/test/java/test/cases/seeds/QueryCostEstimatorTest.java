@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.cases.seeds;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import boomerang.BackwardQuery;
+import boomerang.Query;
+import boomerang.WholeProgramBoomerang;
+import boomerang.seedfactory.QueryCostEstimator;
+import boomerang.seedfactory.SeedCheckpoint;
+import test.cases.fields.Alloc;
+import test.core.AbstractQueryTest;
+import wpds.impl.Weight.NoWeight;
+
+public class QueryCostEstimatorTest extends AbstractQueryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Override
+    protected void analyze(List<BackwardQuery> queries) {
+        WholeProgramBoomerang<NoWeight> solver = createWholeProgramSolver(new TestOptions());
+        List<Query> seeds = Lists.newArrayList(solver.getSeedFactory().computeSeeds());
+        assertTrue(seeds.size() > 2);
+
+        QueryCostEstimator estimator = new QueryCostEstimator(solver.getSeedFactory());
+        List<Query> ordered = estimator.order(seeds);
+        assertEquals(Sets.newHashSet(seeds), Sets.newHashSet(ordered));
+        assertCheapestFirst(estimator, ordered);
+
+        // Predictions are scaled to the unit of the recorded costs
+        Query cheapest = ordered.get(0);
+        Query mostExpensive = ordered.get(ordered.size() - 1);
+        long prediction = estimator.estimate(cheapest);
+        long mostExpensivePrediction = estimator.estimate(mostExpensive);
+        estimator.record(mostExpensive, 10 * mostExpensivePrediction);
+        assertEquals(10 * prediction, estimator.estimate(cheapest));
+        assertEquals(10 * mostExpensivePrediction, estimator.estimate(mostExpensive));
+        // Recording a query again replaces its earlier cost
+        estimator.record(mostExpensive, 20 * mostExpensivePrediction);
+        assertEquals(20 * prediction, estimator.estimate(cheapest));
+
+        // A checkpoint persists the costs of the solved seeds for the next run
+        solver.wholeProgramAnalysis();
+        SeedCheckpoint checkpoint;
+        try {
+            SeedCheckpoint recorded = SeedCheckpoint.load(folder.getRoot(), new TestOptions());
+            for (Query s : seeds) {
+                recorded.finished(s, false, solver.getQueryCostEstimator().estimate(s),
+                        Collections.<String> emptyList());
+            }
+            checkpoint = SeedCheckpoint.load(folder.getRoot(), new TestOptions());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        QueryCostEstimator restarted = new QueryCostEstimator(solver.getSeedFactory());
+        restarted.recordAll(checkpoint, seeds);
+        for (Query s : seeds) {
+            long cost = solver.getQueryCostEstimator().estimate(s);
+            assertEquals(cost, (long) checkpoint.getCost(s));
+            assertEquals(cost, restarted.estimate(s));
+        }
+        assertEquals(solver.getQueryCostEstimator().order(seeds), restarted.order(seeds));
+    }
+
+    private void assertCheapestFirst(QueryCostEstimator estimator, List<Query> queries) {
+        for (int i = 1; i < queries.size(); i++) {
+            assertTrue(estimator.estimate(queries.get(i - 1)) <= estimator.estimate(queries.get(i)));
+        }
+    }
+
+    @Test
+    public void seedsOfDifferentCost() {
+        Alloc a = new Alloc();
+        Alloc b = wrap(new Alloc());
+        Alloc[] array = new Alloc[] { a, b };
+        queryFor(array[0]);
+    }
+
+    private Alloc wrap(Alloc alloc) {
+        Alloc[] holder = new Alloc[] { alloc };
+        return holder[0];
+    }
+}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.cases.seeds;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import boomerang.BackwardQuery;
+import boomerang.Query;
+import boomerang.seedfactory.SeedCheckpoint;
+import test.cases.fields.Alloc;
+import test.core.AbstractQueryTest;
+
+public class SeedCheckpointTest extends AbstractQueryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Override
+    protected void analyze(List<BackwardQuery> queries) {
+        try {
+            File directory = folder.newFolder();
+            Collection<Query> seeds = createWholeProgramSolver(new TestOptions()).getSeedFactory().computeSeeds();
+            assertTrue(seeds.size() > 1);
+            SeedCheckpoint recorded = SeedCheckpoint.load(directory, new CheckpointOptions(directory));
+            for (Query s : seeds) {
+                assertFalse(recorded.isFinished(s));
+                recorded.finished(s, false, 1, Collections.<String> emptyList());
+            }
+            // The keys of the seeds are distinct and stable across runs
+            SeedCheckpoint checkpoint = SeedCheckpoint.load(directory, new CheckpointOptions(directory));
+            Set<String> keys = Sets.newHashSet();
+            for (Query s : seeds) {
+                assertTrue(checkpoint.isFinished(s));
+                assertFalse(checkpoint.isTimedout(s));
+                keys.add(checkpoint.key(s));
+            }
+            assertEquals(seeds.size(), keys.size());
+
+            // Results, costs and timeouts survive a restart
+            Query seed = seeds.iterator().next();
+            File other = folder.newFolder();
+            SeedCheckpoint written = SeedCheckpoint.load(other, new CheckpointOptions(other));
+            written.finished(seed, true, 42, Arrays.asList("first", "second"));
+            SeedCheckpoint loaded = SeedCheckpoint.load(other, new CheckpointOptions(other));
+            assertTrue(loaded.isFinished(seed));
+            assertTrue(loaded.isTimedout(seed));
+            assertEquals(Long.valueOf(42), loaded.getCost(seed));
+            assertEquals(Arrays.asList("first", "second"), loaded.getResults(seed));
+
+            // Seeds recorded for another program or other options, and incomplete lines, are not loaded
+            File seedsFile = new File(other, "seeds.json");
+            String line = Files.readAllLines(seedsFile.toPath(), StandardCharsets.UTF_8).get(0);
+            assertTrue(line.contains(SeedCheckpoint.programHash()));
+            List<String> lines = Lists.newArrayList(line.replace(SeedCheckpoint.programHash(), "other program"),
+                    line.substring(0, line.length() / 2));
+            Files.write(seedsFile.toPath(), lines, StandardCharsets.UTF_8);
+            assertFalse(SeedCheckpoint.load(other, new CheckpointOptions(other)).isFinished(seed));
+            Files.write(seedsFile.toPath(), Arrays.asList(line), StandardCharsets.UTF_8);
+            assertTrue(SeedCheckpoint.load(other, new CheckpointOptions(other)).isFinished(seed));
+            assertFalse(SeedCheckpoint.load(other, new OtherOptions(other)).isFinished(seed));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static class CheckpointOptions extends TestOptions {
+        private final File directory;
+
+        private CheckpointOptions(File directory) {
+            this.directory = directory;
+        }
+
+        @Override
+        public String checkpointDirectory() {
+            return directory.getPath();
+        }
+    }
+
+    private static class OtherOptions extends CheckpointOptions {
+        private OtherOptions(File directory) {
+            super(directory);
+        }
+
+        @Override
+        public boolean arrayFlows() {
+            return false;
+        }
+    }
+
+    @Test
+    public void seedsWithFieldWrites() {
+        Holder holder = new Holder();
+        holder.field = new Alloc();
+        Holder alias = holder;
+        queryFor(alias.field);
+    }
+
+    public static class Holder {
+        Alloc field;
+    }
+}
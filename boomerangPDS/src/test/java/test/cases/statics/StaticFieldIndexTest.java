@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.cases.statics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import boomerang.BackwardQuery;
+import boomerang.solver.StaticFieldIndex;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootField;
+import soot.SootMethod;
+import soot.Unit;
+import soot.jimple.Jimple;
+import soot.jimple.Stmt;
+import test.cases.fields.Alloc;
+import test.core.AbstractQueryTest;
+
+public class StaticFieldIndexTest extends AbstractQueryTest {
+
+    private static Alloc field;
+    private static Alloc initialized = new Alloc();
+
+    @Override
+    protected void analyze(List<BackwardQuery> queries) {
+        SootClass testClass = Scene.v().getSootClass(StaticFieldIndexTest.class.getName());
+        SootField f = testClass.getFieldByName("field");
+        SootMethod write = testClass.getMethodByName("write");
+        SootMethod writeIndirectly = testClass.getMethodByName("writeIndirectly");
+        SootMethod unrelated = testClass.getMethodByName("unrelated");
+
+        StaticFieldIndex index = new StaticFieldIndex();
+        assertTrue(index.getDirectAccesses(f).contains(write));
+        assertFalse(index.getDirectAccesses(f).contains(writeIndirectly));
+        assertTrue(index.mayAccess(write, f));
+        assertTrue(index.mayAccess(writeIndirectly, f));
+        assertFalse(index.mayAccess(unrelated, f));
+        for (Unit u : testClass.getMethodByName(testMethodName.getMethodName()).getActiveBody().getUnits()) {
+            Stmt s = (Stmt) u;
+            if (!s.containsInvokeExpr())
+                continue;
+            SootMethod callee = s.getInvokeExpr().getMethod();
+            if (callee.equals(writeIndirectly))
+                assertTrue(index.mayBeAccessedByCall(s, f));
+            else if (callee.equals(unrelated))
+                assertFalse(index.mayBeAccessedByCall(s, f));
+        }
+        // A call to a callee missing from the call graph may access the field
+        Stmt missingCallee = Jimple.v().newInvokeStmt(Jimple.v().newStaticInvokeExpr(unrelated.makeRef()));
+        assertTrue(index.mayBeAccessedByCall(missingCallee, f));
+
+        SootField initializedField = testClass.getFieldByName("initialized");
+        SootMethod clinit = testClass.getMethodByName(SootMethod.staticInitializerName);
+        assertTrue(index.getStaticInitializers(initializedField).contains(clinit));
+        assertTrue(index.getStaticInitializers(f).isEmpty());
+
+        // Skipping the calls that do not access the field does not change the results
+        for (BackwardQuery q : queries) {
+            assertEquals(allocationSitesOf(q), allocationSitesOf(createSolver(new IndexOptions()).solve(q)));
+        }
+    }
+
+    private class IndexOptions extends TestOptions {
+        @Override
+        public boolean staticFieldIndex() {
+            return true;
+        }
+    }
+
+    @Test
+    public void skipUnrelatedCalls() {
+        writeIndirectly();
+        Alloc other = unrelated();
+        Alloc read = field;
+        queryFor(read);
+        queryFor(other);
+    }
+
+    private static void write() {
+        field = new Alloc();
+    }
+
+    private static void writeIndirectly() {
+        write();
+    }
+
+    private static Alloc unrelated() {
+        return new Alloc();
+    }
+}
@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.cases.summaries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+
+import boomerang.DefaultBoomerangOptions;
+import boomerang.summaries.LibrarySummaries;
+import boomerang.summaries.MethodSummary;
+import boomerang.summaries.SummaryEdge;
+import boomerang.summaries.SummaryLocation;
+
+public class LibrarySummariesTest {
+
+    private static final String GET = "<java.util.ArrayList: java.lang.Object get(int)>";
+    private static final String ADD = "<java.util.ArrayList: boolean add(java.lang.Object)>";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void parseEdges() {
+        SummaryEdge store = SummaryEdge.parse("arg0 -> this.[elements]");
+        assertEquals(SummaryLocation.arg(0, null), store.getFrom());
+        assertEquals(SummaryLocation.thisLocation("elements"), store.getTo());
+        assertTrue(store.isStore());
+        assertFalse(store.isLoad());
+
+        // Both directions denote the same edge
+        assertEquals(SummaryEdge.parse("this.[elements] -> return"), SummaryEdge.parse("return <- this.[elements]"));
+        assertEquals(SummaryLocation.newObject(), SummaryEdge.parse("new -> return").getFrom());
+    }
+
+    @Test
+    public void parseMalformedEdges() {
+        for (String edge : Arrays.asList("arg0 this", "this.[elements -> return", "new.[f] -> return",
+                "argx -> return", "self -> return", "this.[] -> return")) {
+            try {
+                SummaryEdge.parse(edge);
+                fail("Parsed " + edge);
+            } catch (IllegalArgumentException e) {
+            }
+        }
+    }
+
+    @Test
+    public void parseDeclared() {
+        MethodSummary get = LibrarySummaries.parseDeclared(GET + " return <- this.[elements]");
+        assertEquals(GET, get.getSignature());
+        assertEquals(Collections.singleton(SummaryEdge.parse("this.[elements] -> return")), get.getEdges());
+
+        MethodSummary skipped = LibrarySummaries.parseDeclared("<java.util.ArrayList: int size()>");
+        assertTrue(skipped.getEdges().isEmpty());
+
+        MethodSummary parsed = MethodSummary.parse(ADD, get.toString() + "; arg0 -> this.[elements]");
+        assertEquals(2, parsed.getEdges().size());
+        assertEquals(parsed.getEdges(), MethodSummary.parse(ADD, parsed.toString()).getEdges());
+    }
+
+    @Test
+    public void containerSummaries() {
+        LibrarySummaries builtIn = LibrarySummaries.containerSummaries();
+        assertTrue(builtIn.size() > 0);
+        boolean foundGet = false;
+        for (MethodSummary s : builtIn.getSummaries()) {
+            if (s.getSignature().equals(GET)) {
+                foundGet = true;
+                assertTrue(s.getEdges().contains(SummaryEdge.parse("this.[elements] -> return")));
+            }
+        }
+        assertTrue(foundGet);
+    }
+
+    @Test
+    public void optionsHash() {
+        DefaultBoomerangOptions defaults = new DefaultBoomerangOptions();
+        assertEquals(LibrarySummaries.optionsHash(defaults), LibrarySummaries.optionsHash(new DefaultBoomerangOptions()));
+        assertEquals(64, LibrarySummaries.optionsHash(defaults).length());
+        assertNotEquals(LibrarySummaries.optionsHash(defaults), LibrarySummaries.optionsHash(new ArrayOptions()));
+    }
+
+    @Test
+    public void writeAndLoad() throws IOException {
+        File file = new File(folder.getRoot(), "summaries/library.summaries");
+        LibrarySummaries summaries = new LibrarySummaries();
+        summaries.add(MethodSummary.parse(GET, "this.[elements] -> return"));
+        summaries.add(MethodSummary.parse(ADD, "arg0 -> this.[elements]"));
+        summaries.write(file, new DefaultBoomerangOptions());
+
+        LibrarySummaries other = new LibrarySummaries();
+        other.add(MethodSummary.parse(GET, "this.[<A: java.lang.Object f>] -> return"));
+        other.write(file, new ArrayOptions());
+
+        assertSameSummaries(summaries, LibrarySummaries.load(file, new DefaultBoomerangOptions()));
+        assertSameSummaries(other, LibrarySummaries.load(file, new ArrayOptions()));
+
+        // Rewriting replaces the summaries of the options and keeps the others
+        LibrarySummaries rewritten = new LibrarySummaries();
+        rewritten.add(MethodSummary.parse(ADD, "arg0 -> this.[elements]"));
+        rewritten.write(file, new DefaultBoomerangOptions());
+        assertSameSummaries(rewritten, LibrarySummaries.load(file, new DefaultBoomerangOptions()));
+        assertSameSummaries(other, LibrarySummaries.load(file, new ArrayOptions()));
+    }
+
+    @Test
+    public void ignoreSummariesOfRebuiltLibrary() throws IOException {
+        File file = folder.newFile("library.summaries");
+        LibrarySummaries summaries = new LibrarySummaries();
+        summaries.add(MethodSummary.parse(GET, "this.[elements] -> return"));
+        summaries.add(MethodSummary.parse(ADD, "arg0 -> this.[elements]"));
+        summaries.write(file, new DefaultBoomerangOptions());
+
+        List<String> lines = Lists.newArrayList();
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            String[] columns = line.split("\t");
+            if (columns[2].equals(ADD))
+                columns[1] = "rebuilt library";
+            lines.add(Joiner.on('\t').join(columns));
+        }
+        Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+        LibrarySummaries loaded = LibrarySummaries.load(file, new DefaultBoomerangOptions());
+        assertEquals(1, loaded.size());
+        assertEquals(GET, loaded.getSummaries().iterator().next().getSignature());
+    }
+
+    @Test
+    public void loadDeclaredSummaries() throws IOException {
+        File file = folder.newFile("declared.summaries");
+        Files.write(file.toPath(), Arrays.asList("# hand-written", "", GET + " return <- this.[elements]"),
+                StandardCharsets.UTF_8);
+        assertEquals(1, LibrarySummaries.load(file, new DefaultBoomerangOptions()).size());
+        assertEquals(1, LibrarySummaries.load(file, new ArrayOptions()).size());
+        assertEquals(0, LibrarySummaries.load(new File(folder.getRoot(), "missing"), new ArrayOptions()).size());
+    }
+
+    @Test(expected = IOException.class)
+    public void loadMalformedLine() throws IOException {
+        File file = folder.newFile("malformed.summaries");
+        Files.write(file.toPath(), Collections.singletonList("abc\t" + GET), StandardCharsets.UTF_8);
+        LibrarySummaries.load(file, new DefaultBoomerangOptions());
+    }
+
+    private static void assertSameSummaries(LibrarySummaries expected, LibrarySummaries actual) {
+        assertEquals(expected.size(), actual.size());
+        for (MethodSummary s : expected.getSummaries()) {
+            boolean found = false;
+            for (MethodSummary loaded : actual.getSummaries()) {
+                if (loaded.getSignature().equals(s.getSignature())) {
+                    found = true;
+                    assertEquals(s.getEdges(), loaded.getEdges());
+                }
+            }
+            assertTrue("Missing summary of " + s.getSignature(), found);
+        }
+    }
+
+    private static class ArrayOptions extends DefaultBoomerangOptions {
+        @Override
+        public boolean arrayFlows() {
+            return !super.arrayFlows();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.cases.summaries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import boomerang.BackwardQuery;
+import boomerang.ParallelBoomerang.SolverFactory;
+import boomerang.WeightedBoomerang;
+import boomerang.summaries.LibrarySummaries;
+import boomerang.summaries.LibrarySummaryGenerator;
+import boomerang.summaries.MethodSummary;
+import boomerang.summaries.SummaryEdge;
+import boomerang.summaries.SummaryLocation;
+import soot.Scene;
+import soot.SootClass;
+import soot.SootMethod;
+import test.cases.fields.Alloc;
+import test.core.AbstractQueryTest;
+import wpds.impl.Weight.NoWeight;
+
+public class LibrarySummaryGeneratorTest extends AbstractQueryTest {
+
+    private String summaryFile;
+
+    @Override
+    protected void analyze(List<BackwardQuery> queries) {
+        SootClass box = Scene.v().getSootClass(Box.class.getName());
+        LibrarySummaries summaries = new LibrarySummaryGenerator<NoWeight>(new SolverFactory<NoWeight>() {
+            @Override
+            public WeightedBoomerang<NoWeight> create() {
+                return createStaticSolver(new TestOptions());
+            }
+        }).generate(Collections.singleton(box));
+
+        String content = box.getFieldByName("content").getSignature();
+        MethodSummary set = summaryOf(summaries, box.getMethodByName("set").getSignature());
+        assertTrue(set.getEdges().toString(), set.getEdges().contains(
+                new SummaryEdge(SummaryLocation.arg(0, null), SummaryLocation.thisLocation(content))));
+        MethodSummary get = summaryOf(summaries, box.getMethodByName("get").getSignature());
+        assertTrue(get.getEdges().toString(), get.getEdges().contains(
+                new SummaryEdge(SummaryLocation.thisLocation(content), SummaryLocation.returnLocation(null))));
+
+        // A method of another class reading the field of the box would not see objects stored by the summaries
+        SootMethod setMethod = box.getMethodByName("set");
+        if (testMethodName.getMethodName().equals("unsummarizedReader"))
+            assertNull(summaries.closedUnderScene().getSummary(setMethod));
+        else
+            assertNotNull(summaries.closedUnderScene().getSummary(setMethod));
+
+        // The solvers apply the written summaries instead of analyzing the methods of the box
+        try {
+            File file = File.createTempFile("library", ".summaries");
+            file.deleteOnExit();
+            summaries.write(file, new SummaryOptions());
+            summaryFile = file.getAbsolutePath();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        for (BackwardQuery query : queries) {
+            assertEquals(allocationSitesOf(query),
+                    allocationSitesOf(createSolver(new SummaryOptions()).solve(query)));
+        }
+    }
+
+    private static MethodSummary summaryOf(LibrarySummaries summaries, String signature) {
+        for (MethodSummary s : summaries.getSummaries()) {
+            if (s.getSignature().equals(signature))
+                return s;
+        }
+        fail("No summary of " + signature);
+        return null;
+    }
+
+    private class SummaryOptions extends TestOptions {
+        @Override
+        public String librarySummaryFile() {
+            return summaryFile;
+        }
+    }
+
+    @Test
+    public void summarizedBox() {
+        Box box = new Box();
+        box.set(new Alloc());
+        Object value = box.get();
+        queryFor(value);
+    }
+
+    @Test
+    public void unsummarizedReader() {
+        Box box = new Box();
+        box.set(new Alloc());
+        Object value = peek(box);
+        queryFor(value);
+    }
+
+    private static Object peek(Box box) {
+        return box.content;
+    }
+
+    private static class Box {
+        Object content;
+
+        void set(Object o) {
+            content = o;
+        }
+
+        Object get() {
+            return content;
+        }
+    }
+}
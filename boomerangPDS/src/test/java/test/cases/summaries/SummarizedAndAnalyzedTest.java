@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.cases.summaries;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import boomerang.DefaultBoomerangOptions;
+import test.core.AbstractBoomerangTest;
+import test.core.selfrunning.AllocatedObject;
+
+/**
+ * Calls to methods with a hand-written summary that return a fresh object: the summary carries the contents of the
+ * object and the body of the method is still analyzed to find its allocation site.
+ */
+public class SummarizedAndAnalyzedTest extends AbstractBoomerangTest {
+
+    private static final String BOX = "test.cases.summaries.SummarizedAndAnalyzedTest$Box";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File summaryFile;
+
+    @Test
+    public void allocationSiteWithinSummarizedMethod() {
+        Box box = new Box();
+        Box copy = box.copy();
+        queryFor(copy);
+    }
+
+    @Test
+    public void contentsCopiedBySummary() {
+        Box box = new Box();
+        box.put(new Alloc());
+        Box copy = box.plainCopy();
+        Object query = copy.get();
+        queryFor(query);
+    }
+
+    @Override
+    protected DefaultBoomerangOptions createBoomerangOptions() {
+        if (summaryFile == null) {
+            summaryFile = new File(folder.getRoot(), "box.summaries");
+            try {
+                Files.write(summaryFile.toPath(),
+                        Arrays.asList("<" + BOX + ": void put(java.lang.Object)> arg0 -> this.[contents]",
+                                "<" + BOX + ": java.lang.Object get()> return <- this.[contents]",
+                                "<" + BOX + ": " + BOX + " copy()> new -> return; this.[contents] -> return.[contents]",
+                                "<" + BOX + ": " + BOX
+                                        + " plainCopy()> new -> return; this.[contents] -> return.[contents]"),
+                        StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return new TestBoomerangOptions() {
+            @Override
+            public String librarySummaryFile() {
+                return summaryFile.getAbsolutePath();
+            }
+        };
+    }
+
+    private static class Box {
+        private Object contents;
+
+        void put(Object o) {
+            contents = o;
+        }
+
+        Object get() {
+            return contents;
+        }
+
+        // The summary copies the contents, the body only allocates
+        Box copy() {
+            return new AllocatedBox();
+        }
+
+        Box plainCopy() {
+            return new Box();
+        }
+    }
+
+    private static class AllocatedBox extends Box implements AllocatedObject {
+    }
+
+    private static class Alloc implements AllocatedObject {
+    }
+}
@@ -73,6 +73,7 @@ import sync.pds.solver.WeightFunctions;
 import sync.pds.solver.nodes.INode;
 import sync.pds.solver.nodes.Node;
 import sync.pds.solver.nodes.SingleNode;
+import test.core.OptionSuite.Option;
 import test.core.selfrunning.AbstractTestingFramework;
 import wpds.impl.Transition;
 import wpds.impl.Weight;
@@ -321,22 +322,7 @@ public class AbstractBoomerangTest extends AbstractTestingFramework {
 
         for (final Query query : queries) {
             DefaultBoomerangOptions options = (queryDetector.integerQueries ? new IntAndStringBoomerangOptions()
-                    : new DefaultBoomerangOptions() {
-                        @Override
-                        public boolean arrayFlows() {
-                            return true;
-                        }
-
-                        @Override
-                        public int analysisTimeoutMS() {
-                            return analysisTimeout;
-                        }
-
-                        @Override
-                        public boolean onTheFlyCallGraph() {
-                            return false;
-                        }
-                    });
+                    : createBoomerangOptions());
             Boomerang solver = new Boomerang(options) {
                 @Override
                 public ObservableICFG<Unit, SootMethod> icfg() {
@@ -382,6 +368,52 @@ public class AbstractBoomerangTest extends AbstractTestingFramework {
         return results;
     }
 
+    /**
+     * @return The options of the demand-driven queries, except for integer queries. Suites that run the test cases
+     *         of another suite with an optional feature override this and return a subclass of
+     *         {@link TestBoomerangOptions}.
+     */
+    protected DefaultBoomerangOptions createBoomerangOptions() {
+        return new TestBoomerangOptions();
+    }
+
+    protected class TestBoomerangOptions extends DefaultBoomerangOptions {
+        @Override
+        public boolean arrayFlows() {
+            return true;
+        }
+
+        @Override
+        public int analysisTimeoutMS() {
+            return analysisTimeout;
+        }
+
+        @Override
+        public boolean onTheFlyCallGraph() {
+            return false;
+        }
+
+        @Override
+        public boolean sparseValueFlow() {
+            return OptionSuite.isEnabled(Option.SPARSE_VALUE_FLOW);
+        }
+
+        @Override
+        public boolean containerSummaries() {
+            return OptionSuite.isEnabled(Option.CONTAINER_SUMMARIES);
+        }
+
+        @Override
+        public boolean staticFieldIndex() {
+            return OptionSuite.isEnabled(Option.STATIC_FIELD_INDEX);
+        }
+
+        @Override
+        public boolean normalizeBackwardQueries() {
+            return OptionSuite.isEnabled(Option.NORMALIZE_BACKWARD_QUERIES);
+        }
+    }
+
     private void checkContainsAllExpectedAccessPath(Set<AccessPath> allAliases) {
         HashSet<AccessPath> expected = Sets.newHashSet(queryDetector.expectedAccessPaths);
         expected.removeAll(allAliases);
@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.core;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import boomerang.BackwardQuery;
+import boomerang.Boomerang;
+import boomerang.BoomerangOptions;
+import boomerang.DefaultBoomerangOptions;
+import boomerang.ForwardQuery;
+import boomerang.Query;
+import boomerang.WholeProgramBoomerang;
+import boomerang.callgraph.BoomerangICFG;
+import boomerang.callgraph.ObservableDynamicICFG;
+import boomerang.callgraph.ObservableICFG;
+import boomerang.callgraph.ObservableStaticICFG;
+import boomerang.debugger.Debugger;
+import boomerang.jimple.Field;
+import boomerang.jimple.Statement;
+import boomerang.jimple.Val;
+import boomerang.preanalysis.BoomerangPretransformer;
+import boomerang.results.BackwardBoomerangResults;
+import boomerang.seedfactory.SeedFactory;
+import soot.SceneTransformer;
+import soot.SootMethod;
+import soot.Unit;
+import sync.pds.solver.OneWeightFunctions;
+import sync.pds.solver.WeightFunctions;
+import test.core.selfrunning.AbstractTestingFramework;
+import wpds.impl.Weight.NoWeight;
+
+/**
+ * Base class of tests that check the behavior of the solver itself, e.g., budgets, caching or parallel solving,
+ * rather than the allocation sites of a single query. The queries of a test case are the calls to
+ * {@link #queryFor(Object)}. Subclasses solve and check them in {@link #analyze(List)}, usually by comparing
+ * against the results of a solver with the default {@link TestOptions}.
+ */
+public abstract class AbstractQueryTest extends AbstractTestingFramework {
+
+    protected ObservableStaticICFG staticIcfg;
+
+    @Override
+    protected SceneTransformer createAnalysisTransformer() {
+        return new SceneTransformer() {
+
+            protected void internalTransform(String phaseName, @SuppressWarnings("rawtypes") Map options) {
+                BoomerangPretransformer.v().apply();
+                staticIcfg = new ObservableStaticICFG(new BoomerangICFG(false));
+                List<BackwardQuery> queries = Lists.newArrayList();
+                for (Query q : new QueryForCallSiteDetector(staticIcfg).computeSeeds()) {
+                    queries.add((BackwardQuery) q);
+                }
+                if (queries.isEmpty())
+                    throw new RuntimeException("No query found in " + testMethodName.getMethodName());
+                analyze(queries);
+            }
+        };
+    }
+
+    /**
+     * Solves and checks the queries of the test case. Failures are reported by throwing an {@link AssertionError}.
+     */
+    protected abstract void analyze(List<BackwardQuery> queries);
+
+    protected Boomerang createSolver(BoomerangOptions options) {
+        return new Boomerang(options) {
+            @Override
+            public ObservableICFG<Unit, SootMethod> icfg() {
+                if (icfg == null)
+                    icfg = new ObservableDynamicICFG(this);
+                return icfg;
+            }
+
+            @Override
+            public SeedFactory<NoWeight> getSeedFactory() {
+                return null;
+            }
+        };
+    }
+
+    /**
+     * @return A solver using the precomputed call graph of {@link #staticIcfg}, which may be shared among solvers.
+     */
+    protected Boomerang createStaticSolver(BoomerangOptions options) {
+        return new Boomerang(options) {
+            @Override
+            public ObservableICFG<Unit, SootMethod> icfg() {
+                return staticIcfg;
+            }
+
+            @Override
+            public SeedFactory<NoWeight> getSeedFactory() {
+                return null;
+            }
+        };
+    }
+
+    /**
+     * @return A solver of all allocation sites reachable from the test method, see
+     *         {@link WholeProgramBoomerang#wholeProgramAnalysis()}.
+     */
+    protected WholeProgramBoomerang<NoWeight> createWholeProgramSolver(BoomerangOptions options) {
+        return new WholeProgramBoomerang<NoWeight>(options) {
+            private final WeightFunctions<Statement, Val, Field, NoWeight> fieldWeights = new OneWeightFunctions<>(
+                    NoWeight.NO_WEIGHT_ZERO, NoWeight.NO_WEIGHT_ONE);
+            private final WeightFunctions<Statement, Val, Statement, NoWeight> callWeights =
+                    new OneWeightFunctions<>(NoWeight.NO_WEIGHT_ZERO, NoWeight.NO_WEIGHT_ONE);
+
+            @Override
+            public ObservableICFG<Unit, SootMethod> icfg() {
+                if (icfg == null)
+                    icfg = new ObservableDynamicICFG(this);
+                return icfg;
+            }
+
+            @Override
+            public Debugger<NoWeight> createDebugger() {
+                return new Debugger<>();
+            }
+
+            @Override
+            protected WeightFunctions<Statement, Val, Field, NoWeight> getForwardFieldWeights() {
+                return fieldWeights;
+            }
+
+            @Override
+            protected WeightFunctions<Statement, Val, Field, NoWeight> getBackwardFieldWeights() {
+                return fieldWeights;
+            }
+
+            @Override
+            protected WeightFunctions<Statement, Val, Statement, NoWeight> getBackwardCallWeights() {
+                return callWeights;
+            }
+
+            @Override
+            protected WeightFunctions<Statement, Val, Statement, NoWeight> getForwardCallWeights(
+                    ForwardQuery sourceQuery) {
+                return callWeights;
+            }
+        };
+    }
+
+    /**
+     * @return The allocation sites a fresh solver with the {@link TestOptions} computes for the query.
+     */
+    protected Set<ForwardQuery> allocationSitesOf(BackwardQuery query) {
+        return allocationSitesOf(createSolver(new TestOptions()).solve(query));
+    }
+
+    protected static Set<ForwardQuery> allocationSitesOf(BackwardBoomerangResults<NoWeight> results) {
+        return Sets.newHashSet(results.getAllocationSites().keySet());
+    }
+
+    /**
+     * The options of the demand-driven runs of {@link AbstractBoomerangTest}.
+     */
+    public static class TestOptions extends DefaultBoomerangOptions {
+        @Override
+        public boolean arrayFlows() {
+            return true;
+        }
+
+        @Override
+        public boolean onTheFlyCallGraph() {
+            return false;
+        }
+    }
+
+    public static void queryFor(Object variable) {
+
+    }
+}
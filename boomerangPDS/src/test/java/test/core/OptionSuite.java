@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package test.core;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.junit.runner.Runner;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runners.Suite;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerBuilder;
+
+/**
+ * Runs the {@link SuiteClasses} with the {@link EnabledOption} switched on in the options of the
+ * {@link AbstractBoomerangTest}s, so that an option is covered by the existing test cases without a subclass per
+ * suite.
+ */
+public class OptionSuite extends Suite {
+
+    public enum Option {
+        SPARSE_VALUE_FLOW, CONTAINER_SUMMARIES, STATIC_FIELD_INDEX, NORMALIZE_BACKWARD_QUERIES
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.TYPE)
+    public @interface EnabledOption {
+        Option value();
+    }
+
+    private static Option enabledOption;
+    private final Option option;
+
+    public OptionSuite(Class<?> klass, RunnerBuilder builder) throws InitializationError {
+        super(klass, builder);
+        EnabledOption annotation = klass.getAnnotation(EnabledOption.class);
+        if (annotation == null)
+            throw new InitializationError("Missing @EnabledOption on " + klass.getName());
+        this.option = annotation.value();
+    }
+
+    @Override
+    protected void runChild(Runner runner, RunNotifier notifier) {
+        enabledOption = option;
+        try {
+            super.runChild(runner, notifier);
+        } finally {
+            enabledOption = null;
+        }
+    }
+
+    /**
+     * @return true if the test cases currently run within a suite enabling the option.
+     */
+    public static boolean isEnabled(Option option) {
+        return enabledOption == option;
+    }
+}
@@ -11,23 +11,31 @@
  *******************************************************************************/
 package ideal;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.Table.Cell;
 
 import boomerang.ForwardQuery;
 import boomerang.Query;
 import boomerang.WeightedForwardQuery;
 import boomerang.callgraph.ObservableICFG;
 import boomerang.callgraph.ObservableStaticICFG;
+import boomerang.jimple.Statement;
+import boomerang.jimple.Val;
 import boomerang.results.ForwardBoomerangResults;
+import boomerang.seedfactory.QueryCostEstimator;
+import boomerang.seedfactory.SeedCheckpoint;
 import boomerang.seedfactory.SeedFactory;
 import boomerang.seedfactory.SimpleSeedFactory;
 import com.google.common.base.Stopwatch;
@@ -48,6 +56,8 @@ public class IDEALAnalysis<W extends Weight> {
 
     protected final IDEALAnalysisDefinition<W> analysisDefinition;
     private final SeedFactory<W> seedFactory;
+    private final QueryCostEstimator costEstimator;
+    private SeedCheckpoint checkpoint;
     private int seedCount;
     private Map<WeightedForwardQuery<W>, Stopwatch> analysisTime = new HashMap<>();
     private Set<WeightedForwardQuery<W>> timedoutSeeds = new HashSet<>();
@@ -66,12 +76,24 @@ public class IDEALAnalysis<W extends Weight> {
                 return analysisDefinition.icfg();
             }
         };
+        this.costEstimator = new QueryCostEstimator(seedFactory);
     }
 
     public void run() {
         printOptions();
 
         Collection<Query> initialSeeds = seedFactory.computeSeeds();
+        String checkpointDirectory = analysisDefinition.boomerangOptions().checkpointDirectory();
+        if (checkpointDirectory != null) {
+            try {
+                checkpoint = SeedCheckpoint.load(new File(checkpointDirectory), analysisDefinition.boomerangOptions());
+            } catch (IOException e) {
+                throw new RuntimeException("Could not load checkpoint from " + checkpointDirectory, e);
+            }
+            costEstimator.recordAll(checkpoint, initialSeeds);
+        }
+        if (analysisDefinition.boomerangOptions().cheapQueriesFirst())
+            initialSeeds = costEstimator.order(initialSeeds);
 
         if (initialSeeds.isEmpty())
             System.out.println("No seeds found!");
@@ -82,6 +104,11 @@ public class IDEALAnalysis<W extends Weight> {
                 continue;
             WeightedForwardQuery<W> seed = (WeightedForwardQuery<W>) s;
             seedCount++;
+            if (replay(seed)) {
+                System.out.println("Analyzed (finished,timedout): \t (" + (seedCount - timedoutSeeds.size()) + ","
+                        + timedoutSeeds.size() + ") of " + initialSeeds.size() + " seeds! ");
+                continue;
+            }
             logger.info("Analyzing " + seed);
             Stopwatch watch = Stopwatch.createStarted();
             analysisTime.put(seed, watch);
@@ -89,6 +116,9 @@ public class IDEALAnalysis<W extends Weight> {
                 analysisDefinition.icfg().resetCallGraph();
             ForwardBoomerangResults<W> res = run(seed);
             watch.stop();
+            costEstimator.record(seed, watch.elapsed(TimeUnit.MILLISECONDS));
+            if (checkpoint != null && !checkpoint.isFinished(seed))
+                checkpoint(seed, res, watch.elapsed(TimeUnit.MILLISECONDS));
             System.out.println("Analyzed (finished,timedout): \t (" + (seedCount - timedoutSeeds.size()) + ","
                     + timedoutSeeds.size() + ") of " + initialSeeds.size() + " seeds! ");
             analysisDefinition.getResultHandler().report(seed, res);
@@ -111,6 +141,45 @@ public class IDEALAnalysis<W extends Weight> {
         return res;
     }
 
+    /**
+     * Replays a seed the checkpoint holds to the result handler. A seed whose results the handler does not accept
+     * is solved again, so that a resumed run reports the same results as a full run.
+     */
+    private boolean replay(WeightedForwardQuery<W> seed) {
+        if (checkpoint == null || !checkpoint.isFinished(seed))
+            return false;
+        boolean timedout = checkpoint.isTimedout(seed);
+        if (!analysisDefinition.getResultHandler().replay(seed, timedout, checkpoint.getResults(seed)))
+            return false;
+        logger.info("Replayed " + seed + " from the checkpoint");
+        if (timedout)
+            timedoutSeeds.add(seed);
+        return true;
+    }
+
+    private void checkpoint(WeightedForwardQuery<W> seed, ForwardBoomerangResults<W> res, long cost) {
+        try {
+            checkpoint.finished(seed, timedoutSeeds.contains(seed), cost, resultsAsText(res));
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write checkpoint of " + seed, e);
+        }
+    }
+
+    /**
+     * @return The object-destructing statements of the results, one line per statement and variable with its weight
+     *         separated by tabs, as recorded in the checkpoint and replayed by
+     *         {@link IDEALResultHandler#replay(WeightedForwardQuery, boolean, List)}.
+     */
+    public static <W extends Weight> List<String> resultsAsText(ForwardBoomerangResults<W> res) {
+        List<String> results = new ArrayList<>();
+        if (res != null) {
+            for (Cell<Statement, Val, W> c : res.getObjectDestructingStatements().cellSet()) {
+                results.add(c.getRowKey() + "\t" + c.getColumnKey() + "\t" + c.getValue());
+            }
+        }
+        return results;
+    }
+
     private void printOptions() {
         if (PRINT_OPTIONS) {
             System.out.println(analysisDefinition);
@@ -121,6 +190,25 @@ public class IDEALAnalysis<W extends Weight> {
         return seedFactory.computeSeeds();
     }
 
+    /**
+     * @return The estimator of the costs of the seeds. It knows the analysis times, in milliseconds, of all seeds
+     *         analyzed by {@link #run()}.
+     */
+    public QueryCostEstimator getQueryCostEstimator() {
+        return costEstimator;
+    }
+
+    /**
+     * @return The checkpoint of the last {@link #run()}, which holds the results of the seeds finished in earlier
+     *         runs, or null if {@link boomerang.BoomerangOptions#checkpointDirectory()} is not set.
+     */
+    public SeedCheckpoint getCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * @return The analysis time of the seed, or null if the seed was replayed from the checkpoint.
+     */
     public Stopwatch getAnalysisTime(WeightedForwardQuery<TransitionFunction> key) {
         return analysisTime.get(key);
     }
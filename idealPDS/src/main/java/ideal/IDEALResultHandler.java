@@ -1,5 +1,7 @@
 package ideal;
 
+import java.util.List;
+
 import boomerang.WeightedForwardQuery;
 import boomerang.results.ForwardBoomerangResults;
 import wpds.impl.Weight;
@@ -10,4 +12,17 @@ public class IDEALResultHandler<W extends Weight> {
 
     }
 
+    /**
+     * Replays a seed finished in an earlier run, see {@link boomerang.BoomerangOptions#checkpointDirectory()}. Its
+     * solvers are gone, hence its results are given in textual form, see
+     * {@link IDEALAnalysis#resultsAsText(ForwardBoomerangResults)}.
+     * 
+     * @return Whether the handler accepts the textual results. Otherwise, the seed is solved again and reported by
+     *         {@link #report(WeightedForwardQuery, ForwardBoomerangResults)}. This handler does not accept them,
+     *         hence by default a restarted analysis solves all seeds and only orders them by their recorded costs.
+     */
+    public boolean replay(WeightedForwardQuery<W> seed, boolean timedout, List<String> results) {
+        return false;
+    }
+
 }
@@ -28,6 +28,7 @@ import boomerang.WeightedForwardQuery;
 import boomerang.jimple.AllocVal;
 import boomerang.jimple.Statement;
 import boomerang.jimple.Val;
+import boomerang.util.TypeCompatibilityCache;
 import soot.Local;
 import soot.Scene;
 import soot.SootClass;
@@ -223,7 +224,7 @@ public abstract class TypeStateMachineWeightFunctions
                 NewExpr newExpr = (NewExpr) assignStmt.getRightOp();
                 Value leftOp = assignStmt.getLeftOp();
                 soot.Type type = newExpr.getType();
-                if (Scene.v().getOrMakeFastHierarchy().canStoreType(type,
+                if (TypeCompatibilityCache.v().canStoreType(type,
                         Scene.v().getType(allocationSuperType.getName()))) {
                     return Collections.singleton(new WeightedForwardQuery<>(new Statement((Stmt) unit, m),
                             new AllocVal(leftOp, m, assignStmt.getRightOp(), new Statement((Stmt) unit, m)),
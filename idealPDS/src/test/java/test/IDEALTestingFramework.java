@@ -97,18 +97,22 @@ public abstract class IDEALTestingFramework extends AbstractTestingFramework {
 
             @Override
             public BoomerangOptions boomerangOptions() {
-                return new DefaultBoomerangOptions() {
-
-                    @Override
-                    public boolean onTheFlyCallGraph() {
-                        return false;
-                    }
-                };
+                return createBoomerangOptions();
             }
 
         });
     }
 
+    protected BoomerangOptions createBoomerangOptions() {
+        return new DefaultBoomerangOptions() {
+
+            @Override
+            public boolean onTheFlyCallGraph() {
+                return false;
+            }
+        };
+    }
+
     @Override
     protected SceneTransformer createAnalysisTransformer() throws ImprecisionException {
         return new SceneTransformer() {
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Fraunhofer IEM, Paderborn, Germany.
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Johannes Spaeth - initial API and implementation
+ *******************************************************************************/
+package typestate.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import boomerang.BoomerangOptions;
+import boomerang.DefaultBoomerangOptions;
+import boomerang.WeightedForwardQuery;
+import boomerang.results.ForwardBoomerangResults;
+import ideal.IDEALAnalysis;
+import ideal.StoreIDEALResultHandler;
+import typestate.TransitionFunction;
+
+/**
+ * Runs the {@link FileMustBeClosedTest} cases resumed from a checkpoint, which must report the same results as a
+ * full run.
+ */
+public class ResumedFileMustBeClosedTest extends FileMustBeClosedTest {
+
+    @Rule
+    public TemporaryFolder checkpointDirectory = new TemporaryFolder();
+
+    @Override
+    protected BoomerangOptions createBoomerangOptions() {
+        return new DefaultBoomerangOptions() {
+
+            @Override
+            public boolean onTheFlyCallGraph() {
+                return false;
+            }
+
+            @Override
+            public String checkpointDirectory() {
+                return checkpointDirectory.getRoot().getPath();
+            }
+        };
+    }
+
+    @Override
+    protected Map<WeightedForwardQuery<TransitionFunction>, ForwardBoomerangResults<TransitionFunction>> executeAnalysis() {
+        TextResultHandler full = new TextResultHandler();
+        resultHandler = full;
+        IDEALAnalysis<TransitionFunction> fullAnalysis = createAnalysis();
+        fullAnalysis.run();
+
+        // The run died while writing the second seed, the first one is replayed and the others are solved
+        int finished = truncateCheckpoint();
+        TextResultHandler resumed = new TextResultHandler();
+        resultHandler = resumed;
+        IDEALAnalysis<TransitionFunction> resumedAnalysis = createAnalysis();
+        resumedAnalysis.run();
+        assertEquals(finished, resumed.replayed.size());
+        assertEquals(full.results, resumed.results);
+        for (WeightedForwardQuery<TransitionFunction> seed : full.results.keySet()) {
+            assertEquals(fullAnalysis.isTimedout(seed), resumedAnalysis.isTimedout(seed));
+        }
+
+        // A handler that does not replay textual results gets all seeds solved again
+        resultHandler = new StoreIDEALResultHandler<>();
+        createAnalysis().run();
+        return resultHandler.getResults();
+    }
+
+    private int truncateCheckpoint() {
+        File seeds = new File(checkpointDirectory.getRoot(), "seeds.json");
+        try {
+            if (!seeds.exists())
+                return 0;
+            List<String> lines = Files.readAllLines(seeds.toPath(), StandardCharsets.UTF_8);
+            if (lines.size() < 2)
+                return lines.size();
+            Files.write(seeds.toPath(), Lists.newArrayList(lines.get(0), lines.get(1).substring(0,
+                    lines.get(1).length() / 2)), StandardCharsets.UTF_8);
+            return 1;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static class TextResultHandler extends StoreIDEALResultHandler<TransitionFunction> {
+        private final Map<WeightedForwardQuery<TransitionFunction>, Set<String>> results = Maps.newHashMap();
+        private final Set<WeightedForwardQuery<TransitionFunction>> replayed = Sets.newHashSet();
+
+        @Override
+        public void report(WeightedForwardQuery<TransitionFunction> seed,
+                ForwardBoomerangResults<TransitionFunction> res) {
+            super.report(seed, res);
+            results.put(seed, Sets.newHashSet(IDEALAnalysis.resultsAsText(res)));
+        }
+
+        @Override
+        public boolean replay(WeightedForwardQuery<TransitionFunction> seed, boolean timedout, List<String> text) {
+            replayed.add(seed);
+            results.put(seed, Sets.newHashSet(text));
+            return true;
+        }
+    }
+}
@@ -111,15 +111,22 @@ public abstract class AbstractTestingFramework {
         
         // Options.v().set_main_class(this.getTargetClass());
         SootClass sootTestCaseClass = Scene.v().forceResolve(getTestCaseClassName(), SootClass.BODIES);
-
-        for (SootMethod m : sootTestCaseClass.getMethods()) {
-            if (m.getName().equals(testMethodName.getMethodName()))
-                sootTestMethod = m;
+        // A test case may be inherited, e.g., by a suite running the test cases of another suite with other options
+        SootClass declaringClass = sootTestCaseClass;
+        while (true) {
+            for (SootMethod m : declaringClass.getMethods()) {
+                if (m.getName().equals(testMethodName.getMethodName()))
+                    sootTestMethod = m;
+            }
+            if (sootTestMethod != null || !declaringClass.hasSuperclass())
+                break;
+            declaringClass = Scene.v().forceResolve(declaringClass.getSuperclass().getName(), SootClass.BODIES);
         }
         if (sootTestMethod == null)
             throw new RuntimeException(
                     "The method with name " + testMethodName.getMethodName() + " was not found in the Soot Scene.");
         sootTestMethod.getDeclaringClass().setApplicationClass();
+        sootTestCaseClass.setApplicationClass();
         Scene.v().addBasicClass(getTargetClass(), SootClass.BODIES);
         Scene.v().loadNecessaryClasses();
         SootClass c = Scene.v().forceResolve(getTargetClass(), SootClass.BODIES);
@@ -132,8 +139,15 @@ public abstract class AbstractTestingFramework {
             if (m.isStaticInitializer())
                 ePoints.add(m);
         }
+        if (declaringClass != sootTestCaseClass) {
+            for (SootMethod m : declaringClass.getMethods()) {
+                if (m.isStaticInitializer())
+                    ePoints.add(m);
+            }
+        }
         for (SootClass inner : Scene.v().getClasses()) {
-            if (inner.getName().contains(sootTestCaseClass.getName())) {
+            if (inner.getName().contains(sootTestCaseClass.getName())
+                    || inner.getName().startsWith(declaringClass.getName() + "$")) {
                 inner.setApplicationClass();
                 for (SootMethod m : inner.getMethods()) {
                     if (m.isStaticInitializer())